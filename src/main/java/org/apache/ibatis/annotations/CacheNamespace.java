@@ -22,8 +22,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.weigher.CacheWeigher;
+import org.apache.ibatis.cache.weigher.RetainedSizeWeigher;
 
 /**
  * The annotation that specify to use cache on namespace(e.g. mapper interface).
@@ -71,6 +75,30 @@ public @interface CacheNamespace {
    */
   long flushInterval() default 0;
 
+  /**
+   * Returns the time in milliseconds each entry is kept after it was put.
+   *
+   * @return the time to live, {@code 0} to keep the entries until they are evicted or flushed
+   * @since 3.5.6
+   */
+  long timeToLive() default 0;
+
+  /**
+   * Returns the maximum random time in milliseconds added to the time to live of each entry.
+   *
+   * @return the time to live jitter
+   * @since 3.5.6
+   */
+  long timeToLiveJitter() default 0;
+
+  /**
+   * Returns the time in milliseconds an expired entry is still returned while it is reloaded by another caller.
+   *
+   * @return the stale while revalidate window
+   * @since 3.5.6
+   */
+  long staleWhileRevalidate() default 0;
+
   /**
    * Return the cache size.
    *
@@ -78,6 +106,22 @@ public @interface CacheNamespace {
    */
   int size() default 1024;
 
+  /**
+   * Returns the maximum total weight of the entries.
+   *
+   * @return the maximum weight, {@code 0} to not bound the cache by weight
+   * @since 3.5.6
+   */
+  long maxWeight() default 0;
+
+  /**
+   * Returns the weigher of the entries when the cache has a maximum weight.
+   *
+   * @return the weigher type
+   * @since 3.5.6
+   */
+  Class<? extends CacheWeigher> weigher() default RetainedSizeWeigher.class;
+
   /**
    * Returns whether use read/write cache.
    *
@@ -92,6 +136,14 @@ public @interface CacheNamespace {
    */
   boolean blocking() default false;
 
+  /**
+   * Returns the codec that copies the entries of a read/write cache.
+   *
+   * @return the codec type
+   * @since 3.5.6
+   */
+  Class<? extends CacheCodec> codec() default JavaSerializationCodec.class;
+
   /**
    * Returns property values for a implementation object.
    *
@@ -138,6 +138,18 @@ public @interface Options {
    */
   String resultSets() default "";
 
+  /**
+   * Returns the tables the statement reads, or writes if it is not a select, separated by commas.
+   * <p>
+   * They are used instead of the tables derived from the SQL when the cache invalidation scope is
+   * {@link org.apache.ibatis.session.CacheInvalidationScope#TABLE}.
+   * </p>
+   *
+   * @return the table names that separate with comma(',')
+   * @since 3.5.6
+   */
+  String tables() default "";
+
   /**
    * @return A database id that correspond this options
    * @since 3.5.5
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -37,6 +38,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionManager;
 
 /**
  * 映射方法
@@ -66,6 +68,34 @@ public class MapperMethod {
    * @return
    */
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsFuture()) {
+      return executeForFuture(sqlSession, args);
+    }
+    return doExecute(sqlSession, args);
+  }
+
+  /**
+   * Executes a method that returns a {@link CompletableFuture}.
+   * <p>
+   * The statement runs on the {@link Configuration#getAsyncExecutor() async executor} only when the session can be
+   * used from another thread, i.e. a {@link SqlSessionManager} that opens a session per call
+   * (see {@link org.apache.ibatis.session.AsyncSqlSession}). As other sessions are not thread safe,
+   * the statement is executed by the calling thread and a completed future is returned.
+   */
+  private CompletableFuture<Object> executeForFuture(SqlSession sqlSession, Object[] args) {
+    if (sqlSession instanceof SqlSessionManager && !((SqlSessionManager) sqlSession).isManagedSessionStarted()) {
+      return CompletableFuture.supplyAsync(() -> doExecute(sqlSession, args), sqlSession.getConfiguration().getAsyncExecutor());
+    }
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    try {
+      future.complete(doExecute(sqlSession, args));
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private Object doExecute(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
       case INSERT: {
@@ -317,6 +347,7 @@ public class MapperMethod {
     private final boolean returnsVoid;
     private final boolean returnsCursor;
     private final boolean returnsOptional;
+    private final boolean returnsFuture;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -325,14 +356,20 @@ public class MapperMethod {
 
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+      if (returnsFuture) {
+        // the statement result is the value of the future
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
-        this.returnType = method.getReturnType();
+        this.returnType = returnsFuture ? Object.class : method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || returnsFuture && Void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
@@ -393,6 +430,17 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * Returns whether the return type is {@code java.util.concurrent.CompletableFuture}.
+     * When it is, the other methods describe the type of the value of the future.
+     *
+     * @return {@code true}, if the return type is {@code java.util.concurrent.CompletableFuture}
+     * @since 3.5.6
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
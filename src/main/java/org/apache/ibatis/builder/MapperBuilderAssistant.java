@@ -26,6 +26,8 @@ import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.weigher.CacheWeigher;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
@@ -45,6 +47,7 @@ import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.session.CacheInvalidationScope;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -122,40 +125,104 @@ public class MapperBuilderAssistant extends BaseBuilder {
     }
   }
 
+  /**
+   * Backward compatibility signature 'useNewCache'.
+   *
+   * @param typeClass
+   *          the type class
+   * @param evictionClass
+   *          the eviction class
+   * @param flushInterval
+   *          the flush interval
+   * @param size
+   *          the size
+   * @param readWrite
+   *          the read write
+   * @param blocking
+   *          the blocking
+   * @param props
+   *          the props
+   * @return the cache
+   */
+  public Cache useNewCache(Class<? extends Cache> typeClass,
+      Class<? extends Cache> evictionClass,
+      Long flushInterval,
+      Integer size,
+      boolean readWrite,
+      boolean blocking,
+      Properties props) {
+    return useNewCache(typeClass, evictionClass, flushInterval, null, null, null, size, null, null, readWrite, blocking, null, props);
+  }
+
   /**
    * 创建一个新的缓存
    *
    * @param typeClass
+   *          the type class, {@code null} to use {@link PerpetualCache}
    * @param evictionClass
+   *          the eviction class, {@code null} to use {@link LruCache}
    * @param flushInterval
+   *          the flush interval
+   * @param timeToLive
+   *          the time in milliseconds each entry is kept, {@code null} to keep the entries until they are evicted
+   * @param timeToLiveJitter
+   *          the maximum random time in milliseconds added to the time to live, {@code null} for no jitter
+   * @param staleWhileRevalidate
+   *          the time in milliseconds an expired entry is still returned while it is reloaded, {@code null} to not
+   *          return expired entries
    * @param size
+   *          the size
+   * @param maxWeight
+   *          the maximum total weight of the entries, {@code null} to not bound the cache by weight
+   * @param weigher
+   *          the weigher of the entries, {@code null} to weigh them by their retained size
    * @param readWrite
+   *          the read write
    * @param blocking
+   *          the blocking
+   * @param codec
+   *          the codec that copies the entries of a read/write cache, {@code null} to use the Java serialization
    * @param props
-   * @return
+   *          the props
+   * @return the cache
+   * @since 3.5.6
    */
   public Cache useNewCache(Class<? extends Cache> typeClass,
       Class<? extends Cache> evictionClass,
       Long flushInterval,
+      Long timeToLive,
+      Long timeToLiveJitter,
+      Long staleWhileRevalidate,
       Integer size,
+      Long maxWeight,
+      Class<? extends CacheWeigher> weigher,
       boolean readWrite,
       boolean blocking,
+      Class<? extends CacheCodec> codec,
       Properties props) {
     // 缓存构建器
-    Cache cache = new CacheBuilder(currentNamespace)
+    CacheBuilder cacheBuilder = new CacheBuilder(currentNamespace)
         // 这里默认使用 PerpetualCache 缓存类型实现，具体的缓存实现类
         .implementation(valueOrDefault(typeClass, PerpetualCache.class))
         // 添加 LruCache 缓存装饰器
         .addDecorator(valueOrDefault(evictionClass, LruCache.class))
         .clearInterval(flushInterval)
+        .timeToLive(timeToLive)
+        .timeToLiveJitter(timeToLiveJitter)
+        .staleWhileRevalidate(staleWhileRevalidate)
         .size(size)
+        .maxWeight(maxWeight)
+        .weigher(weigher)
         .readWrite(readWrite)
         .blocking(blocking)
+        .codec(codec)
         .properties(props)
-        // 开始构建缓存
-        .build();
+        .tableVersions(configuration.getCacheInvalidationScope() == CacheInvalidationScope.TABLE ? configuration.getTableVersions() : null)
+        .metrics(configuration.isCacheMetricsEnabled());
+    // 开始构建缓存
+    Cache cache = cacheBuilder.build();
     // 把缓存放入配置类中
-    configuration.addCache(cache);
+    configuration.addCache(cache, cacheBuilder.getCopyCodec());
     currentCache = cache;
     return cache;
   }
@@ -279,7 +346,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String keyColumn,
       String databaseId,
       LanguageDriver lang,
-      String resultSets) {
+      String resultSets,
+      String tables) {
 
     if (unresolvedCacheRef) {
       throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -302,6 +370,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .lang(lang)
         .resultOrdered(resultOrdered)
         .resultSets(resultSets)
+        .tables(tables)
         .resultMaps(getStatementResultMaps(resultMap, resultType, id))
         .resultSetType(resultSetType)
         .flushCacheRequired(valueOrDefault(flushCache, !isSelect))
@@ -320,6 +389,63 @@ public class MapperBuilderAssistant extends BaseBuilder {
     return statement;
   }
 
+  /**
+   * Backward compatibility signature 'addMappedStatement'.
+   *
+   * @param id
+   *          the id
+   * @param sqlSource
+   *          the sql source
+   * @param statementType
+   *          the statement type
+   * @param sqlCommandType
+   *          the sql command type
+   * @param fetchSize
+   *          the fetch size
+   * @param timeout
+   *          the timeout
+   * @param parameterMap
+   *          the parameter map
+   * @param parameterType
+   *          the parameter type
+   * @param resultMap
+   *          the result map
+   * @param resultType
+   *          the result type
+   * @param resultSetType
+   *          the result set type
+   * @param flushCache
+   *          the flush cache
+   * @param useCache
+   *          the use cache
+   * @param resultOrdered
+   *          the result ordered
+   * @param keyGenerator
+   *          the key generator
+   * @param keyProperty
+   *          the key property
+   * @param keyColumn
+   *          the key column
+   * @param databaseId
+   *          the database id
+   * @param lang
+   *          the lang
+   * @param resultSets
+   *          the result sets
+   * @return the mapped statement
+   */
+  public MappedStatement addMappedStatement(String id, SqlSource sqlSource, StatementType statementType,
+      SqlCommandType sqlCommandType, Integer fetchSize, Integer timeout, String parameterMap, Class<?> parameterType,
+      String resultMap, Class<?> resultType, ResultSetType resultSetType, boolean flushCache, boolean useCache,
+      boolean resultOrdered, KeyGenerator keyGenerator, String keyProperty, String keyColumn, String databaseId,
+      LanguageDriver lang, String resultSets) {
+    return addMappedStatement(
+      id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+      parameterMap, parameterType, resultMap, resultType, resultSetType,
+      flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+      keyColumn, databaseId, lang, resultSets, null);
+  }
+
   /**
    * Backward compatibility signature 'addMappedStatement'.
    *
@@ -372,7 +498,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
       id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
       parameterMap, parameterType, resultMap, resultType, resultSetType,
       flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
-      keyColumn, databaseId, lang, null);
+      keyColumn, databaseId, lang, null, null);
   }
 
   private <T> T valueOrDefault(T value, T defaultValue) {
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.function.Function;
 
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
@@ -52,6 +53,21 @@ public class SqlSourceBuilder extends BaseBuilder {
     return new StaticSqlSource(configuration, sql, handler.getParameterMappings());
   }
 
+  /**
+   * Returns a function that builds the parameter mapping of a placeholder content, the same way {@link #parse} does
+   * for each {@code #{...}} it finds. This is used by callers that have already located the placeholders.
+   *
+   * @param parameterType
+   *          the parameter type
+   * @param additionalParameters
+   *          the additional parameters
+   * @return the parameter mapping builder
+   * @since 3.5.6
+   */
+  public Function<String, ParameterMapping> parameterMappingBuilder(Class<?> parameterType, Map<String, Object> additionalParameters) {
+    return new ParameterMappingTokenHandler(configuration, parameterType, additionalParameters)::buildParameterMapping;
+  }
+
   public static String removeExtraWhitespaces(String original) {
     StringTokenizer tokenizer = new StringTokenizer(original);
     StringBuilder builder = new StringBuilder();
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -187,9 +188,13 @@ public class MapperAnnotationBuilder {
     if (cacheDomain != null) {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
+      Long timeToLive = cacheDomain.timeToLive() == 0 ? null : cacheDomain.timeToLive();
+      Long timeToLiveJitter = cacheDomain.timeToLiveJitter() == 0 ? null : cacheDomain.timeToLiveJitter();
+      Long staleWhileRevalidate = cacheDomain.staleWhileRevalidate() == 0 ? null : cacheDomain.staleWhileRevalidate();
+      Long maxWeight = cacheDomain.maxWeight() == 0 ? null : cacheDomain.maxWeight();
       Properties props = convertToProperties(cacheDomain.properties());
       // 构建缓存
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, timeToLive, timeToLiveJitter, staleWhileRevalidate, size, maxWeight, cacheDomain.weigher(), cacheDomain.readWrite(), cacheDomain.blocking(), cacheDomain.codec(), props);
     }
   }
 
@@ -380,7 +385,8 @@ public class MapperAnnotationBuilder {
           statementAnnotation.getDatabaseId(),
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null ? nullOrEmpty(options.tables()) : null);
     });
   }
 
@@ -412,6 +418,16 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if (CompletableFuture.class.equals(returnType)) {
+      // the statement result is the value of the future
+      resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+          ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      if (resolvedReturnType instanceof ParameterizedType) {
+        returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+      } else {
+        returnType = resolvedReturnType instanceof Class ? (Class<?>) resolvedReturnType : Object.class;
+      }
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
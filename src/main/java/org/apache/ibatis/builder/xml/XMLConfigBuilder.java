@@ -23,6 +23,8 @@ import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationTransport;
+import org.apache.ibatis.cache.metrics.CacheMetricsReporter;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
@@ -41,6 +43,7 @@ import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.CacheInvalidationScope;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -284,6 +287,21 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
     configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
+    configuration.setCompiledRowMappersEnabled(booleanValueOf(props.getProperty("compiledRowMappersEnabled"), false));
+    configuration.setMappingPlanCacheSize(integerValueOf(props.getProperty("mappingPlanCacheSize"), 1024));
+    configuration.setCompactRowMapsEnabled(booleanValueOf(props.getProperty("compactRowMapsEnabled"), false));
+    configuration.setMaxBatchSize(integerValueOf(props.getProperty("maxBatchSize"), null));
+    configuration.setMaxTotalBatchSize(integerValueOf(props.getProperty("maxTotalBatchSize"), null));
+    configuration.setParallelNestedQueriesEnabled(booleanValueOf(props.getProperty("parallelNestedQueriesEnabled"), false));
+    configuration.setMaxParallelNestedQueries(integerValueOf(props.getProperty("maxParallelNestedQueries"), 4));
+    configuration.setCacheInvalidationScope(CacheInvalidationScope.valueOf(props.getProperty("cacheInvalidationScope", "NAMESPACE")));
+    configuration.setCacheSingleFlightEnabled(booleanValueOf(props.getProperty("cacheSingleFlightEnabled"), false));
+    configuration.setCacheSingleFlightTimeout(integerValueOf(props.getProperty("cacheSingleFlightTimeout"), 10000));
+    configuration.setLocalCacheSize(integerValueOf(props.getProperty("localCacheSize"), null));
+    configuration.setLocalCacheMaxRows(integerValueOf(props.getProperty("localCacheMaxRows"), null));
+    configuration.setCacheMetricsEnabled(booleanValueOf(props.getProperty("cacheMetricsEnabled"), false));
+    configuration.setCacheMetricsReporter((CacheMetricsReporter) createInstance(props.getProperty("cacheMetricsReporter")));
+    configuration.setCacheInvalidationTransport((CacheInvalidationTransport) createInstance(props.getProperty("cacheInvalidationTransport")));
   }
 
   private void environmentsElement(XNode context) throws Exception {
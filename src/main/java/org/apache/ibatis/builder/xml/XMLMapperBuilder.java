@@ -34,6 +34,8 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.weigher.CacheWeigher;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
@@ -243,16 +245,25 @@ public class XMLMapperBuilder extends BaseBuilder {
       Class<? extends Cache> evictionClass = typeAliasRegistry.resolveAlias(eviction);
       // 刷新时间
       Long flushInterval = context.getLongAttribute("flushInterval");
+      // 每个条目的存活时间、随机抖动和过期后仍可返回旧值的时间
+      Long timeToLive = context.getLongAttribute("timeToLive");
+      Long timeToLiveJitter = context.getLongAttribute("timeToLiveJitter");
+      Long staleWhileRevalidate = context.getLongAttribute("staleWhileRevalidate");
       // 缓存大小
       Integer size = context.getIntAttribute("size");
+      // 缓存的最大权重，以及计算每个条目权重的方式
+      Long maxWeight = context.getLongAttribute("maxWeight");
+      Class<? extends CacheWeigher> weigherClass = resolveClass(context.getStringAttribute("weigher"));
       // 是否只读，默认是 false，即
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
       // 是否阻塞，为了解决缓存击穿问题（同一时刻出现大量的访问同一个数据的请求）
       boolean blocking = context.getBooleanAttribute("blocking", false);
+      // 复制缓存对象的编解码器
+      Class<? extends CacheCodec> codecClass = resolveClass(context.getStringAttribute("codec"));
       // 其他属性
       Properties props = context.getChildrenAsProperties();
       // 构建缓存
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, timeToLive, timeToLiveJitter, staleWhileRevalidate, size, maxWeight, weigherClass, readWrite, blocking, codecClass, props);
     }
   }
 
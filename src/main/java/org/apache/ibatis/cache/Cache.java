@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 
 /**
@@ -83,6 +86,68 @@ public interface Cache {
    */
   void clear();
 
+  /**
+   * Optional. Puts several entries at once, e.g. when a transaction commits.
+   * <p>
+   * Each entry is handled as by {@link #putObject(Object, Object)}, including the {@code null} values that release the
+   * locks of a blocking cache. Caches that pay a round trip or a lock acquisition per call should override this method.
+   *
+   * @param entries
+   *          the entries to put
+   * @since 3.5.6
+   */
+  default void putAll(Map<?, ?> entries) {
+    for (Map.Entry<?, ?> entry : entries.entrySet()) {
+      putObject(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Optional. Gets several entries at once.
+   *
+   * @param keys
+   *          the keys to look up
+   * @return the entries found, keyed by their key; the keys that are not cached are absent
+   * @since 3.5.6
+   */
+  default Map<Object, Object> getAll(Collection<?> keys) {
+    Map<Object, Object> entries = new HashMap<>();
+    for (Object key : keys) {
+      Object value = getObject(key);
+      if (value != null) {
+        entries.put(key, value);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Optional. Removes several entries at once. Like {@link #removeObject(Object)}, it is called during a rollback for
+   * the keys that were missing in the cache.
+   * <p>
+   * Each key is removed even if the removal of another one fails, so that no lock of a blocking cache is left behind;
+   * the first failure is thrown once all the keys have been handled.
+   *
+   * @param keys
+   *          the keys to remove
+   * @since 3.5.6
+   */
+  default void removeAll(Collection<?> keys) {
+    RuntimeException failure = null;
+    for (Object key : keys) {
+      try {
+        removeObject(key);
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   /**
    * Optional. This method is not called by the core.
    *
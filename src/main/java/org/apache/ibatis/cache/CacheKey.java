@@ -16,8 +16,7 @@
 package org.apache.ibatis.cache;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
@@ -27,7 +26,7 @@ import org.apache.ibatis.reflection.ArrayUtil;
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = 1146682552656046211L;
 
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
@@ -36,49 +35,83 @@ public class CacheKey implements Cloneable, Serializable {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
 
+    @Override
+    public void update(int value) {
+      throw new CacheException("Not allowed to update a null cache key instance.");
+    }
+
     @Override
     public void updateAll(Object[] objects) {
       throw new CacheException("Not allowed to update a null cache key instance.");
     }
   };
 
-  private static final int DEFAULT_MULTIPLIER = 37;
-  private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+  private static final Object[] EMPTY_UPDATES = new Object[0];
+
+  /**
+   * Marks the components that were added with {@link #update(int)}; their values are held in {@code intUpdates}.
+   */
+  private enum IntComponent {
+    INSTANCE
+  }
 
-  private final int multiplier;
-  private int hashcode;
-  private long checksum;
+  private long hash;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
   // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] updateList;
+  private int[] intUpdates;
 
   public CacheKey() {
-    this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty cache key with room for the given number of components.
+   *
+   * @param expectedUpdateCount
+   *          the number of components that are expected to be added
+   * @since 3.5.6
+   */
+  public CacheKey(int expectedUpdateCount) {
+    this.hash = HASH_SEED;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.updateList = expectedUpdateCount > 0 ? new Object[expectedUpdateCount] : EMPTY_UPDATES;
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
-
-    count++;
-    checksum += baseHashCode;
-    baseHashCode *= count;
-
-    hashcode = multiplier * hashcode + baseHashCode;
+    mix(object == null ? 1 : ArrayUtil.hashCode(object));
+    ensureCapacity();
+    updateList[count++] = object;
+  }
 
-    updateList.add(object);
+  /**
+   * Adds an int component without boxing it. The component is equal to an {@link Integer} of the same value added with
+   * {@link #update(Object)}.
+   *
+   * @param value
+   *          the value
+   * @since 3.5.6
+   */
+  public void update(int value) {
+    mix(value);
+    ensureCapacity();
+    if (intUpdates == null) {
+      intUpdates = new int[updateList.length];
+    }
+    intUpdates[count] = value;
+    updateList[count++] = IntComponent.INSTANCE;
   }
 
   public void updateAll(Object[] objects) {
@@ -87,6 +120,28 @@ public class CacheKey implements Cloneable, Serializable {
     }
   }
 
+  private void mix(int componentHash) {
+    // a 64-bit multiply-xorshift mix of the position and the component hash, so that equal hashes are very unlikely for
+    // different keys and equals rarely has to compare the components
+    long h = (hash ^ componentHash) * HASH_SEED + count;
+    hash = h ^ (h >>> 29);
+  }
+
+  private void ensureCapacity() {
+    if (count == updateList.length) {
+      final int capacity = Math.max(DEFAULT_CAPACITY, count * 2);
+      updateList = Arrays.copyOf(updateList, capacity);
+      if (intUpdates != null) {
+        intUpdates = Arrays.copyOf(intUpdates, capacity);
+      }
+    }
+  }
+
+  private Object getComponent(int index) {
+    final Object component = updateList[index];
+    return component == IntComponent.INSTANCE ? Integer.valueOf(intUpdates[index]) : component;
+  }
+
   @Override
   public boolean equals(Object object) {
     if (this == object) {
@@ -98,20 +153,21 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
-    if (hashcode != cacheKey.hashcode) {
-      return false;
-    }
-    if (checksum != cacheKey.checksum) {
+    if (hash != cacheKey.hash) {
       return false;
     }
     if (count != cacheKey.count) {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    for (int i = 0; i < count; i++) {
+      Object thisObject = updateList[i];
+      Object thatObject = cacheKey.updateList[i];
+      if (thisObject == IntComponent.INSTANCE && thatObject == IntComponent.INSTANCE) {
+        if (intUpdates[i] != cacheKey.intUpdates[i]) {
+          return false;
+        }
+      } else if (!ArrayUtil.equals(getComponent(i), cacheKey.getComponent(i))) {
         return false;
       }
     }
@@ -120,22 +176,27 @@ public class CacheKey implements Cloneable, Serializable {
 
   @Override
   public int hashCode() {
-    return hashcode;
+    return (int) (hash ^ (hash >>> 32));
   }
 
   @Override
   public String toString() {
     StringJoiner returnValue = new StringJoiner(":");
-    returnValue.add(String.valueOf(hashcode));
-    returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    returnValue.add(String.valueOf(hashCode()));
+    returnValue.add(String.valueOf(hash));
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(getComponent(i)));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    clonedCacheKey.updateList = updateList.clone();
+    if (intUpdates != null) {
+      clonedCacheKey.intUpdates = intUpdates.clone();
+    }
     return clonedCacheKey;
   }
 
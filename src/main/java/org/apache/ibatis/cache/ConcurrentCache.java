@@ -0,0 +1,30 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Interface that indicates a cache decorator can be called by several threads at once, as long as its delegate can.
+ * <p>
+ * When every eviction decorator of a namespace cache implements this interface, the default
+ * {@link org.apache.ibatis.cache.impl.PerpetualCache} is backed by a concurrent map and the cache is not wrapped in a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ * </p>
+ *
+ * @since 3.5.6
+ */
+public interface ConcurrentCache extends Cache {
+
+}
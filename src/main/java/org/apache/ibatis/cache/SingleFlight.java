@@ -0,0 +1,225 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Coalesces the concurrent loads of the same 2nd level cache entry across sessions.
+ * <p>
+ * The first session that misses on a key loads the value, and the sessions that miss on the same key while it is
+ * loading wait for it and receive a copy of its result, made with the codec the cache copies its objects with, or the
+ * result itself when the cache does not copy them. A waiter loads the value by itself when the wait times out, when the
+ * first load fails or when its result cannot be encoded, so a session never fails because of another one. A session that is itself loading a value, and misses on another key while doing so, loads
+ * that key directly instead of waiting, so two sessions whose loads depend on each other never wait for each other.
+ * <p>
+ * Unlike the {@link org.apache.ibatis.cache.decorators.BlockingCache}, the value is handed over as soon as it is
+ * loaded, without waiting for the loading session to commit.
+ *
+ * @since 3.5.6
+ */
+public class SingleFlight {
+
+  private static final Log log = LogFactory.getLog(SingleFlight.class);
+
+  /**
+   * The codec the results are copied with when none is given.
+   */
+  public static final CacheCodec DEFAULT_CODEC = new JavaSerializationCodec();
+
+  private final ConcurrentHashMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+  /**
+   * The number of flights led by the current thread.
+   */
+  private final ThreadLocal<int[]> leading = new ThreadLocal<>();
+
+  /**
+   * Loads a value, or waits for the load of the same key that is in progress in another session and receives a copy
+   * of it made with the {@link #DEFAULT_CODEC}.
+   *
+   * @param <T>
+   *          the value type
+   * @param key
+   *          the cache key
+   * @param timeout
+   *          the maximum time in milliseconds to wait for another session, {@code 0} to wait until it is done
+   * @param loader
+   *          the loader of the value
+   * @return the loaded value
+   * @throws SQLException
+   *           if the loader fails
+   */
+  public <T> T load(Object key, long timeout, Loader<T> loader) throws SQLException {
+    return load(key, timeout, DEFAULT_CODEC, loader);
+  }
+
+  /**
+   * Loads a value, or waits for the load of the same key that is in progress in another session and receives a copy
+   * of it.
+   *
+   * @param <T>
+   *          the value type
+   * @param key
+   *          the cache key
+   * @param timeout
+   *          the maximum time in milliseconds to wait for another session, {@code 0} to wait until it is done
+   * @param codec
+   *          the codec the value is copied with, {@code null} to hand over the value itself
+   * @param loader
+   *          the loader of the value
+   * @return the loaded value
+   * @throws SQLException
+   *           if the loader fails
+   */
+  public <T> T load(Object key, long timeout, CacheCodec codec, Loader<T> loader) throws SQLException {
+    while (true) {
+      final Flight flight = new Flight(codec);
+      final Flight current = flights.putIfAbsent(key, flight);
+      if (current == null) {
+        return lead(key, flight, loader);
+      }
+      if (leading.get() != null) {
+        // the leader of this flight may be waiting for the one of the current thread
+        return loader.load();
+      }
+      if (current.join()) {
+        final T value = current.await(key, timeout);
+        return value != null ? value : loader.load();
+      }
+      // the flight has just landed, try again
+    }
+  }
+
+  /**
+   * Returns the number of loads in progress.
+   *
+   * @return the number of loads in progress
+   */
+  public int getSize() {
+    return flights.size();
+  }
+
+  private <T> T lead(Object key, Flight flight, Loader<T> loader) throws SQLException {
+    int[] count = leading.get();
+    if (count == null) {
+      count = new int[1];
+      leading.set(count);
+    }
+    count[0]++;
+    T value = null;
+    try {
+      value = loader.load();
+      return value;
+    } finally {
+      if (--count[0] == 0) {
+        leading.remove();
+      }
+      flights.remove(key, flight);
+      flight.land(value);
+    }
+  }
+
+  /**
+   * Loads a value.
+   *
+   * @param <T>
+   *          the value type
+   */
+  @FunctionalInterface
+  public interface Loader<T> {
+    T load() throws SQLException;
+  }
+
+  private static final class Flight {
+
+    private final CountDownLatch landed = new CountDownLatch(1);
+    private final CacheCodec codec;
+    private int waiters;
+    private boolean closed;
+    /**
+     * The value itself without a codec, its encoded copy otherwise.
+     */
+    private volatile Object result;
+
+    Flight(CacheCodec codec) {
+      this.codec = codec;
+    }
+
+    synchronized boolean join() {
+      if (closed) {
+        return false;
+      }
+      waiters++;
+      return true;
+    }
+
+    void land(Object value) {
+      final boolean waited;
+      synchronized (this) {
+        closed = true;
+        waited = waiters > 0;
+      }
+      try {
+        // the value is only copied when someone waits for it
+        if (waited && value != null) {
+          result = codec == null ? value : encode(value);
+        }
+      } finally {
+        landed.countDown();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T await(Object key, long timeout) {
+      try {
+        if (timeout > 0) {
+          if (!landed.await(timeout, TimeUnit.MILLISECONDS)) {
+            if (log.isDebugEnabled()) {
+              log.debug("Timed out waiting " + timeout + " ms for the load of the key " + key + ", loading it");
+            }
+            return null;
+          }
+        } else {
+          landed.await();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CacheException("Got interrupted while waiting for the load of the key " + key, e);
+      }
+      final Object value = result;
+      return value == null || codec == null ? (T) value : (T) codec.decode((byte[]) value);
+    }
+
+    private byte[] encode(Object value) {
+      try {
+        return codec.encode(value);
+      } catch (CacheException e) {
+        // e.g. not all the elements are serializable, the waiters load the value by themselves
+        return null;
+      }
+    }
+  }
+
+}
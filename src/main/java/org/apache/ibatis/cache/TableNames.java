@@ -0,0 +1,254 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives the tables a SQL statement reads or writes.
+ * <p>
+ * This is a lexical scan, not a SQL parser, and comments and literals are skipped. The tables read by a statement are
+ * over-approximated by all its identifiers that are not common keywords, which may include columns and aliases.
+ * The tables written are the targets of the {@code INSERT}, {@code UPDATE}, {@code DELETE}, {@code MERGE},
+ * {@code TRUNCATE}... statements. When they cannot be derived, e.g. for stored procedures, {@code null} is returned so
+ * the caller can fall back to invalidating everything. Views and triggers are not seen through, the tables they depend
+ * on have to be declared with the {@code tables} attribute of the statements.
+ *
+ * @since 3.5.6
+ */
+public final class TableNames {
+
+  private static final int MAX_CACHED_STATEMENTS = 1024;
+  private static final String[] UNKNOWN = new String[0];
+
+  private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+      "SELECT", "DISTINCT", "ALL", "AS", "FROM", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", "NATURAL",
+      "LATERAL", "ON", "USING", "WHERE", "AND", "OR", "NOT", "IN", "EXISTS", "BETWEEN", "LIKE", "IS", "NULL", "TRUE",
+      "FALSE", "CASE", "WHEN", "THEN", "ELSE", "END", "GROUP", "BY", "HAVING", "ORDER", "ASC", "DESC", "NULLS", "FIRST",
+      "LAST", "LIMIT", "OFFSET", "FETCH", "NEXT", "ROWS", "ROW", "ONLY", "UNION", "EXCEPT", "INTERSECT", "MINUS", "WITH",
+      "RECURSIVE", "FOR", "UPDATE", "OF", "COUNT", "SUM", "MIN", "MAX", "AVG", "COALESCE", "CAST", "OVER", "PARTITION"));
+
+  private static final Map<String, String[]> readTables = new ConcurrentHashMap<>();
+  private static final Map<String, String[]> writtenTables = new ConcurrentHashMap<>();
+
+  private TableNames() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Returns the tables read by a statement.
+   *
+   * @param sql
+   *          the SQL statement
+   * @return the normalized table names, or {@code null} if they cannot be derived
+   */
+  public static String[] read(String sql) {
+    return lookup(readTables, sql, false);
+  }
+
+  /**
+   * Returns the tables written by a statement: the targets of {@code INSERT INTO}, {@code UPDATE},
+   * {@code DELETE FROM}, {@code MERGE INTO}, {@code TRUNCATE TABLE}...
+   *
+   * @param sql
+   *          the SQL statement
+   * @return the normalized table names, or {@code null} if they cannot be derived
+   */
+  public static String[] written(String sql) {
+    return lookup(writtenTables, sql, true);
+  }
+
+  /**
+   * Parses a comma separated list of table names, as declared with the {@code tables} attribute of a statement.
+   *
+   * @param tables
+   *          the declared table names
+   * @return the normalized table names, or {@code null} if none were declared
+   */
+  public static String[] parse(String tables) {
+    if (tables == null || tables.trim().isEmpty()) {
+      return null;
+    }
+    final Set<String> names = new LinkedHashSet<>();
+    for (String table : tables.split(",")) {
+      if (!table.trim().isEmpty()) {
+        names.add(normalize(table.trim()));
+      }
+    }
+    return names.toArray(new String[0]);
+  }
+
+  private static String[] lookup(Map<String, String[]> cache, String sql, boolean written) {
+    String[] tables = cache.get(sql);
+    if (tables == null) {
+      tables = scan(sql, written);
+      if (cache.size() < MAX_CACHED_STATEMENTS) {
+        cache.put(sql, tables);
+      }
+    }
+    return tables == UNKNOWN ? null : tables;
+  }
+
+  private static String[] scan(String sql, boolean written) {
+    final Lexer lexer = new Lexer(sql);
+    final Set<String> tables = new LinkedHashSet<>();
+    String previous = null;
+    boolean updateTargets = false;
+    for (String token = lexer.next(); token != null; token = lexer.next()) {
+      final String keyword = token.toUpperCase(Locale.ENGLISH);
+      if (previous == null && ("CALL".equals(keyword) || "EXEC".equals(keyword) || "EXECUTE".equals(keyword) || "{".equals(keyword))) {
+        return UNKNOWN;
+      }
+      if (!written) {
+        // any identifier may be a table, so a superset of the tables read is collected
+        if (isIdentifier(token) && !KEYWORDS.contains(keyword)) {
+          tables.add(normalize(token));
+        }
+      } else if (isTarget(keyword, previous, updateTargets)) {
+        updateTargets |= "UPDATE".equals(keyword);
+        final String table = lexer.next();
+        if (table == null || !isIdentifier(table)) {
+          return UNKNOWN;
+        }
+        tables.add(normalize(table));
+      } else if ("SET".equals(keyword)) {
+        updateTargets = false;
+      }
+      if (";".equals(token)) {
+        previous = null;
+        updateTargets = false;
+      } else {
+        previous = keyword;
+      }
+    }
+    return tables.isEmpty() ? UNKNOWN : tables.toArray(new String[0]);
+  }
+
+  private static boolean isTarget(String keyword, String previous, boolean updateTargets) {
+    return ("INTO".equals(keyword) && ("INSERT".equals(previous) || "MERGE".equals(previous) || "REPLACE".equals(previous)))
+        || ("UPDATE".equals(keyword) && previous == null)
+        || ("FROM".equals(keyword) && "DELETE".equals(previous))
+        || ("TABLE".equals(keyword) && ("TRUNCATE".equals(previous) || "ALTER".equals(previous) || "DROP".equals(previous)))
+        // multiple table updates: UPDATE a, b SET ... or UPDATE a JOIN b ON ... SET ...
+        || (updateTargets && ("JOIN".equals(keyword) || ",".equals(keyword)));
+  }
+
+  private static boolean isIdentifier(String token) {
+    final char first = token.charAt(0);
+    return Character.isLetter(first) || first == '_' || first == '"' || first == '`' || first == '[';
+  }
+
+  private static String normalize(String table) {
+    final StringBuilder name = new StringBuilder();
+    final int start = table.lastIndexOf('.') + 1;
+    for (int i = start; i < table.length(); i++) {
+      final char c = table.charAt(i);
+      if (c != '"' && c != '`' && c != '[' && c != ']') {
+        name.append(c);
+      }
+    }
+    return name.toString().toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Splits a statement in identifiers (including qualified and quoted ones) and single character symbols,
+   * skipping white spaces, comments and literals.
+   */
+  private static final class Lexer {
+    private final String sql;
+    private int position;
+
+    Lexer(String sql) {
+      this.sql = sql;
+    }
+
+    String next() {
+      skipIgnored();
+      if (position >= sql.length()) {
+        return null;
+      }
+      final int start = position;
+      final char c = sql.charAt(position);
+      if (Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[') {
+        readIdentifier();
+        while (position < sql.length() && sql.charAt(position) == '.') {
+          position++;
+          readIdentifier();
+        }
+      } else if (Character.isDigit(c)) {
+        while (position < sql.length() && (Character.isLetterOrDigit(sql.charAt(position)) || sql.charAt(position) == '.')) {
+          position++;
+        }
+      } else {
+        position++;
+      }
+      return sql.substring(start, position);
+    }
+
+    private void readIdentifier() {
+      if (position >= sql.length()) {
+        return;
+      }
+      final char c = sql.charAt(position);
+      if (c == '"' || c == '`' || c == '[') {
+        final int end = sql.indexOf(c == '[' ? ']' : c, position + 1);
+        position = end < 0 ? sql.length() : end + 1;
+      } else {
+        while (position < sql.length() && (Character.isLetterOrDigit(sql.charAt(position)) || sql.charAt(position) == '_'
+            || sql.charAt(position) == '$' || sql.charAt(position) == '#')) {
+          position++;
+        }
+      }
+    }
+
+    private void skipIgnored() {
+      while (position < sql.length()) {
+        final char c = sql.charAt(position);
+        if (Character.isWhitespace(c)) {
+          position++;
+        } else if (c == '-' && sql.startsWith("--", position)) {
+          final int end = sql.indexOf('\n', position);
+          position = end < 0 ? sql.length() : end + 1;
+        } else if (c == '/' && sql.startsWith("/*", position)) {
+          final int end = sql.indexOf("*/", position + 2);
+          position = end < 0 ? sql.length() : end + 2;
+        } else if (c == '\'') {
+          int end = position + 1;
+          while (end < sql.length()) {
+            if (sql.charAt(end) == '\'') {
+              if (end + 1 < sql.length() && sql.charAt(end + 1) == '\'') {
+                end += 2;
+                continue;
+              }
+              break;
+            }
+            end++;
+          }
+          position = end + 1;
+        } else {
+          return;
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a version number per table, incremented each time a committed statement writes to the table.
+ * <p>
+ * When the cache invalidation scope is {@link org.apache.ibatis.session.CacheInvalidationScope#TABLE}, the entries of
+ * the 2nd level caches are stored along with the versions of the tables they were read from, and are ignored once one of
+ * these versions changes. Writing to a table therefore invalidates the entries of all the caches that depend on it,
+ * and only them.
+ *
+ * @since 3.5.6
+ * @see TableNames
+ */
+public class TableVersions {
+
+  /**
+   * Version of the entries whose tables are not known, incremented by every invalidation.
+   */
+  private final AtomicLong anyTable = new AtomicLong();
+  private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  /**
+   * Invalidates the entries that were read from any of the given tables.
+   *
+   * @param tables
+   *          the normalized names of the tables written to
+   */
+  public void invalidate(String[] tables) {
+    for (String table : tables) {
+      versions.computeIfAbsent(table, k -> new AtomicLong()).incrementAndGet();
+    }
+    anyTable.incrementAndGet();
+  }
+
+  /**
+   * Wraps a value with the current versions of the tables it was read from.
+   *
+   * @param value
+   *          the value to cache
+   * @param tables
+   *          the normalized names of the tables the value was read from, or {@code null} if they are not known
+   * @return the entry to put in the cache
+   */
+  public Entry newEntry(Object value, String[] tables) {
+    return newEntry(value, tables, getVersions(tables));
+  }
+
+  /**
+   * Wraps a value with the versions the tables it was read from had before it was read, so the entry is stale if one of
+   * them was written to in the meantime.
+   *
+   * @param value
+   *          the value to cache
+   * @param tables
+   *          the normalized names of the tables the value was read from, or {@code null} if they are not known
+   * @param versions
+   *          the versions returned by {@link #getVersions(String[])} for these tables before the value was read
+   * @return the entry to put in the cache
+   */
+  public Entry newEntry(Object value, String[] tables, long[] versions) {
+    return new Entry(value, tables, versions);
+  }
+
+  /**
+   * Returns the current versions of the given tables.
+   *
+   * @param tables
+   *          the normalized names of the tables, or {@code null} if they are not known
+   * @return the versions of the tables, to be passed to {@link #newEntry(Object, String[], long[])}
+   */
+  public long[] getVersions(String[] tables) {
+    if (tables == null) {
+      return new long[] { anyTable.get() };
+    }
+    final long[] tableVersions = new long[tables.length];
+    for (int i = 0; i < tables.length; i++) {
+      tableVersions[i] = version(tables[i]);
+    }
+    return tableVersions;
+  }
+
+  /**
+   * Returns the value of an entry, or {@code null} if one of its tables has been written to since it was created.
+   *
+   * @param entry
+   *          the cache entry
+   * @return the cached value, or {@code null} if it is stale
+   */
+  public Object getValue(Entry entry) {
+    if (entry.tables == null) {
+      return entry.versions[0] == anyTable.get() ? entry.value : null;
+    }
+    for (int i = 0; i < entry.tables.length; i++) {
+      if (entry.versions[i] != version(entry.tables[i])) {
+        return null;
+      }
+    }
+    return entry.value;
+  }
+
+  private long version(String table) {
+    final AtomicLong version = versions.get(table);
+    return version == null ? 0 : version.get();
+  }
+
+  /**
+   * A cached value along with the versions of the tables it was read from.
+   */
+  public static final class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final String[] tables;
+    private final long[] versions;
+
+    private Entry(Object value, String[] tables, long[] versions) {
+      this.value = value;
+      this.tables = tables;
+      this.versions = versions;
+    }
+
+    /**
+     * Returns the cached value, whether it is stale or not.
+     *
+     * @return the cached value
+     */
+    public Object getValue() {
+      return value;
+    }
+  }
+
+}
@@ -15,10 +15,14 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 
 /**
  * @author Clinton Begin
@@ -26,21 +30,127 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final TableVersions tableVersions;
+  private final Set<String> tablesToInvalidateOnCommit = new LinkedHashSet<>();
+  private final CacheInvalidationBus invalidationBus;
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  /**
+   * Creates a manager that invalidates the cache entries per table.
+   *
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache is invalidated on writes
+   * @since 3.5.6
+   */
+  public TransactionalCacheManager(TableVersions tableVersions) {
+    this(tableVersions, null);
+  }
+
+  /**
+   * Creates a manager that broadcasts the committed invalidations to the other nodes.
+   *
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache is invalidated on writes
+   * @param invalidationBus
+   *          the bus the invalidations are published to on commit, or {@code null} if there is no other node
+   * @since 3.5.6
+   */
+  public TransactionalCacheManager(TableVersions tableVersions, CacheInvalidationBus invalidationBus) {
+    this.tableVersions = tableVersions;
+    this.invalidationBus = invalidationBus;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
   }
 
+  /**
+   * Invalidates on commit the entries of all the caches that were read from the given tables.
+   *
+   * @param tables
+   *          the tables written to
+   * @since 3.5.6
+   */
+  public void invalidate(String[] tables) {
+    Collections.addAll(tablesToInvalidateOnCommit, tables);
+    for (TransactionalCache txCache : transactionalCaches.values()) {
+      txCache.invalidate(tables);
+    }
+  }
+
   public Object getObject(Cache cache, CacheKey key) {
     return getTransactionalCache(cache).getObject(key);
   }
 
+  /**
+   * Gets an entry read from the given tables.
+   *
+   * @param cache
+   *          the 2nd level cache
+   * @param key
+   *          the key
+   * @param tables
+   *          the tables the entry was read from, or {@code null} if they are not known
+   * @return the cached value, or {@code null} if it is not cached or has been invalidated in this transaction
+   * @since 3.5.6
+   */
+  public Object getObject(Cache cache, CacheKey key, String[] tables) {
+    return getTransactionalCache(cache).getObject(key, tables);
+  }
+
   public void putObject(Cache cache, CacheKey key, Object value) {
     // 获取 cache 对应的 TransactionalCache，然后把 key 和 value 存入
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  /**
+   * Puts an entry read from the given tables.
+   *
+   * @param cache
+   *          the 2nd level cache
+   * @param key
+   *          the key
+   * @param value
+   *          the value
+   * @param tables
+   *          the tables the value was read from, or {@code null} if they are not known
+   * @since 3.5.6
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, String[] tables) {
+    getTransactionalCache(cache).putObject(key, value, tables);
+  }
+
+  /**
+   * Puts an entry read from the given tables, along with the versions they had before it was read.
+   *
+   * @param cache
+   *          the 2nd level cache
+   * @param key
+   *          the key
+   * @param value
+   *          the value
+   * @param tables
+   *          the tables the value was read from, or {@code null} if they are not known
+   * @param versions
+   *          the versions of the tables before the value was read
+   * @since 3.5.6
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, String[] tables, long[] versions) {
+    getTransactionalCache(cache).putObject(key, value, tables, versions);
+  }
+
   public void commit() {
+    if (!tablesToInvalidateOnCommit.isEmpty()) {
+      final String[] tables = tablesToInvalidateOnCommit.toArray(new String[0]);
+      tableVersions.invalidate(tables);
+      tablesToInvalidateOnCommit.clear();
+      if (invalidationBus != null) {
+        invalidationBus.publishTables(tables);
+      }
+    }
     // 遍历事务缓存
     for (TransactionalCache txCache : transactionalCaches.values()) {
       // 提交事务
@@ -49,6 +159,7 @@ public class TransactionalCacheManager {
   }
 
   public void rollback() {
+    tablesToInvalidateOnCommit.clear();
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.rollback();
     }
@@ -57,7 +168,15 @@ public class TransactionalCacheManager {
   private TransactionalCache getTransactionalCache(Cache cache) {
     // 如果 transactionalCaches 中的 cache 键没有对应的数据，则创建 TransactionalCache 对象
     // 把 cache 对象当做 TransactionalCache 构造器的参数传入
-    return transactionalCaches.computeIfAbsent(cache, TransactionalCache::new);
+    return transactionalCaches.computeIfAbsent(cache, this::newTransactionalCache);
+  }
+
+  private TransactionalCache newTransactionalCache(Cache cache) {
+    final TransactionalCache txCache = new TransactionalCache(cache, tableVersions, invalidationBus);
+    if (!tablesToInvalidateOnCommit.isEmpty()) {
+      txCache.invalidate(tablesToInvalidateOnCommit.toArray(new String[0]));
+    }
+    return txCache;
   }
 
 }
@@ -0,0 +1,51 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+/**
+ * Turns the cached objects into bytes and back, e.g. to hand a copy of the cached objects to each caller.
+ * <p>
+ * Implementations must be thread safe and have a public no-arg constructor.
+ *
+ * @since 3.5.6
+ * @see JavaSerializationCodec
+ * @see CompactCodec
+ */
+public interface CacheCodec {
+
+  /**
+   * Encodes an object.
+   *
+   * @param value
+   *          the object to encode, may be {@code null}
+   * @return the encoded object
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the object cannot be encoded
+   */
+  byte[] encode(Object value);
+
+  /**
+   * Decodes an object.
+   *
+   * @param bytes
+   *          the bytes returned by {@link #encode(Object)}
+   * @return a new copy of the encoded object
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the object cannot be decoded
+   */
+  Object decode(byte[] bytes);
+
+}
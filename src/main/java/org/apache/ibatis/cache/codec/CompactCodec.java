@@ -0,0 +1,642 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Encodes the usual result objects in a compact binary format, much faster to write and read than the Java
+ * serialization.
+ * <p>
+ * Supported are {@code null}, strings, the primitive wrappers, {@link BigDecimal}, {@link BigInteger}, the
+ * {@code java.util} and {@code java.sql} dates, the {@code java.time} local dates and times, {@link Instant}, byte
+ * arrays, enums, the usual lists, sets and maps of {@code java.util}, and the serializable beans that have a no-arg
+ * constructor and no custom serialization methods. The fields of the beans are copied like the Java serialization
+ * does, and shared references and cycles are preserved. An object graph containing any other type, e.g. a lazy
+ * loading proxy, is entirely encoded with the Java serialization instead.
+ * <p>
+ * The encoding buffer of each thread is reused across calls.
+ *
+ * @since 3.5.6
+ */
+public class CompactCodec implements CacheCodec {
+
+  private static final byte FORMAT_COMPACT = 1;
+  private static final byte FORMAT_JAVA = 2;
+
+  private static final int NULL = 0;
+  private static final int REFERENCE = 1;
+  private static final int STRING = 2;
+  private static final int TRUE = 3;
+  private static final int FALSE = 4;
+  private static final int BYTE = 5;
+  private static final int SHORT = 6;
+  private static final int CHAR = 7;
+  private static final int INT = 8;
+  private static final int LONG = 9;
+  private static final int FLOAT = 10;
+  private static final int DOUBLE = 11;
+  private static final int BIG_INTEGER = 12;
+  private static final int BIG_DECIMAL = 13;
+  private static final int DATE = 14;
+  private static final int SQL_DATE = 15;
+  private static final int SQL_TIME = 16;
+  private static final int SQL_TIMESTAMP = 17;
+  private static final int LOCAL_DATE = 18;
+  private static final int LOCAL_TIME = 19;
+  private static final int LOCAL_DATE_TIME = 20;
+  private static final int INSTANT = 21;
+  private static final int BYTES = 22;
+  private static final int ENUM = 23;
+  private static final int ARRAY_LIST = 24;
+  private static final int LINKED_LIST = 25;
+  private static final int HASH_SET = 26;
+  private static final int LINKED_HASH_SET = 27;
+  private static final int TREE_SET = 28;
+  private static final int HASH_MAP = 29;
+  private static final int LINKED_HASH_MAP = 30;
+  private static final int TREE_MAP = 31;
+  private static final int BEAN = 32;
+
+  /**
+   * Buffers larger than this are not kept for the next call.
+   */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+  /**
+   * The layout of the bean types. A {@link ClassValue} lets the classes be unloaded with their class loader.
+   */
+  private static final ClassValue<BeanType> beanTypes = new ClassValue<BeanType>() {
+    @Override
+    protected BeanType computeValue(Class<?> type) {
+      return BeanType.of(type);
+    }
+  };
+  private static final BeanType UNSUPPORTED = new BeanType(null, new Field[0]);
+
+  @Override
+  public byte[] encode(Object value) {
+    Encoder encoder = encoders.get();
+    if (encoder.inUse) {
+      encoder = new Encoder();
+    }
+    encoder.inUse = true;
+    try {
+      encoder.writeByte(FORMAT_COMPACT);
+      encoder.writeObject(value);
+      return encoder.toByteArray();
+    } catch (UnsupportedTypeException e) {
+      final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      bos.write(FORMAT_JAVA);
+      return JavaSerializationCodec.serialize(value, bos);
+    } finally {
+      encoder.reset();
+    }
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    if (bytes.length > 0 && bytes[0] == FORMAT_JAVA) {
+      return JavaSerializationCodec.deserialize(new ByteArrayInputStream(bytes, 1, bytes.length - 1));
+    }
+    if (bytes.length == 0 || bytes[0] != FORMAT_COMPACT) {
+      throw new CacheException("Error deserializing object.  Cause: unknown format");
+    }
+    try {
+      return new Decoder(bytes).readObject();
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private static BeanType beanType(Class<?> type) {
+    final BeanType beanType = beanTypes.get(type);
+    return beanType == UNSUPPORTED ? null : beanType;
+  }
+
+  private static final class UnsupportedTypeException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedTypeException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static final class BeanType {
+    private final Constructor<?> constructor;
+    private final Field[] fields;
+
+    BeanType(Constructor<?> constructor, Field[] fields) {
+      this.constructor = constructor;
+      this.fields = fields;
+    }
+
+    static BeanType of(Class<?> type) {
+      if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+          || type.isArray() || type.isEnum() || Modifier.isAbstract(type.getModifiers())
+          || type.getName().startsWith("java.") || Proxy.isProxyClass(type) || !Reflector.canControlMemberAccessible()) {
+        return UNSUPPORTED;
+      }
+      try {
+        final List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+          if (declaresMethod(c, "writeReplace") || declaresMethod(c, "readResolve")) {
+            return UNSUPPORTED;
+          }
+          if (!Serializable.class.isAssignableFrom(c)) {
+            // like the Java serialization, the fields of the non serializable super classes are not copied
+            continue;
+          }
+          if (declaresMethod(c, "writeObject", ObjectOutputStream.class) || declaresMethod(c, "readObject", ObjectInputStream.class)
+              || declaresMethod(c, "readObjectNoData")) {
+            return UNSUPPORTED;
+          }
+          final List<Field> declaredFields = new ArrayList<>();
+          for (Field field : c.getDeclaredFields()) {
+            if (field.getName().equals("serialPersistentFields") && Modifier.isStatic(field.getModifiers())) {
+              return UNSUPPORTED;
+            }
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+              field.setAccessible(true);
+              declaredFields.add(field);
+            }
+          }
+          // the order of the declared fields is not specified
+          declaredFields.sort(Comparator.comparing(Field::getName));
+          fields.addAll(declaredFields);
+        }
+        final Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return new BeanType(constructor, fields.toArray(new Field[0]));
+      } catch (Exception e) {
+        return UNSUPPORTED;
+      }
+    }
+
+    private static boolean declaresMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (method.getName().equals(name) && Arrays.equals(method.getParameterTypes(), parameterTypes)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Encoder {
+    private byte[] buffer = new byte[1024];
+    private int position;
+    private boolean inUse;
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    void reset() {
+      position = 0;
+      inUse = false;
+      if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+        buffer = new byte[1024];
+      }
+      references.clear();
+      classes.clear();
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    void writeObject(Object value) {
+      if (value == null) {
+        writeByte(NULL);
+        return;
+      }
+      final Class<?> type = value.getClass();
+      if (type == String.class) {
+        writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        writeByte(INT);
+        writeVarLong(zigZag((Integer) value));
+      } else if (type == Long.class) {
+        writeByte(LONG);
+        writeVarLong(zigZag((Long) value));
+      } else if (type == Boolean.class) {
+        writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (type == Double.class) {
+        writeByte(DOUBLE);
+        writeFixedLong(Double.doubleToRawLongBits((Double) value));
+      } else if (type == BigDecimal.class) {
+        final BigDecimal decimal = (BigDecimal) value;
+        writeByte(BIG_DECIMAL);
+        writeVarLong(zigZag(decimal.scale()));
+        writeBytes(decimal.unscaledValue().toByteArray());
+      } else if (type == Timestamp.class) {
+        final Timestamp timestamp = (Timestamp) value;
+        if (writeReference(value)) {
+          writeByte(SQL_TIMESTAMP);
+          writeVarLong(zigZag(timestamp.getTime()));
+          writeVarLong(timestamp.getNanos());
+        }
+      } else if (type == Date.class || type == java.sql.Date.class || type == Time.class) {
+        if (writeReference(value)) {
+          writeByte(type == Date.class ? DATE : type == Time.class ? SQL_TIME : SQL_DATE);
+          writeVarLong(zigZag(((Date) value).getTime()));
+        }
+      } else if (type == Short.class) {
+        writeByte(SHORT);
+        writeVarLong(zigZag((Short) value));
+      } else if (type == Byte.class) {
+        writeByte(BYTE);
+        writeByte((Byte) value);
+      } else if (type == Character.class) {
+        writeByte(CHAR);
+        writeVarLong((Character) value);
+      } else if (type == Float.class) {
+        writeByte(FLOAT);
+        writeFixedLong(Float.floatToRawIntBits((Float) value));
+      } else if (type == BigInteger.class) {
+        writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == LocalDate.class) {
+        writeByte(LOCAL_DATE);
+        writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+      } else if (type == LocalTime.class) {
+        writeByte(LOCAL_TIME);
+        writeVarLong(((LocalTime) value).toNanoOfDay());
+      } else if (type == LocalDateTime.class) {
+        final LocalDateTime dateTime = (LocalDateTime) value;
+        writeByte(LOCAL_DATE_TIME);
+        writeVarLong(zigZag(dateTime.toLocalDate().toEpochDay()));
+        writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+      } else if (type == Instant.class) {
+        final Instant instant = (Instant) value;
+        writeByte(INSTANT);
+        writeVarLong(zigZag(instant.getEpochSecond()));
+        writeVarLong(instant.getNano());
+      } else if (type == byte[].class) {
+        if (writeReference(value)) {
+          writeByte(BYTES);
+          writeBytes((byte[]) value);
+        }
+      } else if (value instanceof Enum) {
+        writeByte(ENUM);
+        writeClass(((Enum<?>) value).getDeclaringClass());
+        writeString(((Enum<?>) value).name());
+      } else if (type == ArrayList.class || type == LinkedList.class || type == HashSet.class || type == LinkedHashSet.class
+          || (type == TreeSet.class && ((TreeSet<?>) value).comparator() == null)) {
+        if (writeReference(value)) {
+          writeByte(type == ArrayList.class ? ARRAY_LIST : type == LinkedList.class ? LINKED_LIST
+              : type == HashSet.class ? HASH_SET : type == LinkedHashSet.class ? LINKED_HASH_SET : TREE_SET);
+          final Collection<?> collection = (Collection<?>) value;
+          writeVarLong(collection.size());
+          for (Object element : collection) {
+            writeObject(element);
+          }
+        }
+      } else if (type == HashMap.class || type == LinkedHashMap.class
+          || (type == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null)) {
+        if (writeReference(value)) {
+          writeByte(type == HashMap.class ? HASH_MAP : type == LinkedHashMap.class ? LINKED_HASH_MAP : TREE_MAP);
+          final Map<?, ?> map = (Map<?, ?>) value;
+          writeVarLong(map.size());
+          for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeObject(entry.getKey());
+            writeObject(entry.getValue());
+          }
+        }
+      } else {
+        final BeanType beanType = beanType(type);
+        if (beanType == null) {
+          throw new UnsupportedTypeException();
+        }
+        if (writeReference(value)) {
+          writeByte(BEAN);
+          writeClass(type);
+          try {
+            for (Field field : beanType.fields) {
+              writeObject(field.get(value));
+            }
+          } catch (IllegalAccessException e) {
+            throw new UnsupportedTypeException();
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes a reference to an object already written.
+     *
+     * @return {@code true} if the object has not been written yet, and must be written by the caller
+     */
+    private boolean writeReference(Object value) {
+      final Integer index = references.putIfAbsent(value, references.size());
+      if (index == null) {
+        return true;
+      }
+      writeByte(REFERENCE);
+      writeVarLong(index);
+      return false;
+    }
+
+    private void writeClass(Class<?> type) {
+      final Integer index = classes.putIfAbsent(type, classes.size());
+      if (index == null) {
+        writeVarLong(0);
+        writeString(type.getName());
+      } else {
+        writeVarLong(index + 1L);
+      }
+    }
+
+    private void writeString(String value) {
+      final int length = value.length();
+      writeVarLong(length);
+      ensureCapacity(length);
+      for (int i = 0; i < length; i++) {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer[position++] = (byte) c;
+        } else {
+          writeVarLong(c);
+          ensureCapacity(length - i);
+        }
+      }
+    }
+
+    private void writeBytes(byte[] bytes) {
+      writeVarLong(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeFixedLong(long value) {
+      ensureCapacity(8);
+      for (int i = 0; i < 8; i++) {
+        buffer[position++] = (byte) (value >>> (i * 8));
+      }
+    }
+
+    private void ensureCapacity(int length) {
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+      }
+    }
+
+    private static long zigZag(long value) {
+      return (value << 1) ^ (value >> 63);
+    }
+  }
+
+  private static final class Decoder {
+    private final byte[] buffer;
+    private int position = 1;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    Decoder(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object readObject() throws Exception {
+      final int tag = buffer[position++];
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get((int) readVarLong());
+        case STRING:
+          return readString();
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case BYTE:
+          return buffer[position++];
+        case SHORT:
+          return (short) unZigZag(readVarLong());
+        case CHAR:
+          return (char) readVarLong();
+        case INT:
+          return (int) unZigZag(readVarLong());
+        case LONG:
+          return unZigZag(readVarLong());
+        case FLOAT:
+          return Float.intBitsToFloat((int) readFixedLong());
+        case DOUBLE:
+          return Double.longBitsToDouble(readFixedLong());
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case BIG_DECIMAL:
+          final int scale = (int) unZigZag(readVarLong());
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case DATE:
+          return addReference(new Date(unZigZag(readVarLong())));
+        case SQL_DATE:
+          return addReference(new java.sql.Date(unZigZag(readVarLong())));
+        case SQL_TIME:
+          return addReference(new Time(unZigZag(readVarLong())));
+        case SQL_TIMESTAMP:
+          final Timestamp timestamp = new Timestamp(unZigZag(readVarLong()));
+          timestamp.setNanos((int) readVarLong());
+          return addReference(timestamp);
+        case LOCAL_DATE:
+          return LocalDate.ofEpochDay(unZigZag(readVarLong()));
+        case LOCAL_TIME:
+          return LocalTime.ofNanoOfDay(readVarLong());
+        case LOCAL_DATE_TIME:
+          final LocalDate date = LocalDate.ofEpochDay(unZigZag(readVarLong()));
+          return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong()));
+        case INSTANT:
+          final long seconds = unZigZag(readVarLong());
+          return Instant.ofEpochSecond(seconds, readVarLong());
+        case BYTES:
+          return addReference(readBytes());
+        case ENUM:
+          final Class enumType = readClass();
+          return Enum.valueOf(enumType, readString());
+        case ARRAY_LIST:
+          return readCollection(new ArrayList<>());
+        case LINKED_LIST:
+          return readCollection(new LinkedList<>());
+        case HASH_SET:
+          return readCollection(new HashSet<>());
+        case LINKED_HASH_SET:
+          return readCollection(new LinkedHashSet<>());
+        case TREE_SET:
+          return readCollection(new TreeSet<>());
+        case HASH_MAP:
+          return readMap(new HashMap<>());
+        case LINKED_HASH_MAP:
+          return readMap(new LinkedHashMap<>());
+        case TREE_MAP:
+          return readMap(new TreeMap<>());
+        case BEAN:
+          return readBean();
+        default:
+          throw new CacheException("Error deserializing object.  Cause: unknown tag " + tag);
+      }
+    }
+
+    private Object addReference(Object value) {
+      references.add(value);
+      return value;
+    }
+
+    private Collection<Object> readCollection(Collection<Object> collection) throws Exception {
+      addReference(collection);
+      final int size = (int) readVarLong();
+      for (int i = 0; i < size; i++) {
+        collection.add(readObject());
+      }
+      return collection;
+    }
+
+    private Map<Object, Object> readMap(Map<Object, Object> map) throws Exception {
+      addReference(map);
+      final int size = (int) readVarLong();
+      for (int i = 0; i < size; i++) {
+        final Object key = readObject();
+        map.put(key, readObject());
+      }
+      return map;
+    }
+
+    private Object readBean() throws Exception {
+      final Class<?> type = readClass();
+      final BeanType beanType = beanType(type);
+      if (beanType == null) {
+        throw new CacheException("Error deserializing object.  Cause: " + type + " cannot be decoded");
+      }
+      final Object bean = addReference(beanType.constructor.newInstance());
+      for (Field field : beanType.fields) {
+        field.set(bean, readObject());
+      }
+      return bean;
+    }
+
+    private Class<?> readClass() throws ClassNotFoundException {
+      final int index = (int) readVarLong();
+      if (index > 0) {
+        return classes.get(index - 1);
+      }
+      final Class<?> type = Resources.classForName(readString());
+      classes.add(type);
+      return type;
+    }
+
+    private String readString() {
+      final int length = (int) readVarLong();
+      final char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        final byte b = buffer[position];
+        if (b >= 0) {
+          chars[i] = (char) b;
+          position++;
+        } else {
+          chars[i] = (char) readVarLong();
+        }
+      }
+      return new String(chars);
+    }
+
+    private byte[] readBytes() {
+      final int length = (int) readVarLong();
+      final byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+      position += length;
+      return bytes;
+    }
+
+    private long readVarLong() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer[position++];
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+    private long readFixedLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value |= (buffer[position++] & 0xFFL) << (i * 8);
+      }
+      return value;
+    }
+
+    private static long unZigZag(long value) {
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+
+/**
+ * Encodes the objects with the standard Java serialization. This is the default codec.
+ *
+ * @since 3.5.6
+ */
+public class JavaSerializationCodec implements CacheCodec {
+
+  @Override
+  public byte[] encode(Object value) {
+    return serialize(value, new ByteArrayOutputStream());
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    return deserialize(new ByteArrayInputStream(bytes));
+  }
+
+  static byte[] serialize(Object value, ByteArrayOutputStream bos) {
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(value);
+      oos.flush();
+      return bos.toByteArray();
+    } catch (Exception e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  static Object deserialize(InputStream in) {
+    try (ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(in)) {
+      return ois.readObject();
+    } catch (Exception e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+}
@@ -16,6 +16,8 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -94,6 +96,35 @@ public class BlockingCache implements Cache {
     return null;
   }
 
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    try {
+      delegate.putAll(entries);
+    } finally {
+      for (Object key : entries.keySet()) {
+        releaseLock(key);
+      }
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    // 逐个释放锁，某个锁释放失败也不影响其他锁的释放
+    RuntimeException failure = null;
+    for (Object key : keys) {
+      try {
+        releaseLock(key);
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   @Override
   public void clear() {
     delegate.clear();
@@ -0,0 +1,134 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Expires each entry on its own, a given time after it was put.
+ * <p>
+ * Unlike the {@link ScheduledCache}, which clears the whole cache at once, the entries expire when they age out.
+ * A random jitter can be added to the time to live so that entries put together do not expire together. During the
+ * stale while revalidate window following the expiry, the first caller gets a miss and reloads the entry while the
+ * other callers keep getting the stale value until it is put again.
+ *
+ * @since 3.5.6
+ */
+public class ExpiringCache implements Cache {
+
+  private final Cache delegate;
+  private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+  protected long timeToLive;
+  protected long jitter;
+  protected long staleWhileRevalidate;
+
+  public ExpiringCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  public void setJitter(long jitter) {
+    this.jitter = jitter;
+  }
+
+  public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    refreshing.remove(key);
+    // a null value is put for the misses that were not reloaded, keep the stale entry for the other callers
+    if (value != null) {
+      delegate.putObject(key, new Entry(value, expiresAt()));
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final Object value = delegate.getObject(key);
+    if (!(value instanceof Entry)) {
+      return value;
+    }
+    final Entry entry = (Entry) value;
+    final long now = System.currentTimeMillis();
+    if (now < entry.expiresAt) {
+      return entry.value;
+    }
+    if (now < entry.expiresAt + staleWhileRevalidate) {
+      return refreshing.putIfAbsent(key, Boolean.TRUE) == null ? null : entry.value;
+    }
+    delegate.removeObject(key);
+    refreshing.remove(key);
+    return null;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    refreshing.remove(key);
+    final Object value = delegate.removeObject(key);
+    return value instanceof Entry ? ((Entry) value).value : value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    refreshing.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private long expiresAt() {
+    final long spread = jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0;
+    return System.currentTimeMillis() + timeToLive + spread;
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long expiresAt;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+}
@@ -15,6 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -28,10 +32,28 @@ public class LoggingCache implements Cache {
   private final Cache delegate;
   protected int requests = 0;
   protected int hits = 0;
+  private final LongAdder concurrentRequests;
+  private final LongAdder concurrentHits;
 
   public LoggingCache(Cache delegate) {
+    this(delegate, false);
+  }
+
+  /**
+   * Creates a logging cache whose hit ratio can be updated by concurrent callers.
+   *
+   * @param delegate
+   *          the cache to log
+   * @param concurrent
+   *          {@code true} if this cache is not synchronized, in which case the requests and hits are counted with
+   *          {@link LongAdder}s instead of the {@link #requests} and {@link #hits} fields
+   * @since 3.5.6
+   */
+  public LoggingCache(Cache delegate, boolean concurrent) {
     this.delegate = delegate;
     this.log = LogFactory.getLog(getId());
+    this.concurrentRequests = concurrent ? new LongAdder() : null;
+    this.concurrentHits = concurrent ? new LongAdder() : null;
   }
 
   @Override
@@ -51,17 +73,34 @@ public class LoggingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    requests++;
     final Object value = delegate.getObject(key);
-    if (value != null) {
-      hits++;
-    }
+    countRequests(1, value != null ? 1 : 0);
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
     }
     return value;
   }
 
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    delegate.putAll(entries);
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    final Map<Object, Object> values = delegate.getAll(keys);
+    countRequests(keys.size(), values.size());
+    if (log.isDebugEnabled()) {
+      log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
+    }
+    return values;
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    delegate.removeAll(keys);
+  }
+
   @Override
   public Object removeObject(Object key) {
     return delegate.removeObject(key);
@@ -82,8 +121,21 @@ public class LoggingCache implements Cache {
     return delegate.equals(obj);
   }
 
+  private void countRequests(int requestCount, int hitCount) {
+    if (concurrentRequests == null) {
+      requests += requestCount;
+      hits += hitCount;
+    } else {
+      concurrentRequests.add(requestCount);
+      concurrentHits.add(hitCount);
+    }
+  }
+
   private double getHitRatio() {
-    return (double) hits / (double) requests;
+    if (concurrentRequests == null) {
+      return (double) hits / (double) requests;
+    }
+    return (double) concurrentHits.sum() / (double) concurrentRequests.sum();
   }
 
 }
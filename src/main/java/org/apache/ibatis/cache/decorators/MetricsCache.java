@@ -0,0 +1,231 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+
+/**
+ * Collects the {@link CacheMetrics} of a cache. It decorates the whole cache and is thread safe without locking.
+ * <p>
+ * The hits and misses are recorded by the {@link org.apache.ibatis.executor.CachingExecutor}, which may discard an entry
+ * found in the cache, e.g. when it was invalidated by the current transaction.
+ *
+ * @since 3.5.6
+ */
+public class MetricsCache implements Cache, CacheMetrics {
+
+  private final Cache delegate;
+  private final LongSupplier estimatedSize;
+  private final LongSupplier overwrites;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+  private final LongAdder invalidatedEntries = new LongAdder();
+  private final LongAdder removedEntries = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+
+  public MetricsCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a metrics decorator.
+   *
+   * @param delegate
+   *          the decorated cache
+   * @param estimatedSize
+   *          supplies the estimated size of the entries, {@code null} if the cache does not estimate it
+   */
+  public MetricsCache(Cache delegate, LongSupplier estimatedSize) {
+    this(delegate, estimatedSize, null);
+  }
+
+  /**
+   * Creates a metrics decorator.
+   *
+   * @param delegate
+   *          the decorated cache
+   * @param estimatedSize
+   *          supplies the estimated size of the entries, {@code null} if the cache does not estimate it
+   * @param overwrites
+   *          supplies the number of entries replaced by a put of the same key, {@code null} if the cache does not
+   *          count them
+   */
+  public MetricsCache(Cache delegate, LongSupplier estimatedSize, LongSupplier overwrites) {
+    this.delegate = delegate;
+    this.estimatedSize = estimatedSize;
+    this.overwrites = overwrites;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object object) {
+    delegate.putObject(key, object);
+    // a null value only releases the lock of a blocking cache
+    if (object != null) {
+      puts.increment();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    delegate.putAll(entries);
+    for (Object value : entries.values()) {
+      if (value != null) {
+        puts.increment();
+      }
+    }
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    return delegate.getAll(keys);
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    final int size = delegate.getSize();
+    try {
+      delegate.removeAll(keys);
+    } finally {
+      recordRemovals(size);
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    final int size = delegate.getSize();
+    try {
+      return delegate.removeObject(key);
+    } finally {
+      recordRemovals(size);
+    }
+  }
+
+  private void recordRemovals(int previousSize) {
+    // a blocking cache only releases its locks, so the removals are counted from the size of the cache
+    final int removed = previousSize - delegate.getSize();
+    if (removed > 0) {
+      removedEntries.add(removed);
+    }
+  }
+
+  @Override
+  public void clear() {
+    invalidatedEntries.add(delegate.getSize());
+    delegate.clear();
+    invalidations.increment();
+  }
+
+  /**
+   * Records a lookup that found an entry.
+   */
+  public void recordHit() {
+    hits.increment();
+  }
+
+  /**
+   * Records a lookup that found no entry, or an entry that could not be used.
+   */
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  /**
+   * Records the time spent in a query executed on a miss.
+   *
+   * @param nanos
+   *          the duration of the query in nanoseconds
+   */
+  public void recordLoad(long nanos) {
+    loads.increment();
+    totalLoadTime.add(nanos);
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  @Override
+  public long getEvictions() {
+    final long overwritten = overwrites == null ? 0 : overwrites.getAsLong();
+    return Math.max(0, puts.sum() - overwritten - removedEntries.sum() - invalidatedEntries.sum() - getSize());
+  }
+
+  @Override
+  public long getInvalidations() {
+    return invalidations.sum();
+  }
+
+  @Override
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  @Override
+  public long getTotalLoadTime() {
+    return totalLoadTime.sum();
+  }
+
+  @Override
+  public long getEstimatedSize() {
+    return estimatedSize == null ? -1 : estimatedSize.getAsLong();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
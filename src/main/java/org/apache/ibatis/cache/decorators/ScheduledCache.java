@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.cache.Cache;
@@ -26,7 +29,7 @@ public class ScheduledCache implements Cache {
 
   private final Cache delegate;
   protected long clearInterval;
-  protected long lastClear;
+  protected volatile long lastClear;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -66,6 +69,23 @@ public class ScheduledCache implements Cache {
     return delegate.removeObject(key);
   }
 
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    clearWhenStale();
+    delegate.putAll(entries);
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    return clearWhenStale() ? new HashMap<>() : delegate.getAll(keys);
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    clearWhenStale();
+    delegate.removeAll(keys);
+  }
+
   @Override
   public void clear() {
     lastClear = System.currentTimeMillis();
@@ -15,17 +15,20 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.io.Resources;
 
 /**
@@ -34,9 +37,24 @@ import org.apache.ibatis.io.Resources;
 public class SerializedCache implements Cache {
 
   private final Cache delegate;
+  private final CacheCodec codec;
 
   public SerializedCache(Cache delegate) {
+    this(delegate, new JavaSerializationCodec());
+  }
+
+  /**
+   * Creates a cache that copies its entries with the given codec.
+   *
+   * @param delegate
+   *          the cache that stores the encoded entries
+   * @param codec
+   *          the codec
+   * @since 3.5.6
+   */
+  public SerializedCache(Cache delegate, CacheCodec codec) {
     this.delegate = delegate;
+    this.codec = codec;
   }
 
   @Override
@@ -52,7 +70,7 @@ public class SerializedCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     if (object == null || object instanceof Serializable) {
-      delegate.putObject(key, serialize((Serializable) object));
+      delegate.putObject(key, codec.encode(object));
     } else {
       throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
     }
@@ -61,7 +79,39 @@ public class SerializedCache implements Cache {
   @Override
   public Object getObject(Object key) {
     Object object = delegate.getObject(key);
-    return object == null ? null : deserialize((byte[]) object);
+    return object == null ? null : codec.decode((byte[]) object);
+  }
+
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    final Map<Object, Object> encoded = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : entries.entrySet()) {
+      Object object = entry.getValue();
+      if (object == null || object instanceof Serializable) {
+        encoded.put(entry.getKey(), codec.encode(object));
+      } else {
+        throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
+      }
+    }
+    delegate.putAll(encoded);
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    final Map<Object, Object> values = new HashMap<>();
+    for (Map.Entry<Object, Object> entry : delegate.getAll(keys).entrySet()) {
+      // a null value that released the lock of a blocking cache is encoded too, but it is not an entry
+      final Object value = codec.decode((byte[]) entry.getValue());
+      if (value != null) {
+        values.put(entry.getKey(), value);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    delegate.removeAll(keys);
   }
 
   @Override
@@ -84,28 +134,6 @@ public class SerializedCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
-  }
-
-  private Serializable deserialize(byte[] value) {
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-        ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
-  }
-
   public static class CustomObjectInputStream extends ObjectInputStream {
 
     public CustomObjectInputStream(InputStream in) throws IOException {
@@ -15,6 +15,9 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.apache.ibatis.cache.Cache;
 
 /**
@@ -53,6 +56,21 @@ public class SynchronizedCache implements Cache {
     return delegate.removeObject(key);
   }
 
+  @Override
+  public synchronized void putAll(Map<?, ?> entries) {
+    delegate.putAll(entries);
+  }
+
+  @Override
+  public synchronized Map<Object, Object> getAll(Collection<?> keys) {
+    return delegate.getAll(keys);
+  }
+
+  @Override
+  public synchronized void removeAll(Collection<?> keys) {
+    delegate.removeAll(keys);
+  }
+
   @Override
   public synchronized void clear() {
     delegate.clear();
@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableVersions;
+
+/**
+ * Drops the entries that were read from tables written to since they were cached.
+ * <p>
+ * The entries are created by the {@link TransactionalCache} with {@link TableVersions#newEntry(Object, String[])}.
+ * This decorator is added below the {@link BlockingCache}, so a stale entry is seen as a miss by the latter.
+ *
+ * @since 3.5.6
+ */
+public class TableVersionedCache implements Cache {
+
+  private final Cache delegate;
+  private final TableVersions tableVersions;
+
+  public TableVersionedCache(Cache delegate, TableVersions tableVersions) {
+    this.delegate = delegate;
+    this.tableVersions = tableVersions;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final Object value = delegate.getObject(key);
+    if (value instanceof TableVersions.Entry) {
+      final Object current = tableVersions.getValue((TableVersions.Entry) value);
+      if (current == null) {
+        delegate.removeObject(key);
+      }
+      return current;
+    }
+    return value;
+  }
+
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    delegate.putAll(entries);
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    final Map<Object, Object> values = delegate.getAll(keys);
+    final List<Object> staleKeys = new ArrayList<>();
+    for (Iterator<Map.Entry<Object, Object>> iterator = values.entrySet().iterator(); iterator.hasNext();) {
+      final Map.Entry<Object, Object> entry = iterator.next();
+      if (entry.getValue() instanceof TableVersions.Entry) {
+        final Object current = tableVersions.getValue((TableVersions.Entry) entry.getValue());
+        if (current == null) {
+          staleKeys.add(entry.getKey());
+          iterator.remove();
+        } else {
+          entry.setValue(current);
+        }
+      }
+    }
+    if (!staleKeys.isEmpty()) {
+      delegate.removeAll(staleKeys);
+    }
+    return values;
+  }
+
+  @Override
+  public void removeAll(Collection<?> keys) {
+    delegate.removeAll(keys);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    final Object value = delegate.removeObject(key);
+    return value instanceof TableVersions.Entry ? tableVersions.getValue((TableVersions.Entry) value) : value;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+}
@@ -0,0 +1,423 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ConcurrentCache;
+
+/**
+ * W-TinyLFU (window tiny least frequently used) cache decorator.
+ * <p>
+ * New entries are admitted into a small LRU window. When the window overflows, its oldest entry competes with the
+ * least recently used entry of the main segmented LRU, and the one that was used less often, as estimated by a
+ * count-min sketch, is evicted. Frequently used entries therefore stay cached while a scan of one-off queries
+ * passes through.
+ * <p>
+ * Reads do not take a lock. They are recorded in striped lossy buffers which are replayed against the eviction policy
+ * when a buffer is half full or on the next write. Writes are serialized. The delegate must support concurrent reads,
+ * which is the case of the default cache built for a namespace using this eviction policy.
+ */
+public class TinyLfuCache implements ConcurrentCache {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private static final int NUMBER_OF_READ_BUFFERS = ceilingPowerOfTwo(Math.min(Runtime.getRuntime().availableProcessors(), 16));
+
+  private final Cache delegate;
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final ReadBuffer[] readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+  private final Map<Object, Node> nodes = new HashMap<>();
+  private final Node window = new Node(null, WINDOW);
+  private final Node probation = new Node(null, PROBATION);
+  private final Node protectedSegment = new Node(null, PROTECTED);
+  private FrequencySketch sketch;
+  private int maximumSize;
+  private int windowMaximumSize;
+  private int protectedMaximumSize;
+  private int windowSize;
+  private int probationSize;
+  private int protectedSize;
+
+  public TinyLfuCache(Cache delegate) {
+    this.delegate = delegate;
+    for (int i = 0; i < readBuffers.length; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public void setSize(final int size) {
+    evictionLock.lock();
+    try {
+      maximumSize = size;
+      windowMaximumSize = Math.max(1, size / 100);
+      protectedMaximumSize = (size - windowMaximumSize) * 80 / 100;
+      sketch = new FrequencySketch(size);
+      evict();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      // a null value reads as a miss anyway, so there is no need to keep the key
+      removeObject(key);
+      return;
+    }
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      delegate.putObject(key, value);
+      Node node = nodes.get(key);
+      if (node == null) {
+        node = new Node(key, WINDOW);
+        nodes.put(key, node);
+        window.addLast(node);
+        windowSize++;
+        sketch.increment(key);
+        evict();
+      } else {
+        onAccess(node);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final Object value = delegate.getObject(key);
+    if (value != null && readBuffers[readBufferIndex()].offer(key)) {
+      tryDrainReadBuffers();
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      final Node node = nodes.remove(key);
+      if (node != null) {
+        removeNode(node);
+      }
+      return delegate.removeObject(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      for (ReadBuffer readBuffer : readBuffers) {
+        readBuffer.drain(null);
+      }
+      nodes.clear();
+      window.prev = window.next = window;
+      probation.prev = probation.next = probation;
+      protectedSegment.prev = protectedSegment.next = protectedSegment;
+      windowSize = probationSize = protectedSize = 0;
+      delegate.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void tryDrainReadBuffers() {
+    if (evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffers() {
+    for (ReadBuffer readBuffer : readBuffers) {
+      readBuffer.drain(this);
+    }
+  }
+
+  private void onRead(Object key) {
+    final Node node = nodes.get(key);
+    if (node != null) {
+      onAccess(node);
+    }
+  }
+
+  private void onAccess(Node node) {
+    sketch.increment(node.key);
+    if (node.segment == WINDOW) {
+      node.unlink();
+      window.addLast(node);
+    } else if (node.segment == PROBATION) {
+      node.unlink();
+      probationSize--;
+      node.segment = PROTECTED;
+      protectedSegment.addLast(node);
+      protectedSize++;
+      while (protectedSize > protectedMaximumSize) {
+        final Node demoted = protectedSegment.next;
+        demoted.unlink();
+        protectedSize--;
+        demoted.segment = PROBATION;
+        probation.addLast(demoted);
+        probationSize++;
+      }
+    } else {
+      node.unlink();
+      protectedSegment.addLast(node);
+    }
+  }
+
+  private void evict() {
+    // entries leaving the window are appended to the probation segment and become candidates for admission
+    int candidates = 0;
+    while (windowSize > windowMaximumSize) {
+      final Node node = window.next;
+      node.unlink();
+      windowSize--;
+      node.segment = PROBATION;
+      probation.addLast(node);
+      probationSize++;
+      candidates++;
+    }
+    while (nodes.size() > maximumSize) {
+      if (candidates == 0) {
+        evict(probationSize > 0 ? probation.next : protectedSize > 0 ? protectedSegment.next : window.next);
+        continue;
+      }
+      final Node victim = probation.next;
+      final Node candidate = probation.prev;
+      final Node evicted = candidate == victim || sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+      evict(evicted);
+      if (evicted == candidate) {
+        candidates--;
+      }
+      candidates = Math.min(candidates, probationSize);
+    }
+  }
+
+  private void evict(Node node) {
+    nodes.remove(node.key);
+    removeNode(node);
+    delegate.removeObject(node.key);
+  }
+
+  private void removeNode(Node node) {
+    node.unlink();
+    if (node.segment == WINDOW) {
+      windowSize--;
+    } else if (node.segment == PROBATION) {
+      probationSize--;
+    } else {
+      protectedSize--;
+    }
+  }
+
+  private static int readBufferIndex() {
+    final long id = Thread.currentThread().getId();
+    return (((int) (id ^ (id >>> 32)) * 0x9E3779B9) >>> 16) & (NUMBER_OF_READ_BUFFERS - 1);
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << (32 - Integer.numberOfLeadingZeros(Math.max(1, x) - 1));
+  }
+
+  private static final class Node {
+    private final Object key;
+    private int segment;
+    private Node prev = this;
+    private Node next = this;
+
+    Node(Object key, int segment) {
+      this.key = key;
+      this.segment = segment;
+    }
+
+    void addLast(Node node) {
+      node.prev = prev;
+      node.next = this;
+      prev.next = node;
+      prev = node;
+    }
+
+    void unlink() {
+      prev.next = next;
+      next.prev = prev;
+      prev = next = this;
+    }
+  }
+
+  /**
+   * A bounded buffer of keys that were read. Keys are dropped when the buffer is full or when another thread wins the
+   * race for the same slot, which is fine since the eviction policy only needs a sample of the reads.
+   */
+  private static final class ReadBuffer {
+    private static final int SIZE = 64;
+    private static final int MASK = SIZE - 1;
+
+    private final AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+
+    /**
+     * Records a read and returns whether the buffer should be drained.
+     */
+    boolean offer(Object key) {
+      final long head = readCounter;
+      final long tail = writeCounter.get();
+      final long size = tail - head;
+      if (size >= SIZE) {
+        return true;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) (tail & MASK), key);
+      }
+      return size >= SIZE / 2;
+    }
+
+    /**
+     * Replays the recorded reads against the cache, or discards them if the cache is {@code null}.
+     * Must be called with the eviction lock held.
+     */
+    void drain(TinyLfuCache cache) {
+      long head = readCounter;
+      final long tail = writeCounter.get();
+      for (; head != tail; head++) {
+        final int index = (int) (head & MASK);
+        final Object key = buffer.get(index);
+        if (key == null) {
+          // the slot was claimed but its key is not published yet
+          break;
+        }
+        buffer.lazySet(index, null);
+        if (cache != null) {
+          cache.onRead(key);
+        }
+      }
+      readCounter = head;
+    }
+  }
+
+  /**
+   * A count-min sketch of 4-bit counters that estimates how often keys were used. All counters are halved once the
+   * number of increments reaches ten times the maximum size of the cache, so that the estimates favour recent use.
+   */
+  private static final class FrequencySketch {
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int maximumSize) {
+      final int capacity = ceilingPowerOfTwo(Math.max(maximumSize, 16));
+      this.table = new long[capacity];
+      this.tableMask = capacity - 1;
+      this.sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    int frequency(Object key) {
+      final int hash = spread(key.hashCode());
+      final int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        final int index = indexOf(hash, i);
+        final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    void increment(Object key) {
+      final int hash = spread(key.hashCode());
+      final int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size == sampleSize) {
+        reset();
+      }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      final int offset = counter << 2;
+      final long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+      long h = (SEEDS[i] + hash) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & tableMask;
+    }
+
+    private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+    }
+  }
+
+}
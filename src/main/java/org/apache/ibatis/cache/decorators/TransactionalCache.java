@@ -15,12 +15,16 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableVersions;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -52,11 +56,50 @@ public class TransactionalCache implements Cache {
    */
   private final Set<Object> entriesMissedInCache;
 
+  private final TableVersions tableVersions;
+  private final Map<Object, String[]> tablesOfEntriesToAdd;
+  private final Map<Object, long[]> versionsOfEntriesToAdd;
+  private final Set<String> invalidatedTables;
+  private final CacheInvalidationBus invalidationBus;
+
   public TransactionalCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a transactional buffer that stores the entries along with the versions of the tables they were read from.
+   *
+   * @param delegate
+   *          the 2nd level cache
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache is invalidated on writes
+   * @since 3.5.6
+   */
+  public TransactionalCache(Cache delegate, TableVersions tableVersions) {
+    this(delegate, tableVersions, null);
+  }
+
+  /**
+   * Creates a transactional buffer that broadcasts the invalidation of the cache to the other nodes.
+   *
+   * @param delegate
+   *          the 2nd level cache
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache is invalidated on writes
+   * @param invalidationBus
+   *          the bus the invalidation of the cache is published to on commit, or {@code null} if there is no other node
+   * @since 3.5.6
+   */
+  public TransactionalCache(Cache delegate, TableVersions tableVersions, CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.tableVersions = tableVersions;
+    this.tablesOfEntriesToAdd = new HashMap<>();
+    this.versionsOfEntriesToAdd = new HashMap<>();
+    this.invalidatedTables = new HashSet<>();
+    this.invalidationBus = invalidationBus;
   }
 
   @Override
@@ -71,13 +114,31 @@ public class TransactionalCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
+    return getObject(key, null);
+  }
+
+  /**
+   * Gets an entry read from the given tables.
+   *
+   * @param key
+   *          the key
+   * @param tables
+   *          the tables the entry was read from, or {@code null} if they are not known
+   * @return the cached value, or {@code null} if it is not cached or has been invalidated in this transaction
+   * @since 3.5.6
+   */
+  public Object getObject(Object key, String[] tables) {
     // issue #116
     Object object = delegate.getObject(key);
+    if (object instanceof TableVersions.Entry) {
+      // the cache was not built with a TableVersionedCache
+      object = tableVersions == null ? null : tableVersions.getValue((TableVersions.Entry) object);
+    }
     if (object == null) {
       entriesMissedInCache.add(key);
     }
     // issue #146
-    if (clearOnCommit) {
+    if (clearOnCommit || isInvalidated(tables)) {
       return null;
     } else {
       return object;
@@ -88,6 +149,45 @@ public class TransactionalCache implements Cache {
   public void putObject(Object key, Object object) {
     // 把数据先临时保存起来
     entriesToAddOnCommit.put(key, object);
+    tablesOfEntriesToAdd.remove(key);
+    versionsOfEntriesToAdd.remove(key);
+  }
+
+  /**
+   * Puts an entry read from the given tables, along with their current versions.
+   *
+   * @param key
+   *          the key
+   * @param object
+   *          the value
+   * @param tables
+   *          the tables the value was read from, or {@code null} if they are not known
+   * @since 3.5.6
+   * @see #putObject(Object, Object, String[], long[])
+   */
+  public void putObject(Object key, Object object, String[] tables) {
+    putObject(key, object, tables, tableVersions == null ? null : tableVersions.getVersions(tables));
+  }
+
+  /**
+   * Puts an entry read from the given tables, along with the versions they had before it was read.
+   * The entry is stored with these versions on commit, so it is stale if another session wrote to one of the tables
+   * after it was read.
+   *
+   * @param key
+   *          the key
+   * @param object
+   *          the value
+   * @param tables
+   *          the tables the value was read from, or {@code null} if they are not known
+   * @param versions
+   *          the versions of the tables returned by {@link TableVersions#getVersions(String[])} before the value was read
+   * @since 3.5.6
+   */
+  public void putObject(Object key, Object object, String[] tables, long[] versions) {
+    entriesToAddOnCommit.put(key, object);
+    tablesOfEntriesToAdd.put(key, tables);
+    versionsOfEntriesToAdd.put(key, versions);
   }
 
   @Override
@@ -101,10 +201,56 @@ public class TransactionalCache implements Cache {
     entriesToAddOnCommit.clear();
   }
 
+  /**
+   * Discards the entries read from the given tables so far in this transaction. The entries of the cache that depend on
+   * them are invalidated by the {@link org.apache.ibatis.cache.TransactionalCacheManager} on commit.
+   *
+   * @param tables
+   *          the tables written to
+   * @since 3.5.6
+   */
+  public void invalidate(String[] tables) {
+    Collections.addAll(invalidatedTables, tables);
+    entriesToAddOnCommit.keySet().removeIf(key -> {
+      final String[] entryTables = tablesOfEntriesToAdd.get(key);
+      return entryTables == null || intersects(entryTables, tables);
+    });
+  }
+
+  private boolean isInvalidated(String[] tables) {
+    if (invalidatedTables.isEmpty()) {
+      return false;
+    }
+    if (tables == null) {
+      return true;
+    }
+    for (String table : tables) {
+      if (invalidatedTables.contains(table)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean intersects(String[] tables, String[] otherTables) {
+    for (String table : tables) {
+      for (String otherTable : otherTables) {
+        if (table.equals(otherTable)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
   public void commit() {
     if (clearOnCommit) {
       // 提交的时候清理二级缓存
       delegate.clear();
+      if (invalidationBus != null) {
+        // 通知其他节点清理该命名空间的缓存
+        invalidationBus.publishNamespace(delegate.getId());
+      }
     }
     // 提交的时候，刷新查询的数据，用于保存到二级缓存中
     flushPendingEntries();
@@ -121,29 +267,63 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    tablesOfEntriesToAdd.clear();
+    versionsOfEntriesToAdd.clear();
+    invalidatedTables.clear();
   }
 
   private void flushPendingEntries() {
-    // 提交的时候，把临时保存的数据，真正放入二级缓存中
+    // 提交的时候，把临时保存的数据，一次性放入二级缓存中
+    final Map<Object, Object> entries = new LinkedHashMap<>();
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      if (tableVersions == null) {
+        entries.put(entry.getKey(), entry.getValue());
+      } else {
+        final String[] tables = tablesOfEntriesToAdd.get(entry.getKey());
+        final long[] versions = versionsOfEntriesToAdd.get(entry.getKey());
+        entries.put(entry.getKey(), versions == null ? tableVersions.newEntry(entry.getValue(), tables)
+            : tableVersions.newEntry(entry.getValue(), tables, committedVersions(tables, versions)));
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
-        delegate.putObject(entry, null);
+        entries.put(entry, null);
+      }
+    }
+    if (!entries.isEmpty()) {
+      delegate.putAll(entries);
+    }
+  }
+
+  private long[] committedVersions(String[] tables, long[] versions) {
+    // 本事务写入的表在提交时版本各加一，之后读取的数据已包含本事务的修改
+    // （之前读取的数据已在 invalidate 时丢弃），其他会话的并发写入仍会使其过期
+    if (invalidatedTables.isEmpty()) {
+      return versions;
+    }
+    final long[] committed = versions.clone();
+    if (tables == null) {
+      committed[0]++;
+      return committed;
+    }
+    for (int i = 0; i < tables.length; i++) {
+      if (invalidatedTables.contains(tables[i])) {
+        committed[i]++;
       }
     }
+    return committed;
   }
 
   private void unlockMissedEntries() {
     // 移除未命中的数据
-    for (Object entry : entriesMissedInCache) {
-      try {
-        delegate.removeObject(entry);
-      } catch (Exception e) {
-        log.warn("Unexpected exception while notifiying a rollback to the cache adapter. "
-            + "Consider upgrading your cache adapter to the latest version. Cause: " + e);
-      }
+    if (entriesMissedInCache.isEmpty()) {
+      return;
+    }
+    try {
+      delegate.removeAll(entriesMissedInCache);
+    } catch (Exception e) {
+      log.warn("Unexpected exception while notifiying a rollback to the cache adapter. "
+          + "Consider upgrading your cache adapter to the latest version. Cause: " + e);
     }
   }
 
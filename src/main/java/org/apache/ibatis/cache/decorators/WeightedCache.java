@@ -0,0 +1,233 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableVersions;
+import org.apache.ibatis.cache.weigher.CacheWeigher;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Bounds the cache by the total weight of its entries, evicting the least recently used entries first.
+ * <p>
+ * The weight of each entry is computed by a {@link CacheWeigher} when it is put, e.g. its number of rows or the memory
+ * it retains. An entry heavier than the maximum weight is not cached.
+ * <p>
+ * The decorated caches may drop entries too, e.g. their eviction policy or their flush interval. When the innermost
+ * cache is wrapped in a {@link Storage}, the weight of these entries is released as soon as they are dropped.
+ * Otherwise it is only released when they are next looked up.
+ *
+ * @since 3.5.6
+ */
+public class WeightedCache implements Cache {
+
+  private final Log log;
+  private final Cache delegate;
+  private final CacheWeigher weigher;
+  private final Storage storage;
+  private final Map<Object, Long> weights = new LinkedHashMap<>(16, .75F, true);
+  private long maxWeight = Long.MAX_VALUE;
+  private long weight;
+
+  public WeightedCache(Cache delegate, CacheWeigher weigher) {
+    this(delegate, weigher, null);
+  }
+
+  /**
+   * Creates a weighted cache that is notified of the entries dropped by the decorated caches.
+   *
+   * @param delegate
+   *          the decorated cache
+   * @param weigher
+   *          the weigher of the entries
+   * @param storage
+   *          the innermost cache of the delegate, {@code null} if it is not wrapped in a {@link Storage}
+   */
+  public WeightedCache(Cache delegate, CacheWeigher weigher, Storage storage) {
+    this.delegate = delegate;
+    this.weigher = weigher;
+    this.storage = storage;
+    this.log = LogFactory.getLog(getId());
+    if (storage != null) {
+      storage.owner = this;
+    }
+  }
+
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Returns the total weight of the entries.
+   *
+   * @return the total weight
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    final Object weighed = value instanceof TableVersions.Entry ? ((TableVersions.Entry) value).getValue() : value;
+    final long entryWeight = weighed == null ? 0 : weigher.weigh(weighed);
+    release(key);
+    if (entryWeight > maxWeight) {
+      delegate.removeObject(key);
+      if (log.isDebugEnabled()) {
+        log.debug("Not caching an entry of weight " + entryWeight + ", heavier than the maximum weight of the cache " + getId());
+      }
+      return;
+    }
+    delegate.putObject(key, value);
+    weights.put(key, entryWeight);
+    weight += entryWeight;
+    while (weight > maxWeight && !weights.isEmpty()) {
+      final Object eldest = weights.keySet().iterator().next();
+      release(eldest);
+      delegate.removeObject(eldest);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Cache Weight [" + getId() + "]: " + weight + " of " + maxWeight);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final Object value = delegate.getObject(key);
+    if (value == null) {
+      if (storage == null) {
+        release(key);
+      }
+    } else {
+      // touch
+      weights.get(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    release(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    releaseAll();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private void release(Object key) {
+    final Long entryWeight = weights.remove(key);
+    if (entryWeight != null) {
+      weight -= entryWeight;
+    }
+  }
+
+  private void releaseAll() {
+    weights.clear();
+    weight = 0;
+  }
+
+  /**
+   * Wraps the innermost cache of a weighted cache, so that the weight of the entries dropped by the caches in between
+   * is released at once.
+   */
+  public static final class Storage implements Cache {
+
+    private final Cache delegate;
+    private WeightedCache owner;
+
+    public Storage(Cache delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public int getSize() {
+      return delegate.getSize();
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      delegate.putObject(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      return delegate.getObject(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      if (owner != null) {
+        owner.release(key);
+      }
+      return delegate.removeObject(key);
+    }
+
+    @Override
+    public void clear() {
+      if (owner != null) {
+        owner.releaseAll();
+      }
+      delegate.clear();
+    }
+
+    @Override
+    public int hashCode() {
+      return delegate.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return delegate.equals(obj);
+    }
+  }
+
+}
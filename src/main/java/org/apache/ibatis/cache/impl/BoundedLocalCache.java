@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A local cache bounded by a number of entries and/or a number of cached rows, evicting the least recently used
+ * entries.
+ * <p>
+ * Evicting while a query is running would break the nested queries: the execution placeholders detect circular
+ * references and the deferred loads read the results of the outer queries once they complete. This cache therefore
+ * never evicts by itself; the executor calls {@link #trim(Consumer)} when the outermost query and its deferred loads
+ * are done, so the bound may be exceeded while a query runs.
+ *
+ * @since 3.5.6
+ */
+public class BoundedLocalCache extends PerpetualCache {
+
+  private final Map<Object, Object> entries;
+  private final int maxEntries;
+  private final long maxRows;
+  private long rows;
+
+  /**
+   * Creates a bounded local cache.
+   *
+   * @param id
+   *          the cache id
+   * @param maxEntries
+   *          the maximum number of entries, {@code 0} for no limit
+   * @param maxRows
+   *          the maximum number of rows in all the cached lists, {@code 0} for no limit
+   */
+  public BoundedLocalCache(String id, int maxEntries, long maxRows) {
+    this(id, new LinkedHashMap<>(16, .75F, true), maxEntries, maxRows);
+  }
+
+  private BoundedLocalCache(String id, Map<Object, Object> entries, int maxEntries, long maxRows) {
+    super(id, entries);
+    this.entries = entries;
+    this.maxEntries = maxEntries;
+    this.maxRows = maxRows;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public long getMaxRows() {
+    return maxRows;
+  }
+
+  /**
+   * Gets the number of rows in all the cached lists.
+   *
+   * @return the number of cached rows
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    rows += rowsOf(value) - rowsOf(entries.put(key, value));
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = entries.remove(key);
+    rows -= rowsOf(value);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    rows = 0;
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache is within its bounds. Must not be called while a query is
+   * running.
+   *
+   * @param evictionListener
+   *          receives the key of each evicted entry
+   */
+  public void trim(Consumer<Object> evictionListener) {
+    Iterator<Map.Entry<Object, Object>> iterator = entries.entrySet().iterator();
+    while (isOverBounds() && iterator.hasNext()) {
+      Map.Entry<Object, Object> eldest = iterator.next();
+      rows -= rowsOf(eldest.getValue());
+      iterator.remove();
+      evictionListener.accept(eldest.getKey());
+    }
+  }
+
+  private boolean isOverBounds() {
+    return (maxEntries > 0 && entries.size() > maxEntries) || (maxRows > 0 && rows > maxRows);
+  }
+
+  private static long rowsOf(Object value) {
+    return value instanceof Collection ? ((Collection<?>) value).size() : 0;
+  }
+
+}
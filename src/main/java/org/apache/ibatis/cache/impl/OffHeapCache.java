@@ -0,0 +1,330 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Stores the serialized entries outside of the Java heap, in direct byte buffers.
+ * <p>
+ * The memory is allocated in segments of {@code segmentBytes}, up to {@code maxBytes}. The entries are appended to the
+ * newest segment, and once all the memory is in use the oldest segment is evicted as a whole and reused. Only the
+ * keys and the index are kept on the heap. The values must be serializable, and each read returns a new copy, decoded
+ * with the {@code codec}, by default the Java serialization.
+ * <p>
+ * Since the decorators are not applied to custom caches, this cache is thread safe on its own.
+ *
+ * @since 3.5.6
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+  private static final Log log = LogFactory.getLog(OffHeapCache.class);
+
+  private final String id;
+  private final Map<Object, Slot> index = new HashMap<>();
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private long maxBytes = 64L * 1024 * 1024;
+  private int segmentBytes = 4 * 1024 * 1024;
+  private long usedBytes;
+  private CacheCodec codec = new JavaSerializationCodec();
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Sets the codec the entries are stored with.
+   *
+   * @param codec
+   *          the codec
+   */
+  public void setCodec(CacheCodec codec) {
+    this.codec = codec;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public void setSegmentBytes(int segmentBytes) {
+    this.segmentBytes = segmentBytes;
+  }
+
+  @Override
+  public void initialize() {
+    if (segmentBytes <= 0 || maxBytes < segmentBytes) {
+      throw new CacheException("The maxBytes of the cache " + id + " (" + maxBytes
+          + ") must be greater than or equal to its segmentBytes (" + segmentBytes + ")");
+    }
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public synchronized int getSize() {
+    return index.size();
+  }
+
+  /**
+   * Returns the number of bytes held by the live entries.
+   *
+   * @return the number of bytes used
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /**
+   * Returns the number of bytes allocated outside of the heap.
+   *
+   * @return the number of bytes allocated
+   */
+  public synchronized long getAllocatedBytes() {
+    return (long) segments.size() * segmentBytes;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value == null) {
+      removeObject(key);
+      return;
+    }
+    final byte[] bytes = encode(value);
+    synchronized (this) {
+      store(key, bytes);
+    }
+  }
+
+  @Override
+  public void putAll(Map<?, ?> entries) {
+    // 在锁外编码，一次加锁写入所有条目
+    final Map<Object, byte[]> encoded = new LinkedHashMap<>();
+    for (Map.Entry<?, ?> entry : entries.entrySet()) {
+      encoded.put(entry.getKey(), entry.getValue() == null ? null : encode(entry.getValue()));
+    }
+    synchronized (this) {
+      for (Map.Entry<Object, byte[]> entry : encoded.entrySet()) {
+        if (entry.getValue() == null) {
+          removeSlot(entry.getKey());
+        } else {
+          store(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    final byte[] bytes;
+    synchronized (this) {
+      final Slot slot = index.get(key);
+      if (slot == null) {
+        return null;
+      }
+      bytes = slot.read();
+    }
+    return codec.decode(bytes);
+  }
+
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys) {
+    final Map<Object, Object> values = new HashMap<>();
+    synchronized (this) {
+      for (Object key : keys) {
+        final Slot slot = index.get(key);
+        if (slot != null) {
+          values.put(key, slot.read());
+        }
+      }
+    }
+    values.replaceAll((key, bytes) -> codec.decode((byte[]) bytes));
+    return values;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    final byte[] bytes;
+    synchronized (this) {
+      final Slot slot = removeSlot(key);
+      if (slot == null) {
+        return null;
+      }
+      bytes = slot.read();
+    }
+    return codec.decode(bytes);
+  }
+
+  @Override
+  public synchronized void removeAll(Collection<?> keys) {
+    for (Object key : keys) {
+      removeSlot(key);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    index.clear();
+    for (Segment segment : segments) {
+      segment.reset();
+    }
+    usedBytes = 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+    return id.equals(((Cache) o).getId());
+  }
+
+  @Override
+  public int hashCode() {
+    return id.hashCode();
+  }
+
+  private byte[] encode(Object value) {
+    if (!(value instanceof Serializable)) {
+      throw new CacheException("OffHeapCache failed to store a non-serializable object: " + value);
+    }
+    return codec.encode(value);
+  }
+
+  private void store(Object key, byte[] bytes) {
+    removeSlot(key);
+    if (bytes.length > segmentBytes) {
+      if (log.isDebugEnabled()) {
+        log.debug("Not caching an entry of " + bytes.length + " bytes, larger than the segments of the cache " + id);
+      }
+      return;
+    }
+    final Segment segment = segmentFor(bytes.length);
+    final int offset = segment.append(bytes);
+    segment.keys.add(key);
+    index.put(key, new Slot(segment, offset, bytes.length));
+    usedBytes += bytes.length;
+  }
+
+  private Slot removeSlot(Object key) {
+    final Slot slot = index.remove(key);
+    if (slot != null) {
+      usedBytes -= slot.length;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the segment to append an entry to, allocating a new one or evicting the oldest one if needed.
+   */
+  private Segment segmentFor(int length) {
+    final Segment current = segments.peekLast();
+    if (current != null && current.remaining() >= length) {
+      return current;
+    }
+    final Segment next;
+    if ((long) (segments.size() + 1) * segmentBytes <= maxBytes) {
+      next = new Segment(ByteBuffer.allocateDirect(segmentBytes));
+    } else {
+      next = segments.pollFirst();
+      evict(next);
+    }
+    segments.addLast(next);
+    return next;
+  }
+
+  private void evict(Segment segment) {
+    for (Object key : segment.keys) {
+      final Slot slot = index.get(key);
+      if (slot != null && slot.segment == segment) {
+        removeSlot(key);
+      }
+    }
+    segment.reset();
+  }
+
+  private static final class Segment {
+    private final ByteBuffer buffer;
+    private final List<Object> keys = new ArrayList<>();
+    private int position;
+
+    Segment(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    int remaining() {
+      return buffer.capacity() - position;
+    }
+
+    int append(byte[] bytes) {
+      final int offset = position;
+      final ByteBuffer target = buffer.duplicate();
+      ((Buffer) target).position(offset);
+      target.put(bytes);
+      position += bytes.length;
+      return offset;
+    }
+
+    void reset() {
+      keys.clear();
+      position = 0;
+    }
+  }
+
+  private static final class Slot {
+    private final Segment segment;
+    private final int offset;
+    private final int length;
+
+    Slot(Segment segment, int offset, int length) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    byte[] read() {
+      final byte[] bytes = new byte[length];
+      final ByteBuffer source = segment.buffer.duplicate();
+      ((Buffer) source).position(offset);
+      source.get(bytes);
+      return bytes;
+    }
+  }
+
+}
@@ -20,6 +20,7 @@ import org.apache.ibatis.cache.CacheException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 永久缓存，用于一级缓存
@@ -33,10 +34,26 @@ public class PerpetualCache implements Cache {
   /**
    * 使用一个 hashmap 作为缓存
    */
-  private final Map<Object, Object> cache = new HashMap<>();
+  private final Map<Object, Object> cache;
+
+  private final LongAdder overwrites = new LongAdder();
 
   public PerpetualCache(String id) {
+    this(id, new HashMap<>());
+  }
+
+  /**
+   * Creates a cache that stores its entries in the given map.
+   *
+   * @param id
+   *          the cache id
+   * @param cache
+   *          the map that holds the entries, e.g. a concurrent map for a cache shared without synchronization
+   * @since 3.5.6
+   */
+  public PerpetualCache(String id, Map<Object, Object> cache) {
     this.id = id;
+    this.cache = cache;
   }
 
   @Override
@@ -51,7 +68,9 @@ public class PerpetualCache implements Cache {
 
   @Override
   public void putObject(Object key, Object value) {
-    cache.put(key, value);
+    if (cache.put(key, value) != null) {
+      overwrites.increment();
+    }
   }
 
   @Override
@@ -69,6 +88,16 @@ public class PerpetualCache implements Cache {
     cache.clear();
   }
 
+  /**
+   * Returns the number of entries that were replaced by a put of the same key.
+   *
+   * @return the number of overwrites
+   * @since 3.5.6
+   */
+  public long getOverwrites() {
+    return overwrites.sum();
+  }
+
   @Override
   public boolean equals(Object o) {
     if (getId() == null) {
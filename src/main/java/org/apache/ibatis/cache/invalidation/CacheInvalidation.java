@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An invalidation of 2nd level cache entries, broadcast to the other nodes once the transaction that caused it is
+ * committed. It either invalidates the whole cache of a namespace, or the entries read from some tables when the cache
+ * invalidation scope is {@link org.apache.ibatis.session.CacheInvalidationScope#TABLE}.
+ *
+ * @since 3.5.6
+ */
+public final class CacheInvalidation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String origin;
+  private final String cacheId;
+  private final String[] tables;
+
+  private CacheInvalidation(String origin, String cacheId, String[] tables) {
+    this.origin = origin;
+    this.cacheId = cacheId;
+    this.tables = tables;
+  }
+
+  /**
+   * Creates the invalidation of the whole cache of a namespace.
+   *
+   * @param origin
+   *          the id of the node that publishes the invalidation
+   * @param cacheId
+   *          the id of the cache
+   * @return the invalidation
+   */
+  public static CacheInvalidation ofNamespace(String origin, String cacheId) {
+    return new CacheInvalidation(origin, cacheId, null);
+  }
+
+  /**
+   * Creates the invalidation of the entries read from the given tables, in all the caches.
+   *
+   * @param origin
+   *          the id of the node that publishes the invalidation
+   * @param tables
+   *          the normalized names of the tables written to
+   * @return the invalidation
+   */
+  public static CacheInvalidation ofTables(String origin, String[] tables) {
+    return new CacheInvalidation(origin, null, tables);
+  }
+
+  public String getOrigin() {
+    return origin;
+  }
+
+  /**
+   * Returns the id of the invalidated cache.
+   *
+   * @return the cache id, or {@code null} if the invalidation is per table
+   */
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  /**
+   * Returns the tables whose entries are invalidated.
+   *
+   * @return the table names, or {@code null} if the invalidation is per namespace
+   */
+  public String[] getTables() {
+    return tables;
+  }
+
+  @Override
+  public String toString() {
+    return cacheId != null ? "namespace " + cacheId : "tables " + Arrays.toString(tables);
+  }
+
+}
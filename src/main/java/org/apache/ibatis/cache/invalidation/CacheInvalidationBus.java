@@ -0,0 +1,110 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.UUID;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Publishes the invalidations committed on this node, and applies the ones received from the other nodes to the caches
+ * of the configuration.
+ * <p>
+ * A namespace invalidation clears the cache of the namespace; a table invalidation bumps the versions of the tables,
+ * which invalidates the entries read from them in all the caches. The invalidations are published when a session
+ * commits, by the {@link org.apache.ibatis.cache.decorators.TransactionalCache} and the
+ * {@link org.apache.ibatis.cache.TransactionalCacheManager}, after they have been applied locally.
+ *
+ * @since 3.5.6
+ */
+public class CacheInvalidationBus implements CacheInvalidationTransport.Listener {
+
+  private static final Log log = LogFactory.getLog(CacheInvalidationBus.class);
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Configuration configuration;
+  private final CacheInvalidationTransport transport;
+
+  public CacheInvalidationBus(Configuration configuration, CacheInvalidationTransport transport) {
+    this.configuration = configuration;
+    this.transport = transport;
+    transport.subscribe(this);
+  }
+
+  /**
+   * Returns the id of this node, sent along with its invalidations.
+   *
+   * @return the node id
+   */
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public CacheInvalidationTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Broadcasts the invalidation of the whole cache of a namespace.
+   *
+   * @param cacheId
+   *          the id of the cache
+   */
+  public void publishNamespace(String cacheId) {
+    publish(CacheInvalidation.ofNamespace(nodeId, cacheId));
+  }
+
+  /**
+   * Broadcasts the invalidation of the entries read from the given tables.
+   *
+   * @param tables
+   *          the normalized names of the tables written to
+   */
+  public void publishTables(String[] tables) {
+    publish(CacheInvalidation.ofTables(nodeId, tables));
+  }
+
+  private void publish(CacheInvalidation invalidation) {
+    try {
+      transport.publish(invalidation);
+    } catch (RuntimeException e) {
+      // the transaction is already committed, the other nodes will see stale entries until they expire
+      log.warn("Could not publish the invalidation of " + invalidation + ". Cause: " + e);
+    }
+  }
+
+  @Override
+  public void onInvalidation(CacheInvalidation invalidation) {
+    if (nodeId.equals(invalidation.getOrigin())) {
+      return;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Applying the invalidation of " + invalidation + " received from node " + invalidation.getOrigin());
+    }
+    if (invalidation.getCacheId() != null) {
+      if (configuration.hasCache(invalidation.getCacheId())) {
+        Cache cache = configuration.getCache(invalidation.getCacheId());
+        cache.clear();
+      }
+    } else {
+      configuration.getTableVersions().invalidate(invalidation.getTables());
+    }
+  }
+
+}
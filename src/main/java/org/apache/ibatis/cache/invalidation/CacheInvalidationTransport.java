@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+/**
+ * Carries the cache invalidations between the nodes of a cluster, e.g. over a message broker or a multicast channel.
+ * <p>
+ * A transport is set with the {@code cacheInvalidationTransport} setting. It must deliver each published invalidation
+ * to the listeners of the other nodes; delivering it back to the publishing node is allowed, as the bus ignores its
+ * own invalidations. Implementations must be thread safe, and have a public no-arg constructor when they are set in
+ * the XML configuration.
+ *
+ * @since 3.5.6
+ * @see LoopbackTransport
+ */
+public interface CacheInvalidationTransport {
+
+  /**
+   * Sends an invalidation to the other nodes. It is called after the transaction that caused it is committed, so it
+   * should not block for long.
+   *
+   * @param invalidation
+   *          the invalidation
+   */
+  void publish(CacheInvalidation invalidation);
+
+  /**
+   * Registers the listener the invalidations received from the other nodes are delivered to. It is called once, when
+   * the transport is set in the configuration.
+   *
+   * @param listener
+   *          the listener
+   */
+  void subscribe(Listener listener);
+
+  @FunctionalInterface
+  interface Listener {
+
+    /**
+     * Applies an invalidation received from another node.
+     *
+     * @param invalidation
+     *          the invalidation
+     */
+    void onInvalidation(CacheInvalidation invalidation);
+
+  }
+
+}
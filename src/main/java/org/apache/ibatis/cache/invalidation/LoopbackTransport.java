@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the invalidations to the configurations of the same JVM subscribed to the same channel, synchronously.
+ * <p>
+ * It is meant for tests, where several configurations stand for the nodes of a cluster, and for applications that run
+ * several configurations on the same database.
+ *
+ * @since 3.5.6
+ */
+public class LoopbackTransport implements CacheInvalidationTransport {
+
+  private static final ConcurrentMap<String, List<Listener>> channels = new ConcurrentHashMap<>();
+
+  private final List<Listener> listeners;
+  private Listener listener;
+
+  public LoopbackTransport() {
+    this("default");
+  }
+
+  /**
+   * Creates a transport bound to a channel.
+   *
+   * @param channel
+   *          the name of the channel shared by the nodes
+   */
+  public LoopbackTransport(String channel) {
+    this.listeners = channels.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>());
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    for (Listener other : listeners) {
+      if (other != listener) {
+        other.onInvalidation(invalidation);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Listener listener) {
+    close();
+    this.listener = listener;
+    listeners.add(listener);
+  }
+
+  /**
+   * Stops delivering invalidations to the listener of this transport.
+   */
+  public void close() {
+    if (listener != null) {
+      listeners.remove(listener);
+      listener = null;
+    }
+  }
+
+}
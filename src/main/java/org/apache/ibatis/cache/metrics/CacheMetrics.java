@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+/**
+ * The metrics of a 2nd level cache, collected since the cache was built.
+ * <p>
+ * The caches collect metrics when the {@code cacheMetricsEnabled} setting is on, in which case the caches returned by
+ * {@link org.apache.ibatis.session.Configuration#getCache(String)} implement this interface. The counters are updated
+ * without locking, so a set of values read at once may be slightly inconsistent.
+ *
+ * @since 3.5.6
+ * @see CacheMetricsReporter
+ */
+public interface CacheMetrics {
+
+  /**
+   * Returns the id of the cache, i.e. its namespace.
+   *
+   * @return the cache id
+   */
+  String getId();
+
+  /**
+   * Returns the number of lookups that found an entry.
+   *
+   * @return the number of hits
+   */
+  long getHits();
+
+  /**
+   * Returns the number of lookups that found no entry.
+   *
+   * @return the number of misses
+   */
+  long getMisses();
+
+  /**
+   * Returns the number of entries put in the cache.
+   *
+   * @return the number of puts
+   */
+  long getPuts();
+
+  /**
+   * Returns the estimated number of entries dropped by the cache itself, i.e. evicted or expired. It is derived from the
+   * entries put that are not cached anymore, and were neither replaced by a put of the same key, removed nor dropped by
+   * an invalidation.
+   *
+   * @return the estimated number of evictions
+   */
+  long getEvictions();
+
+  /**
+   * Returns the number of times the whole cache was cleared, e.g. by a statement that flushes the cache.
+   *
+   * @return the number of invalidations
+   */
+  long getInvalidations();
+
+  /**
+   * Returns the number of queries executed on a miss to load an entry.
+   *
+   * @return the number of loads
+   */
+  long getLoads();
+
+  /**
+   * Returns the total time spent in the queries executed on a miss.
+   *
+   * @return the total load time in nanoseconds
+   */
+  long getTotalLoadTime();
+
+  /**
+   * Returns the number of entries of the cache.
+   *
+   * @return the entry count
+   */
+  int getSize();
+
+  /**
+   * Returns the estimated size of the entries: their total weight when the cache is bounded by weight, or the bytes they
+   * use in an off heap cache.
+   *
+   * @return the estimated size, or {@code -1} if the cache does not estimate the size of its entries
+   */
+  long getEstimatedSize();
+
+  /**
+   * Returns the ratio of the lookups that found an entry.
+   *
+   * @return the hit ratio, or {@code 0} if the cache was never looked up
+   */
+  default double getHitRatio() {
+    long requests = getHits() + getMisses();
+    return requests == 0 ? 0 : (double) getHits() / requests;
+  }
+
+  /**
+   * Returns the average time spent in the queries executed on a miss. Compared to the time saved by the hits, it tells
+   * whether caching a namespace pays off.
+   *
+   * @return the average load time in nanoseconds, or {@code 0} if no entry was loaded
+   */
+  default double getAverageLoadTime() {
+    long loads = getLoads();
+    return loads == 0 ? 0 : (double) getTotalLoadTime() / loads;
+  }
+
+}
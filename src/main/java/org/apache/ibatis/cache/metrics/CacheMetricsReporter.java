@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Publishes the metrics of the 2nd level caches, e.g. to a monitoring system.
+ * <p>
+ * A reporter is set with the {@code cacheMetricsReporter} setting, and is called once for each cache of the
+ * configuration when the cache is added. The metrics are live: a reporter reads them whenever it publishes them.
+ * Implementations must have a public no-arg constructor when they are set in the XML configuration.
+ *
+ * @since 3.5.6
+ * @see JmxCacheMetricsReporter
+ */
+public interface CacheMetricsReporter {
+
+  /**
+   * Registers the metrics of a cache.
+   *
+   * @param configuration
+   *          the configuration the cache belongs to
+   * @param metrics
+   *          the metrics of the cache
+   */
+  void register(Configuration configuration, CacheMetrics metrics);
+
+}
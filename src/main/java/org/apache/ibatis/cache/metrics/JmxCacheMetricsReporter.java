@@ -0,0 +1,179 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Exposes the metrics of each cache as an MXBean of the platform MBean server, named
+ * {@code org.apache.ibatis:type=CacheMetrics,configuration=<configuration>,name=<cache id>}.
+ * <p>
+ * The configuration key tells apart the caches of the configurations living in the same JVM. It is the id of the
+ * environment when it is known, followed by the identity hash code of the configuration.
+ * <p>
+ * The MBeans only hold weak references to the metrics, so a registered cache and its entries can be garbage collected
+ * once its configuration is discarded, after which its MBean reports zeros. The MBeans themselves stay registered
+ * until {@link #unregisterAll()} is called, which the owner of the configuration must do when discarding it.
+ *
+ * @since 3.5.6
+ */
+public class JmxCacheMetricsReporter implements CacheMetricsReporter {
+
+  private final MBeanServer server;
+  private final List<ObjectName> names = new CopyOnWriteArrayList<>();
+
+  public JmxCacheMetricsReporter() {
+    this(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  public JmxCacheMetricsReporter(MBeanServer server) {
+    this.server = server;
+  }
+
+  @Override
+  public void register(Configuration configuration, CacheMetrics metrics) {
+    try {
+      ObjectName name = objectName(configuration, metrics.getId());
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(new StandardMBean(new WeakCacheMetrics(metrics), CacheMetrics.class, true), name);
+      names.add(name);
+    } catch (JMException e) {
+      throw new CacheException("Error registering the metrics of cache " + metrics.getId() + ". Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Unregisters all the MBeans registered by this reporter. It must be called when the configuration is discarded,
+   * e.g. when the application is undeployed, as the MBean server keeps the MBeans until then.
+   */
+  public void unregisterAll() {
+    for (ObjectName name : names) {
+      try {
+        if (server.isRegistered(name)) {
+          server.unregisterMBean(name);
+        }
+      } catch (JMException e) {
+        throw new CacheException("Error unregistering " + name + ". Cause: " + e, e);
+      }
+    }
+    names.clear();
+  }
+
+  /**
+   * Returns the names of the MBeans registered by this reporter.
+   *
+   * @return the object names
+   */
+  public List<ObjectName> getObjectNames() {
+    return names;
+  }
+
+  protected ObjectName objectName(Configuration configuration, String cacheId) throws JMException {
+    String key = Integer.toHexString(System.identityHashCode(configuration));
+    if (configuration.getEnvironment() != null) {
+      key = configuration.getEnvironment().getId() + "@" + key;
+    }
+    return new ObjectName("org.apache.ibatis:type=CacheMetrics,configuration=" + ObjectName.quote(key)
+        + ",name=" + ObjectName.quote(cacheId));
+  }
+
+  /**
+   * A view of the metrics of a cache that does not keep the cache alive.
+   */
+  private static final class WeakCacheMetrics implements CacheMetrics {
+
+    private final String id;
+    private final WeakReference<CacheMetrics> metrics;
+
+    WeakCacheMetrics(CacheMetrics metrics) {
+      this.id = metrics.getId();
+      this.metrics = new WeakReference<>(metrics);
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public long getHits() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getHits();
+    }
+
+    @Override
+    public long getMisses() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getMisses();
+    }
+
+    @Override
+    public long getPuts() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getPuts();
+    }
+
+    @Override
+    public long getEvictions() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getEvictions();
+    }
+
+    @Override
+    public long getInvalidations() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getInvalidations();
+    }
+
+    @Override
+    public long getLoads() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getLoads();
+    }
+
+    @Override
+    public long getTotalLoadTime() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getTotalLoadTime();
+    }
+
+    @Override
+    public int getSize() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? 0 : delegate.getSize();
+    }
+
+    @Override
+    public long getEstimatedSize() {
+      final CacheMetrics delegate = metrics.get();
+      return delegate == null ? -1 : delegate.getEstimatedSize();
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+/**
+ * Computes the weight of the cached objects, to bound a cache by its total weight rather than by its number of entries.
+ * <p>
+ * Implementations must be thread safe and have a public no-arg constructor.
+ *
+ * @since 3.5.6
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+public interface CacheWeigher {
+
+  /**
+   * Returns the weight of a cached object.
+   *
+   * @param value
+   *          the cached object, not {@code null}
+   * @return the weight, zero or more
+   */
+  long weigh(Object value);
+
+}
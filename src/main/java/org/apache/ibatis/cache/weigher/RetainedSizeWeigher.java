@@ -0,0 +1,180 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Weighs the cached objects by an estimate of the heap memory they retain, in bytes.
+ * <p>
+ * The object graph is walked and the size of each object is estimated for a 64-bit JVM with compressed references.
+ * The usual JDK types, e.g. strings, numbers, dates and collections, are estimated from their contents, and the
+ * fields of the other objects are read by reflection. Objects shared within a cached value are counted once, but
+ * objects shared between cached values are counted in each of them. Byte arrays, e.g. the entries of a read/write
+ * cache, weigh their length.
+ *
+ * @since 3.5.6
+ */
+public class RetainedSizeWeigher implements CacheWeigher {
+
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  /**
+   * The layout of the weighed classes. A {@link ClassValue} lets the classes be unloaded with their class loader.
+   */
+  private static final ClassValue<ClassLayout> layouts = new ClassValue<ClassLayout>() {
+    @Override
+    protected ClassLayout computeValue(Class<?> type) {
+      return new ClassLayout(type);
+    }
+  };
+
+  @Override
+  public long weigh(Object value) {
+    final Map<Object, Object> visited = new IdentityHashMap<>();
+    final Deque<Object> pending = new ArrayDeque<>();
+    pending.push(value);
+    long size = 0;
+    while (!pending.isEmpty()) {
+      final Object object = pending.pop();
+      if (object == null || object instanceof Class || object instanceof Enum || visited.put(object, object) != null) {
+        continue;
+      }
+      size += sizeOf(object, pending);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the size of an object, excluding the objects it references, which are added to the pending objects.
+   */
+  private static long sizeOf(Object object, Deque<Object> pending) {
+    final Class<?> type = object.getClass();
+    if (type == String.class) {
+      return align(HEADER + 12) + align(ARRAY_HEADER + 2L * ((String) object).length());
+    } else if (type == byte[].class) {
+      return ((byte[]) object).length;
+    } else if (type == Integer.class || type == Short.class || type == Byte.class || type == Character.class
+        || type == Boolean.class || type == Float.class) {
+      return 16;
+    } else if (type == Long.class || type == Double.class) {
+      return 24;
+    } else if (type == BigInteger.class) {
+      return align(HEADER + 28) + align(ARRAY_HEADER + ((BigInteger) object).bitLength() / 8 + 4);
+    } else if (type == BigDecimal.class) {
+      pending.push(((BigDecimal) object).unscaledValue());
+      return align(HEADER + 28);
+    } else if (type.isArray()) {
+      final int length = Array.getLength(object);
+      final Class<?> componentType = type.getComponentType();
+      if (!componentType.isPrimitive()) {
+        for (int i = 0; i < length; i++) {
+          pending.push(Array.get(object, i));
+        }
+      }
+      return align(ARRAY_HEADER + (long) length * fieldSize(componentType));
+    } else if (object instanceof Collection) {
+      final Collection<?> collection = (Collection<?>) object;
+      for (Object element : collection) {
+        pending.push(element);
+      }
+      // the list or the table, and the nodes of the linked and hashed collections
+      return object instanceof List && object instanceof RandomAccess
+          ? align(HEADER + 12) + align(ARRAY_HEADER + (long) collection.size() * REFERENCE)
+          : align(HEADER + 36) + collection.size() * 40L;
+    } else if (object instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) object;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        pending.push(entry.getKey());
+        pending.push(entry.getValue());
+      }
+      return align(HEADER + 36) + map.size() * 40L;
+    }
+    final ClassLayout layout = layouts.get(type);
+    for (Field field : layout.references) {
+      try {
+        pending.push(field.get(object));
+      } catch (IllegalAccessException e) {
+        // not accessible, count the shallow size only
+      }
+    }
+    return layout.shallowSize;
+  }
+
+  private static int fieldSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+  private static final class ClassLayout {
+    private final long shallowSize;
+    private final Field[] references;
+
+    ClassLayout(Class<?> type) {
+      long size = HEADER;
+      final List<Field> fields = new ArrayList<>();
+      // the fields of the JDK classes cannot be read on recent JVMs, the objects they reference are not counted
+      final boolean readable = !type.getName().startsWith("java.") && Reflector.canControlMemberAccessible();
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          size += fieldSize(field.getType());
+          if (readable && !field.getType().isPrimitive()) {
+            try {
+              field.setAccessible(true);
+              fields.add(field);
+            } catch (RuntimeException e) {
+              // not accessible
+            }
+          }
+        }
+      }
+      this.shallowSize = align(size);
+      this.references = fields.toArray(new Field[0]);
+    }
+  }
+
+}
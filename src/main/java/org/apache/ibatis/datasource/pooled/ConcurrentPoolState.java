@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link PoolState} of a {@link ConcurrentPooledDataSource}. It reports the same statistics, but they are
+ * collected with {@link LongAdder}s instead of under the monitor of the state.
+ */
+public class ConcurrentPoolState extends PoolState {
+
+  private final ConnectionBag bag;
+
+  final LongAdder requestCountAdder = new LongAdder();
+  final LongAdder accumulatedRequestTimeAdder = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeAdder = new LongAdder();
+  final LongAdder claimedOverdueConnectionCountAdder = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeOfOverdueConnectionsAdder = new LongAdder();
+  final LongAdder accumulatedWaitTimeAdder = new LongAdder();
+  final LongAdder hadToWaitCountAdder = new LongAdder();
+  final LongAdder badConnectionCountAdder = new LongAdder();
+
+  ConcurrentPoolState(ConcurrentPooledDataSource dataSource, ConnectionBag bag) {
+    super(dataSource);
+    this.bag = bag;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return requestCountAdder.sum();
+  }
+
+  @Override
+  public long getAverageRequestTime() {
+    long requests = requestCountAdder.sum();
+    return requests == 0 ? 0 : accumulatedRequestTimeAdder.sum() / requests;
+  }
+
+  @Override
+  public long getAverageWaitTime() {
+    long waits = hadToWaitCountAdder.sum();
+    return waits == 0 ? 0 : accumulatedWaitTimeAdder.sum() / waits;
+  }
+
+  @Override
+  public long getHadToWaitCount() {
+    return hadToWaitCountAdder.sum();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return badConnectionCountAdder.sum();
+  }
+
+  @Override
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCountAdder.sum();
+  }
+
+  @Override
+  public long getAverageOverdueCheckoutTime() {
+    long claimed = claimedOverdueConnectionCountAdder.sum();
+    return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnectionsAdder.sum() / claimed;
+  }
+
+  @Override
+  public long getAverageCheckoutTime() {
+    long requests = requestCountAdder.sum();
+    return requests == 0 ? 0 : accumulatedCheckoutTimeAdder.sum() / requests;
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return bag.getCount(ConnectionBag.Entry.STATE_NOT_IN_USE);
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return bag.getCount(ConnectionBag.Entry.STATE_IN_USE);
+  }
+
+}
@@ -0,0 +1,333 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.apache.ibatis.datasource.pooled.ConnectionBag.Entry;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A thread-safe database connection pool that does not serialize checkouts on a single monitor.
+ * <p>
+ * It accepts the same configuration as {@link PooledDataSource} and reports the same {@link PoolState} statistics,
+ * but keeps its connections in a {@link ConnectionBag}: each connection carries its own compare-and-set state, a
+ * thread gets back the connections it used last first, and a thread returning a connection hands it directly to a
+ * waiting thread. This scales much better when many threads borrow and return connections at the same time.
+ *
+ * @since 3.5.6
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  private final ConnectionBag bag = new ConnectionBag();
+  private final ConcurrentPoolState state = new ConcurrentPoolState(this, bag);
+
+  private volatile int expectedConnectionTypeCode;
+
+  public ConcurrentPooledDataSource() {
+    super();
+  }
+
+  public ConcurrentPooledDataSource(UnpooledDataSource dataSource) {
+    super(dataSource);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    super(driver, url, username, password);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    super(driver, url, driverProperties);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username,
+      String password) {
+    super(driverClassLoader, driver, url, username, password);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url,
+      Properties driverProperties) {
+    super(driverClassLoader, driver, url, driverProperties);
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(getUsername(), getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  @Override
+  public PoolState getPoolState() {
+    return state;
+  }
+
+  /**
+   * Closes all active and idle connections in the pool.
+   */
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(getUrl(), getUsername(), getPassword());
+    for (Entry entry : bag.values()) {
+      if (bag.remove(entry)) {
+        PooledConnection handle = entry.getHandle();
+        if (handle != null) {
+          handle.invalidate();
+        }
+        closeQuietly(entry);
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    Entry entry = ((EntryConnection) conn).entry;
+    if (!entry.compareAndSetHandle(conn, null)) {
+      // the connection was claimed as overdue or the pool was closed in the meantime
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCountAdder.increment();
+      return;
+    }
+    state.accumulatedCheckoutTimeAdder.add(conn.getCheckoutTime());
+    entry.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+    if (!conn.isValid()) {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCountAdder.increment();
+      if (bag.remove(entry)) {
+        closeQuietly(entry);
+      }
+      return;
+    }
+    conn.invalidate();
+    try {
+      if (!entry.getRealConnection().getAutoCommit()) {
+        entry.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      bag.remove(entry);
+      closeQuietly(entry);
+      throw e;
+    }
+    if (conn.getConnectionTypeCode() == expectedConnectionTypeCode
+        && (bag.getWaitingThreadCount() > 0 || state.getIdleConnectionCount() < poolMaximumIdleConnections)) {
+      bag.requite(entry);
+      if (log.isDebugEnabled()) {
+        log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
+      }
+    } else if (bag.remove(entry)) {
+      entry.getRealConnection().close();
+      if (log.isDebugEnabled()) {
+        log.debug("Closed connection " + conn.getRealHashCode() + ".");
+      }
+    }
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    boolean countedWait = false;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
+
+    while (true) {
+      PooledConnection conn = null;
+      Entry entry = bag.borrow();
+      if (entry != null) {
+        conn = checkout(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (bag.reserve(poolMaximumActiveConnections)) {
+        Connection realConnection;
+        try {
+          realConnection = getUnpooledDataSource().getConnection();
+        } catch (SQLException | RuntimeException e) {
+          bag.cancelReservation();
+          throw e;
+        }
+        entry = new Entry(realConnection);
+        conn = checkout(entry);
+        bag.add(entry);
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        conn = claimOverdueConnection();
+        if (conn == null) {
+          if (!countedWait) {
+            state.hadToWaitCountAdder.increment();
+            countedWait = true;
+          }
+          if (log.isDebugEnabled()) {
+            log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+          }
+          long wt = System.currentTimeMillis();
+          try {
+            entry = bag.poll(poolTimeToWait);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } finally {
+            state.accumulatedWaitTimeAdder.add(System.currentTimeMillis() - wt);
+          }
+          if (entry != null) {
+            conn = checkout(entry);
+          }
+        }
+      }
+
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          if (!conn.getRealConnection().getAutoCommit()) {
+            conn.getRealConnection().rollback();
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          state.requestCountAdder.increment();
+          state.accumulatedRequestTimeAdder.add(System.currentTimeMillis() - t);
+          return conn;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+        }
+        state.badConnectionCountAdder.increment();
+        localBadConnectionCount++;
+        Entry badEntry = ((EntryConnection) conn).entry;
+        if (bag.remove(badEntry)) {
+          closeQuietly(badEntry);
+        }
+        if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+          if (log.isDebugEnabled()) {
+            log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+          }
+          throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+        }
+      }
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+    throw new SQLException("ConcurrentPooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+  }
+
+  /**
+   * Creates the handle of a new checkout of an entry that the current thread has just borrowed.
+   */
+  private PooledConnection checkout(Entry entry) {
+    PooledConnection conn = new EntryConnection(entry, this);
+    conn.setCreatedTimestamp(entry.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(entry.getLastUsedTimestamp());
+    conn.setCheckoutTimestamp(System.currentTimeMillis());
+    entry.setHandle(conn);
+    return conn;
+  }
+
+  /**
+   * Takes over the connection that has been checked out for the longest time, if that time exceeds
+   * <code>poolMaximumCheckoutTime</code>.
+   */
+  private PooledConnection claimOverdueConnection() {
+    Entry oldestEntry = null;
+    PooledConnection oldestHandle = null;
+    for (Entry entry : bag.values()) {
+      PooledConnection handle = entry.getHandle();
+      if (handle != null && entry.getState() == Entry.STATE_IN_USE
+          && (oldestHandle == null || handle.getCheckoutTimestamp() < oldestHandle.getCheckoutTimestamp())) {
+        oldestEntry = entry;
+        oldestHandle = handle;
+      }
+    }
+    if (oldestHandle == null) {
+      return null;
+    }
+    long longestCheckoutTime = oldestHandle.getCheckoutTime();
+    if (longestCheckoutTime <= poolMaximumCheckoutTime) {
+      return null;
+    }
+    PooledConnection conn = new EntryConnection(oldestEntry, this);
+    conn.setCreatedTimestamp(oldestEntry.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestHandle.getLastUsedTimestamp());
+    conn.setCheckoutTimestamp(System.currentTimeMillis());
+    if (!oldestEntry.compareAndSetHandle(oldestHandle, conn)) {
+      // returned or claimed by another thread in the meantime
+      return null;
+    }
+    oldestHandle.invalidate();
+    state.claimedOverdueConnectionCountAdder.increment();
+    state.accumulatedCheckoutTimeOfOverdueConnectionsAdder.add(longestCheckoutTime);
+    state.accumulatedCheckoutTimeAdder.add(longestCheckoutTime);
+    try {
+      if (!oldestEntry.getRealConnection().getAutoCommit()) {
+        oldestEntry.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      // the connection is checked (and discarded if bad) like any other one before being handed out
+      log.debug("Bad connection. Could not roll back");
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  private void closeQuietly(Entry entry) {
+    try {
+      Connection realConn = entry.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  /**
+   * The handle given to the borrower of an {@link Entry}.
+   */
+  private static final class EntryConnection extends PooledConnection {
+
+    private final Entry entry;
+
+    EntryConnection(Entry entry, ConcurrentPooledDataSource dataSource) {
+      super(entry.getRealConnection(), dataSource);
+      this.entry = entry;
+    }
+  }
+
+}
@@ -0,0 +1,269 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free container of the physical connections owned by a {@link ConcurrentPooledDataSource}.
+ * <p>
+ * Each connection is held by an {@link Entry} whose state is changed with compare-and-set only, so borrowing and
+ * returning never take a shared lock. A borrower first looks at the entries recently returned by its own thread, then
+ * scans the shared list, and finally waits on a hand-off queue that returning threads feed directly.
+ */
+class ConnectionBag {
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+  private final CopyOnWriteArrayList<Entry> sharedList = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<Entry>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+  private final SynchronousQueue<Entry> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicInteger reserved = new AtomicInteger();
+
+  /**
+   * Tries to borrow an idle entry without blocking.
+   *
+   * @return an entry that is now {@link Entry#STATE_IN_USE}, or <code>null</code> if none is idle
+   */
+  Entry borrow() {
+    List<WeakReference<Entry>> list = threadList.get();
+    for (int i = list.size() - 1; i >= 0; i--) {
+      Entry entry = list.remove(i).get();
+      if (entry != null && entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+        return entry;
+      }
+    }
+    for (Entry entry : sharedList) {
+      if (entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Waits for an entry returned by another thread.
+   *
+   * @param timeout
+   *          the maximum time to wait, in milliseconds
+   * @return an entry that is now {@link Entry#STATE_IN_USE}, or <code>null</code> if the time elapsed
+   * @throws InterruptedException
+   *           if the current thread is interrupted while waiting
+   */
+  Entry poll(long timeout) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      // an entry may have been returned between the caller's last scan and the registration as a waiter
+      Entry entry = borrow();
+      if (entry != null) {
+        return entry;
+      }
+      long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+      while (remaining > 0) {
+        long start = System.nanoTime();
+        entry = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (entry == null) {
+          return null;
+        }
+        if (entry.compareAndSetState(Entry.STATE_NOT_IN_USE, Entry.STATE_IN_USE)) {
+          return entry;
+        }
+        remaining -= System.nanoTime() - start;
+      }
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Makes a borrowed entry available again, handing it off directly to a waiting thread if there is one.
+   *
+   * @param entry
+   *          the entry to return
+   */
+  void requite(Entry entry) {
+    entry.setState(Entry.STATE_NOT_IN_USE);
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (entry.getState() != Entry.STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+        return;
+      } else if ((i & 0xff) == 0xff) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+      } else {
+        Thread.yield();
+      }
+    }
+    List<WeakReference<Entry>> list = threadList.get();
+    if (list.size() < MAX_THREAD_LOCAL_ENTRIES) {
+      list.add(new WeakReference<>(entry));
+    }
+  }
+
+  /**
+   * Reserves room for a new connection.
+   *
+   * @param maximum
+   *          the maximum number of connections the bag may hold
+   * @return true if the caller may open a connection and {@link #add(Entry)} it
+   */
+  boolean reserve(int maximum) {
+    for (;;) {
+      int current = reserved.get();
+      if (current >= maximum) {
+        return false;
+      }
+      if (reserved.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back a reservation that was not used because the connection could not be opened.
+   */
+  void cancelReservation() {
+    reserved.decrementAndGet();
+  }
+
+  /**
+   * Adds a new entry, created by the caller in the {@link Entry#STATE_IN_USE} state.
+   *
+   * @param entry
+   *          the new entry
+   */
+  void add(Entry entry) {
+    sharedList.add(entry);
+  }
+
+  /**
+   * Removes an entry from the bag and frees its reservation.
+   *
+   * @param entry
+   *          the entry to remove
+   * @return true if the entry was removed by this call
+   */
+  boolean remove(Entry entry) {
+    if (entry.getAndSetState(Entry.STATE_REMOVED) == Entry.STATE_REMOVED) {
+      return false;
+    }
+    sharedList.remove(entry);
+    reserved.decrementAndGet();
+    return true;
+  }
+
+  List<Entry> values() {
+    return new ArrayList<>(sharedList);
+  }
+
+  int getCount(int state) {
+    int count = 0;
+    for (Entry entry : sharedList) {
+      if (entry.getState() == state) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  int getWaitingThreadCount() {
+    return waiters.get();
+  }
+
+  /**
+   * A physical connection of the pool. The {@link PooledConnection} handed out to the current borrower is replaced on
+   * every checkout, so a handle kept after {@link Connection#close()} can not reach the connection anymore.
+   */
+  static final class Entry {
+
+    static final int STATE_NOT_IN_USE = 0;
+    static final int STATE_IN_USE = 1;
+    static final int STATE_REMOVED = -1;
+
+    private static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER = AtomicIntegerFieldUpdater
+        .newUpdater(Entry.class, "state");
+    private static final AtomicReferenceFieldUpdater<Entry, PooledConnection> HANDLE_UPDATER = AtomicReferenceFieldUpdater
+        .newUpdater(Entry.class, PooledConnection.class, "handle");
+
+    private final Connection realConnection;
+    private final long createdTimestamp;
+    private volatile long lastUsedTimestamp;
+    private volatile int state;
+    private volatile PooledConnection handle;
+
+    Entry(Connection realConnection) {
+      this.realConnection = realConnection;
+      this.createdTimestamp = System.currentTimeMillis();
+      this.lastUsedTimestamp = createdTimestamp;
+      this.state = STATE_IN_USE;
+    }
+
+    Connection getRealConnection() {
+      return realConnection;
+    }
+
+    long getCreatedTimestamp() {
+      return createdTimestamp;
+    }
+
+    long getLastUsedTimestamp() {
+      return lastUsedTimestamp;
+    }
+
+    void setLastUsedTimestamp(long lastUsedTimestamp) {
+      this.lastUsedTimestamp = lastUsedTimestamp;
+    }
+
+    int getState() {
+      return state;
+    }
+
+    void setState(int state) {
+      this.state = state;
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+      return STATE_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    int getAndSetState(int state) {
+      return STATE_UPDATER.getAndSet(this, state);
+    }
+
+    PooledConnection getHandle() {
+      return handle;
+    }
+
+    void setHandle(PooledConnection handle) {
+      this.handle = handle;
+    }
+
+    boolean compareAndSetHandle(PooledConnection expect, PooledConnection update) {
+      return HANDLE_UPDATER.compareAndSet(this, expect, update);
+    }
+  }
+
+}
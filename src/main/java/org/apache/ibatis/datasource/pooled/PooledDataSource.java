@@ -368,7 +368,11 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
-  private int assembleConnectionTypeCode(String url, String username, String password) {
+  UnpooledDataSource getUnpooledDataSource() {
+    return dataSource;
+  }
+
+  int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.impl.BoundedLocalCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementUtil;
@@ -75,13 +76,23 @@ public abstract class BaseExecutor implements Executor {
     // 这是干啥的？
     this.deferredLoads = new ConcurrentLinkedQueue<>();
     // 本地
-    this.localCache = new PerpetualCache("LocalCache");
+    this.localCache = newLocalCache(configuration);
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
     this.closed = false;
     this.configuration = configuration;
     this.wrapper = this;
   }
 
+  private static PerpetualCache newLocalCache(Configuration configuration) {
+    // ResultLoaderMap 的 ClosedExecutor 不带配置
+    Integer maxEntries = configuration == null ? null : configuration.getLocalCacheSize();
+    Integer maxRows = configuration == null ? null : configuration.getLocalCacheMaxRows();
+    if (maxEntries == null && maxRows == null) {
+      return new PerpetualCache("LocalCache");
+    }
+    return new BoundedLocalCache("LocalCache", maxEntries == null ? 0 : maxEntries, maxRows == null ? 0 : maxRows);
+  }
+
   @Override
   public Transaction getTransaction() {
     if (closed) {
@@ -185,6 +196,9 @@ public abstract class BaseExecutor implements Executor {
       if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
         // issue #482
         clearLocalCache();
+      } else if (localCache instanceof BoundedLocalCache) {
+        // 占位符与延迟加载都已完成，此时才能淘汰
+        ((BoundedLocalCache) localCache).trim(localOutputParameterCache::removeObject);
       }
     }
     return list;
@@ -224,12 +238,13 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    // statement id, offset, limit, sql, parameters and environment id
+    CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
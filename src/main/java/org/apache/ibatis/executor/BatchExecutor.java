@@ -46,9 +46,19 @@ public class BatchExecutor extends BaseExecutor {
   private final List<BatchResult> batchResultList = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
+  private final int maxBatchSize;
+  private final int maxTotalBatchSize;
+  private int pendingCount;
+  private int executedIndex;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.maxBatchSize = limitOf(configuration.getMaxBatchSize());
+    this.maxTotalBatchSize = limitOf(configuration.getMaxTotalBatchSize());
+  }
+
+  private static int limitOf(Integer size) {
+    return size == null || size <= 0 ? Integer.MAX_VALUE : size;
   }
 
   @Override
@@ -75,9 +85,68 @@ public class BatchExecutor extends BaseExecutor {
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
     }
     handler.batch(stmt);
+    pendingCount++;
+    if (pendingCount >= maxTotalBatchSize
+        || batchResultList.get(batchResultList.size() - 1).getParameterObjects().size() >= maxBatchSize) {
+      executePendingBatches();
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  /**
+   * Executes the batches added since the last execution, in order, without ending the batch.
+   * The parameter objects that have been sent are released and the update counts are appended to their
+   * {@link BatchResult}. All the statements but the current one are closed, as they will not be reused.
+   */
+  private void executePendingBatches() throws SQLException {
+    int last = statementList.size() - 1;
+    for (int i = executedIndex; i <= last; i++) {
+      Statement stmt = statementList.get(i);
+      BatchResult batchResult = batchResultList.get(i);
+      if (!batchResult.getParameterObjects().isEmpty()) {
+        executeBatch(i, stmt, batchResult);
+        batchResult.getParameterObjects().clear();
+      }
+      if (i < last) {
+        closeStatement(stmt);
+        statementList.set(i, null);
+      }
+    }
+    executedIndex = last;
+    pendingCount = 0;
+  }
+
+  private void executeBatch(int i, Statement stmt, BatchResult batchResult) throws SQLException {
+    applyTransactionTimeout(stmt);
+    try {
+      batchResult.addUpdateCounts(stmt.executeBatch());
+      MappedStatement ms = batchResult.getMappedStatement();
+      List<Object> parameterObjects = batchResult.getParameterObjects();
+      KeyGenerator keyGenerator = ms.getKeyGenerator();
+      if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+        Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+        jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+      } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+        for (Object parameter : parameterObjects) {
+          keyGenerator.processAfter(this, ms, stmt, parameter);
+        }
+      }
+    } catch (BatchUpdateException e) {
+      StringBuilder message = new StringBuilder();
+      message.append(batchResult.getMappedStatement().getId())
+          .append(" (batch index #")
+          .append(i + 1)
+          .append(")")
+          .append(" failed.");
+      if (i > 0) {
+        message.append(" ")
+            .append(i)
+            .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+      }
+      throw new BatchExecutorException(message.toString(), e, new ArrayList<>(batchResultList.subList(0, i)), batchResult);
+    }
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -117,37 +186,13 @@ public class BatchExecutor extends BaseExecutor {
       }
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
-        try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
-            }
-          }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
-        } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+        // the batch may have been executed entirely by executePendingBatches()
+        if (stmt != null && !batchResult.getParameterObjects().isEmpty()) {
+          executeBatch(i, stmt, batchResult);
         }
+        // Close statement to close cursor #1109
+        closeStatement(stmt);
         results.add(batchResult);
       }
       return results;
@@ -158,6 +203,8 @@ public class BatchExecutor extends BaseExecutor {
       currentSql = null;
       statementList.clear();
       batchResultList.clear();
+      pendingCount = 0;
+      executedIndex = 0;
     }
   }
 
@@ -30,6 +30,7 @@ public class BatchResult {
   private final List<Object> parameterObjects;
 
   private int[] updateCounts;
+  private List<int[]> updateCountParts;
 
   public BatchResult(MappedStatement mappedStatement, String sql) {
     super();
@@ -61,11 +62,54 @@ public class BatchResult {
   }
 
   public int[] getUpdateCounts() {
+    if (updateCountParts != null) {
+      mergeUpdateCountParts();
+    }
     return updateCounts;
   }
 
   public void setUpdateCounts(int[] updateCounts) {
     this.updateCounts = updateCounts;
+    this.updateCountParts = null;
+  }
+
+  /**
+   * Appends the update counts of a batch execution to the update counts of this result.
+   * Used when a batch is executed in several parts, see {@link org.apache.ibatis.session.Configuration#getMaxBatchSize()}.
+   *
+   * @param updateCounts
+   *          the update counts returned by {@link java.sql.Statement#executeBatch()}
+   * @since 3.5.6
+   */
+  public void addUpdateCounts(int[] updateCounts) {
+    if (this.updateCounts == null && updateCountParts == null) {
+      this.updateCounts = updateCounts;
+    } else {
+      // the parts are only concatenated once, when the update counts are read
+      if (updateCountParts == null) {
+        updateCountParts = new ArrayList<>();
+      }
+      updateCountParts.add(updateCounts);
+    }
+  }
+
+  private void mergeUpdateCountParts() {
+    int length = updateCounts == null ? 0 : updateCounts.length;
+    for (int[] part : updateCountParts) {
+      length += part.length;
+    }
+    int[] counts = new int[length];
+    int offset = 0;
+    if (updateCounts != null) {
+      System.arraycopy(updateCounts, 0, counts, 0, updateCounts.length);
+      offset = updateCounts.length;
+    }
+    for (int[] part : updateCountParts) {
+      System.arraycopy(part, 0, counts, offset, part.length);
+      offset += part.length;
+    }
+    updateCounts = counts;
+    updateCountParts = null;
   }
 
   public void addParameterObject(Object parameterObject) {
@@ -20,7 +20,13 @@ import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.SingleFlight;
+import org.apache.ibatis.cache.TableNames;
+import org.apache.ibatis.cache.TableVersions;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -48,10 +54,76 @@ public class CachingExecutor implements Executor {
   /**
    * 事务缓存管理器
    */
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
+
+  private final TableVersions tableVersions;
+
+  private final SingleFlight singleFlight;
+
+  private final long singleFlightTimeout;
+
+  /**
+   * Whether this session has executed updates since its last commit or rollback, in which case the results of its
+   * queries are not shared with other sessions.
+   */
+  private boolean dirty;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * Creates a caching executor that invalidates the cache entries per table.
+   *
+   * @param delegate
+   *          the executor of the statements
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache of a namespace is invalidated on writes
+   * @since 3.5.6
+   */
+  public CachingExecutor(Executor delegate, TableVersions tableVersions) {
+    this(delegate, tableVersions, null, 0);
+  }
+
+  /**
+   * Creates a caching executor that coalesces the concurrent loads of the same cache entry across sessions.
+   *
+   * @param delegate
+   *          the executor of the statements
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache of a namespace is invalidated on writes
+   * @param singleFlight
+   *          the loads in progress shared by the sessions, or {@code null} to not coalesce loads
+   * @param singleFlightTimeout
+   *          the maximum time in milliseconds to wait for the load of another session, {@code 0} to wait until it is done
+   * @since 3.5.6
+   */
+  public CachingExecutor(Executor delegate, TableVersions tableVersions, SingleFlight singleFlight, long singleFlightTimeout) {
+    this(delegate, tableVersions, singleFlight, singleFlightTimeout, null);
+  }
+
+  /**
+   * Creates a caching executor that broadcasts the cache invalidations it commits to the other nodes.
+   *
+   * @param delegate
+   *          the executor of the statements
+   * @param tableVersions
+   *          the table versions, or {@code null} if the whole cache of a namespace is invalidated on writes
+   * @param singleFlight
+   *          the loads in progress shared by the sessions, or {@code null} to not coalesce loads
+   * @param singleFlightTimeout
+   *          the maximum time in milliseconds to wait for the load of another session, {@code 0} to wait until it is done
+   * @param invalidationBus
+   *          the bus the invalidations are published to on commit, or {@code null} if there is no other node
+   * @since 3.5.6
+   */
+  public CachingExecutor(Executor delegate, TableVersions tableVersions, SingleFlight singleFlight, long singleFlightTimeout,
+      CacheInvalidationBus invalidationBus) {
     this.delegate = delegate;
+    this.tcm = new TransactionalCacheManager(tableVersions, invalidationBus);
+    this.tableVersions = tableVersions;
+    this.singleFlight = singleFlight;
+    this.singleFlightTimeout = singleFlightTimeout;
     delegate.setExecutorWrapper(this);
   }
 
@@ -81,7 +153,8 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    dirty = true;
+    flushCacheIfRequired(ms, parameterObject);
     return delegate.update(ms, parameterObject);
   }
 
@@ -110,12 +183,38 @@ public class CachingExecutor implements Executor {
       flushCacheIfRequired(ms);
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
+        final String[] tables = tableVersions != null ? getReadTables(ms, boundSql) : null;
         @SuppressWarnings("unchecked")
-        List<E> list = (List<E>) tcm.getObject(cache, key);
+        List<E> list = (List<E>) tcm.getObject(cache, key, tables);
+        if (cache instanceof MetricsCache) {
+          // counted here, as the transactional cache may discard an entry found in the cache
+          if (list != null) {
+            ((MetricsCache) cache).recordHit();
+          } else {
+            ((MetricsCache) cache).recordMiss();
+          }
+        }
         if (list == null) {
-          list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          // taken before the query, so a write committed by another session while it runs makes the entry stale
+          final long[] versions = tableVersions != null ? tableVersions.getVersions(tables) : null;
+          final long start = System.nanoTime();
+          if (singleFlight != null && !dirty) {
+            // the uncommitted changes of a dirty session must not be seen by the other sessions, and vice versa
+            // the waiters receive copies made the way the cache makes them, or the same objects if it does not copy them
+            final CacheCodec codec = ms.getConfiguration().getCacheCopyCodec(cache.getId());
+            list = singleFlight.load(key, singleFlightTimeout, codec, () -> delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql));
+          } else {
+            list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          }
+          if (cache instanceof MetricsCache) {
+            ((MetricsCache) cache).recordLoad(System.nanoTime() - start);
+          }
           // 缓存管理器，把缓存
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (versions != null) {
+            tcm.putObject(cache, key, list, tables, versions); // issue #578 and #116
+          } else {
+            tcm.putObject(cache, key, list, tables);
+          }
         }
         return list;
       }
@@ -135,6 +234,7 @@ public class CachingExecutor implements Executor {
     delegate.commit(required);
     // 事务缓存管理器提交
     tcm.commit();
+    dirty = false;
   }
 
   @Override
@@ -144,6 +244,7 @@ public class CachingExecutor implements Executor {
     } finally {
       if (required) {
         tcm.rollback();
+        dirty = false;
       }
     }
   }
@@ -186,6 +287,23 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  private void flushCacheIfRequired(MappedStatement ms, Object parameterObject) {
+    if (tableVersions != null && ms.isFlushCacheRequired()) {
+      final String[] tables = ms.getWrittenTables(parameterObject);
+      if (tables != null) {
+        // the entries read from these tables are invalidated in all the caches, not only in the one of the statement
+        tcm.invalidate(tables);
+        return;
+      }
+    }
+    flushCacheIfRequired(ms);
+  }
+
+  private String[] getReadTables(MappedStatement ms, BoundSql boundSql) {
+    final String[] tables = ms.getTables();
+    return tables != null ? tables : TableNames.read(boundSql.getSql());
+  }
+
   @Override
   public void setExecutorWrapper(Executor executor) {
     throw new UnsupportedOperationException("This method should not be called");
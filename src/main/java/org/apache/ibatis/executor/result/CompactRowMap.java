@@ -0,0 +1,303 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A row of a {@code resultType="map"} statement that stores its values in an array.
+ * <p>
+ * All the rows of a result set share one {@link Schema}, which maps the column keys to their position in the array,
+ * so a row does not hold its own keys nor one entry object per column. The map is fully functional: keys that are not
+ * in the schema are kept in a separate map, and {@code null} values are told apart from missing keys.
+ * Rows are iterated in the order of the schema, followed by the other keys in insertion order.
+ * <p>
+ * Rows are created by {@link org.apache.ibatis.executor.resultset.DefaultResultSetHandler} when the
+ * {@code compactRowMapsEnabled} setting is on. This class is not thread safe, like {@link HashMap}.
+ *
+ * @since 3.5.6
+ */
+public class CompactRowMap extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Schema schema;
+  private final Object[] values;
+  private int size;
+  private Map<String, Object> otherEntries;
+
+  public CompactRowMap(Schema schema) {
+    this.schema = schema;
+    this.values = new Object[schema.keys.length];
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public int size() {
+    return otherEntries == null ? size : size + otherEntries.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    final int index = schema.indexOf(key);
+    if (index != -1) {
+      return values[index] != null;
+    }
+    return otherEntries != null && otherEntries.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    final int index = schema.indexOf(key);
+    if (index != -1) {
+      return unmask(values[index]);
+    }
+    return otherEntries == null ? null : otherEntries.get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    final int index = schema.indexOf(key);
+    if (index != -1) {
+      final Object previous = values[index];
+      values[index] = mask(value);
+      if (previous == null) {
+        size++;
+      }
+      return unmask(previous);
+    }
+    if (otherEntries == null) {
+      otherEntries = new LinkedHashMap<>();
+    }
+    return otherEntries.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    final int index = schema.indexOf(key);
+    if (index != -1) {
+      final Object previous = values[index];
+      if (previous != null) {
+        values[index] = null;
+        size--;
+      }
+      return unmask(previous);
+    }
+    return otherEntries == null ? null : otherEntries.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+    otherEntries = null;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return CompactRowMap.this.size();
+      }
+
+      @Override
+      public void clear() {
+        CompactRowMap.this.clear();
+      }
+    };
+  }
+
+  private static Object mask(Object value) {
+    return value == null ? NullValue.INSTANCE : value;
+  }
+
+  private static Object unmask(Object value) {
+    return value == NullValue.INSTANCE ? null : value;
+  }
+
+  /**
+   * Marks the keys of the schema that are mapped to {@code null}, the array holds {@code null} for missing keys.
+   * An enum keeps the marker unique when the rows are deserialized.
+   */
+  private enum NullValue {
+    INSTANCE
+  }
+
+  private class EntryIterator implements Iterator<Entry<String, Object>> {
+    private int next = -1;
+    private int current = -1;
+    private boolean currentOther;
+    private Iterator<Entry<String, Object>> otherIterator;
+
+    EntryIterator() {
+      advance();
+    }
+
+    private void advance() {
+      do {
+        next++;
+      } while (next < values.length && values[next] == null);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (otherIterator == null) {
+        otherIterator = otherEntries == null ? Collections.emptyIterator() : otherEntries.entrySet().iterator();
+      }
+      return otherIterator.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (next < values.length) {
+        current = next;
+        advance();
+        return new SchemaEntry(current);
+      }
+      current = -1;
+      currentOther = true;
+      return otherIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (currentOther) {
+        otherIterator.remove();
+        currentOther = false;
+      } else if (current != -1) {
+        if (values[current] != null) {
+          values[current] = null;
+          size--;
+        }
+        current = -1;
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+
+  private class SchemaEntry implements Entry<String, Object> {
+    private final int index;
+
+    SchemaEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return schema.keys[index];
+    }
+
+    @Override
+    public Object getValue() {
+      return unmask(values[index]);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      final Object previous = values[index];
+      if (previous == null) {
+        // the entry has been removed
+        throw new IllegalStateException();
+      }
+      values[index] = mask(value);
+      return unmask(previous);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      final Entry<?, ?> e = (Entry<?, ?>) o;
+      return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * The keys shared by the rows of a result set.
+   */
+  public static final class Schema implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] keys;
+    private final Map<String, Integer> indexes;
+
+    /**
+     * Creates a schema. Duplicate keys are ignored.
+     *
+     * @param keys
+     *          the keys, in iteration order
+     */
+    public Schema(Collection<String> keys) {
+      this.keys = new LinkedHashSet<>(keys).toArray(new String[0]);
+      this.indexes = new HashMap<>();
+      for (int i = 0; i < this.keys.length; i++) {
+        indexes.put(this.keys[i], i);
+      }
+    }
+
+    public List<String> getKeys() {
+      return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    int indexOf(Object key) {
+      final Integer index = indexes.get(key);
+      return index == null ? -1 : index;
+    }
+  }
+
+}
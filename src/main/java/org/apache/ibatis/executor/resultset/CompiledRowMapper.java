@@ -0,0 +1,335 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.MethodInvoker;
+import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
+import org.apache.ibatis.type.DoubleTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.PrimitiveTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * A row mapper specialized for one flat result map and one result set column layout.
+ * <p>
+ * The default constructor and the property setters are resolved once into {@link MethodHandle}s, and the columns are
+ * read by index, so mapping a row does not go through {@code MetaObject}, the object wrappers, the reflective invokers
+ * or the column label lookup of the driver. Primitive properties read by a {@link PrimitiveTypeHandler} are assigned
+ * without boxing their values.
+ * Instances are created by {@link DefaultResultSetHandler} when the {@code compiledRowMappersEnabled} setting is on,
+ * and are shared through the {@link org.apache.ibatis.session.Configuration}.
+ *
+ * @since 3.5.6
+ */
+public class CompiledRowMapper {
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType INT_SETTER_TYPE = MethodType.methodType(void.class, Object.class, int.class);
+  private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+  private static final MethodType DOUBLE_SETTER_TYPE = MethodType.methodType(void.class, Object.class, double.class);
+
+  private final Class<?> type;
+  private final MethodHandle constructor;
+  private ColumnMapping[] columns = new ColumnMapping[0];
+
+  CompiledRowMapper(Class<?> type, MethodHandle constructor) {
+    this.type = type;
+    this.constructor = constructor;
+  }
+
+  /**
+   * Creates a row mapper for the given type, or returns {@code null} if its default constructor cannot be accessed.
+   */
+  static CompiledRowMapper forType(Reflector reflector) {
+    final Constructor<?> defaultConstructor = reflector.getDefaultConstructor();
+    try {
+      return new CompiledRowMapper(reflector.getType(), unreflectConstructor(defaultConstructor).asType(CONSTRUCTOR_TYPE));
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Appends a column to this mapper. Columns are applied in the order they were added.
+   *
+   * @return {@code false} if the setter cannot be turned into a method handle,
+   *         in which case this mapper must not be used
+   */
+  boolean addColumn(int columnIndex, String property, TypeHandler<?> typeHandler, Invoker setter, Class<?> propertyType) {
+    final MethodHandle handle;
+    try {
+      if (setter.getClass() == MethodInvoker.class) {
+        handle = unreflectMethod(((MethodInvoker) setter).getMethod());
+      } else if (setter instanceof SetFieldInvoker) {
+        handle = unreflectSetter(((SetFieldInvoker) setter).getField());
+      } else {
+        return false;
+      }
+    } catch (IllegalAccessException e) {
+      return false;
+    }
+    columns = Arrays.copyOf(columns, columns.length + 1);
+    columns[columns.length - 1] = newColumnMapping(columnIndex, property, typeHandler, handle, propertyType);
+    return true;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  /**
+   * Maps the current row of the result set.
+   *
+   * @param rs
+   *          the result set positioned on the row to map
+   * @param callSettersOnNulls
+   *          whether setters of non primitive properties are called for {@code null} values
+   * @param returnInstanceForEmptyRow
+   *          whether an instance is returned when all the columns are {@code null}
+   * @return the row value, or {@code null} if no value was found
+   * @throws SQLException
+   *           if a type handler fails to read a column
+   */
+  public Object map(ResultSet rs, boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) throws SQLException {
+    final Object rowValue = newInstance();
+    boolean foundValues = false;
+    for (ColumnMapping column : columns) {
+      foundValues = column.map(rs, rowValue, callSettersOnNulls) || foundValues;
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  @UsesJava7
+  private Object newInstance() {
+    try {
+      return constructor.invokeExact();
+    } catch (Throwable t) {
+      throw new ReflectionException("Error instantiating " + type + ". Cause: " + t, t);
+    }
+  }
+
+  private static MethodHandle unreflectConstructor(Constructor<?> constructor) throws IllegalAccessException {
+    try {
+      return MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private static MethodHandle unreflectMethod(Method method) throws IllegalAccessException {
+    try {
+      return MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private static MethodHandle unreflectSetter(Field field) throws IllegalAccessException {
+    try {
+      return MethodHandles.lookup().unreflectSetter(field);
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        field.setAccessible(true);
+        return MethodHandles.lookup().unreflectSetter(field);
+      } else {
+        throw e;
+      }
+    }
+  }
+
+  private static ColumnMapping newColumnMapping(int columnIndex, String property, TypeHandler<?> typeHandler, MethodHandle setter, Class<?> propertyType) {
+    if (propertyType.isPrimitive() && typeHandler instanceof PrimitiveTypeHandler
+        && ((PrimitiveTypeHandler<?>) typeHandler).getPrimitiveType() == propertyType
+        && readsPrimitive(typeHandler.getClass(), propertyType)) {
+      final PrimitiveTypeHandler<?> primitiveTypeHandler = (PrimitiveTypeHandler<?>) typeHandler;
+      if (propertyType == int.class) {
+        return new IntColumnMapping(columnIndex, property, primitiveTypeHandler, setter.asType(INT_SETTER_TYPE));
+      } else if (propertyType == long.class) {
+        return new LongColumnMapping(columnIndex, property, primitiveTypeHandler, setter.asType(LONG_SETTER_TYPE));
+      } else if (propertyType == double.class) {
+        return new DoubleColumnMapping(columnIndex, property, primitiveTypeHandler, setter.asType(DOUBLE_SETTER_TYPE));
+      }
+    }
+    return new ObjectColumnMapping(columnIndex, property, typeHandler, setter.asType(SETTER_TYPE), propertyType.isPrimitive());
+  }
+
+  /**
+   * Returns whether the primitive getter of a type handler reads the column as its other getters do. It does for the
+   * built-in handlers and for the handlers that implement it, but not for the subclasses of the built-in handlers that
+   * only override how the value is read, nor for the handlers that rely on the default getter.
+   */
+  private static boolean readsPrimitive(Class<?> typeHandlerType, Class<?> propertyType) {
+    if (typeHandlerType == IntegerTypeHandler.class || typeHandlerType == LongTypeHandler.class
+        || typeHandlerType == DoubleTypeHandler.class) {
+      return true;
+    }
+    final String getterName = propertyType == int.class ? "getInt" : propertyType == long.class ? "getLong" : "getDouble";
+    try {
+      final Class<?> declaringType = typeHandlerType.getMethod(getterName, ResultSet.class, int.class).getDeclaringClass();
+      return !declaringType.isInterface() && declaringType != IntegerTypeHandler.class
+          && declaringType != LongTypeHandler.class && declaringType != DoubleTypeHandler.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private abstract static class ColumnMapping {
+    protected final int columnIndex;
+    protected final String property;
+    protected final MethodHandle setter;
+
+    ColumnMapping(int columnIndex, String property, MethodHandle setter) {
+      this.columnIndex = columnIndex;
+      this.property = property;
+      this.setter = setter;
+    }
+
+    /**
+     * Reads the column and assigns it to the property of the row value.
+     *
+     * @return {@code true} if the column is not {@code null}
+     */
+    abstract boolean map(ResultSet rs, Object rowValue, boolean callSettersOnNulls) throws SQLException;
+
+    ReflectionException newSetterException(Object target, Object value, Throwable t) {
+      return new ReflectionException("Could not set property '" + property + "' of '" + target.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+  }
+
+  private static final class ObjectColumnMapping extends ColumnMapping {
+    private final TypeHandler<?> typeHandler;
+    private final boolean primitive;
+
+    ObjectColumnMapping(int columnIndex, String property, TypeHandler<?> typeHandler, MethodHandle setter, boolean primitive) {
+      super(columnIndex, property, setter);
+      this.typeHandler = typeHandler;
+      this.primitive = primitive;
+    }
+
+    @Override
+    @UsesJava7
+    boolean map(ResultSet rs, Object rowValue, boolean callSettersOnNulls) throws SQLException {
+      final Object value = typeHandler.getResult(rs, columnIndex);
+      if (value != null || (callSettersOnNulls && !primitive)) {
+        try {
+          setter.invokeExact(rowValue, value);
+        } catch (Throwable t) {
+          throw newSetterException(rowValue, value, t);
+        }
+      }
+      return value != null;
+    }
+  }
+
+  private static final class IntColumnMapping extends ColumnMapping {
+    private final PrimitiveTypeHandler<?> typeHandler;
+
+    IntColumnMapping(int columnIndex, String property, PrimitiveTypeHandler<?> typeHandler, MethodHandle setter) {
+      super(columnIndex, property, setter);
+      this.typeHandler = typeHandler;
+    }
+
+    @Override
+    @UsesJava7
+    boolean map(ResultSet rs, Object rowValue, boolean callSettersOnNulls) throws SQLException {
+      final int value = typeHandler.getInt(rs, columnIndex);
+      if (value == 0 && rs.wasNull()) {
+        return false;
+      }
+      try {
+        setter.invokeExact(rowValue, value);
+      } catch (Throwable t) {
+        throw newSetterException(rowValue, value, t);
+      }
+      return true;
+    }
+  }
+
+  private static final class LongColumnMapping extends ColumnMapping {
+    private final PrimitiveTypeHandler<?> typeHandler;
+
+    LongColumnMapping(int columnIndex, String property, PrimitiveTypeHandler<?> typeHandler, MethodHandle setter) {
+      super(columnIndex, property, setter);
+      this.typeHandler = typeHandler;
+    }
+
+    @Override
+    @UsesJava7
+    boolean map(ResultSet rs, Object rowValue, boolean callSettersOnNulls) throws SQLException {
+      final long value = typeHandler.getLong(rs, columnIndex);
+      if (value == 0 && rs.wasNull()) {
+        return false;
+      }
+      try {
+        setter.invokeExact(rowValue, value);
+      } catch (Throwable t) {
+        throw newSetterException(rowValue, value, t);
+      }
+      return true;
+    }
+  }
+
+  private static final class DoubleColumnMapping extends ColumnMapping {
+    private final PrimitiveTypeHandler<?> typeHandler;
+
+    DoubleColumnMapping(int columnIndex, String property, PrimitiveTypeHandler<?> typeHandler, MethodHandle setter) {
+      super(columnIndex, property, setter);
+      this.typeHandler = typeHandler;
+    }
+
+    @Override
+    @UsesJava7
+    boolean map(ResultSet rs, Object rowValue, boolean callSettersOnNulls) throws SQLException {
+      final double value = typeHandler.getDouble(rs, columnIndex);
+      if (value == 0 && rs.wasNull()) {
+        return false;
+      }
+      try {
+        setter.invokeExact(rowValue, value);
+      } catch (Throwable t) {
+        throw newSetterException(rowValue, value, t);
+      }
+      return true;
+    }
+  }
+
+}
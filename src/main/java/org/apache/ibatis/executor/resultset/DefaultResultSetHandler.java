@@ -21,12 +21,25 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
@@ -36,14 +49,17 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.ResultExtractor;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.CompactRowMap;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
@@ -51,13 +67,18 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -71,6 +92,7 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
+  private static final CompiledRowMapper NOT_COMPILABLE = new CompiledRowMapper(Object.class, null);
 
   private final Executor executor;
   private final Configuration configuration;
@@ -92,8 +114,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
-  // Cached Automappings
-  private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  // parallel nested queries
+  private static final ThreadLocal<Boolean> loadingNestedQuery = new ThreadLocal<>();
+  private Map<CacheKey, PendingNestedQuery> pendingNestedQueries;
+  private Queue<PendingNestedQuery> unclaimedNestedQueries;
+  private AtomicInteger nestedQueryWorkers;
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
@@ -103,20 +128,64 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
+  private static class PendingNestedQuery {
+    private final MappedStatement mappedStatement;
+    private final Object parameterObject;
+    private final CacheKey cacheKey;
+    private final BoundSql boundSql;
+    private final Class<?> targetType;
+    private final List<PendingRelation> relations = new ArrayList<>();
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    PendingNestedQuery(MappedStatement mappedStatement, Object parameterObject, CacheKey cacheKey, BoundSql boundSql, Class<?> targetType) {
+      this.mappedStatement = mappedStatement;
+      this.parameterObject = parameterObject;
+      this.cacheKey = cacheKey;
+      this.boundSql = boundSql;
+      this.targetType = targetType;
+    }
+
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    void load(Executor executor, ResultExtractor resultExtractor) {
+      try {
+        List<Object> list = executor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+        result.complete(resultExtractor.extractObjectFromList(list, targetType));
+      } catch (Throwable t) {
+        result.completeExceptionally(t);
+      }
+    }
+  }
+
+  static class UnMappedColumnAutoMapping {
     private final String column;
+    private final int columnIndex;
     private final String property;
     private final TypeHandler<?> typeHandler;
     private final boolean primitive;
 
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+    public UnMappedColumnAutoMapping(String column, int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
       this.column = column;
+      this.columnIndex = columnIndex;
       this.property = property;
       this.typeHandler = typeHandler;
       this.primitive = primitive;
     }
   }
 
+  static class ConstructorAutoMapping {
+    private final List<Class<?>> parameterTypes;
+    private final TypeHandler<?>[] typeHandlers;
+
+    ConstructorAutoMapping(List<Class<?>> parameterTypes, TypeHandler<?>[] typeHandlers) {
+      this.parameterTypes = parameterTypes;
+      this.typeHandlers = typeHandlers;
+    }
+  }
+
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                  RowBounds rowBounds) {
     this.executor = executor;
@@ -182,6 +251,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
     final List<Object> multipleResults = new ArrayList<>();
+    if (configuration.isParallelNestedQueriesEnabled() && resultHandler == null && loadingNestedQuery.get() == null
+        && hasNestedQueries(mappedStatement) && isAutoCommit()) {
+      pendingNestedQueries = new LinkedHashMap<>();
+      unclaimedNestedQueries = new ConcurrentLinkedQueue<>();
+      nestedQueryWorkers = new AtomicInteger();
+    }
 
     int resultSetCount = 0;
     ResultSetWrapper rsw = getFirstResultSet(stmt);
@@ -212,6 +287,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    if (pendingNestedQueries != null) {
+      loadPendingNestedQueries();
+    }
     return collapseSingleResultList(multipleResults);
   }
 
@@ -349,6 +427,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
+    final CompiledRowMapper compiledRowMapper = configuration.isCompiledRowMappersEnabled() ? getCompiledRowMapper(rsw, resultMap) : null;
+    if (compiledRowMapper != null) {
+      final boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+      final boolean returnInstanceForEmptyRow = configuration.isReturnInstanceForEmptyRow();
+      while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+        Object rowValue = compiledRowMapper.map(resultSet, callSettersOnNulls, returnInstanceForEmptyRow);
+        storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
+      }
+      return;
+    }
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
@@ -408,6 +496,71 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  //
+  // COMPILED ROW MAPPERS
+  //
+
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final MappingPlan mappingPlan = rsw.getMappingPlan(resultMap, null);
+    CompiledRowMapper compiledRowMapper = mappingPlan.getCompiledRowMapper();
+    if (compiledRowMapper == null) {
+      compiledRowMapper = compileRowMapper(rsw, resultMap);
+      mappingPlan.setCompiledRowMapper(compiledRowMapper);
+    }
+    return compiledRowMapper == NOT_COMPILABLE ? null : compiledRowMapper;
+  }
+
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.getDiscriminator() != null || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()
+        || !resultMap.getConstructorResultMappings().isEmpty() || hasTypeHandlerForResultObject(rsw, resultType)
+        || resultType.isInterface() || Map.class.isAssignableFrom(resultType) || Collection.class.isAssignableFrom(resultType)
+        || objectFactory.getClass() != DefaultObjectFactory.class
+        || configuration.getObjectWrapperFactory().getClass() != DefaultObjectWrapperFactory.class) {
+      return NOT_COMPILABLE;
+    }
+    final Reflector reflector = reflectorFactory.findForClass(resultType);
+    if (!reflector.hasDefaultConstructor()) {
+      return NOT_COMPILABLE;
+    }
+    final CompiledRowMapper compiledRowMapper = CompiledRowMapper.forType(reflector);
+    if (compiledRowMapper == null) {
+      return NOT_COMPILABLE;
+    }
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultType));
+      for (UnMappedColumnAutoMapping mapping : createAutomaticMappings(rsw, resultMap, metaObject, null)) {
+        if (!addCompiledColumn(compiledRowMapper, reflector, mapping.columnIndex, mapping.property, mapping.typeHandler)) {
+          return NOT_COMPILABLE;
+        }
+      }
+    }
+    final int[] columnIndexes = rsw.getMappingPlan(resultMap, null).getPropertyColumnIndexes();
+    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+    for (int i = 0; i < columnIndexes.length; i++) {
+      final ResultMapping propertyMapping = propertyMappings.get(i);
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null
+          || propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null) {
+        return NOT_COMPILABLE;
+      }
+      final String property = propertyMapping.getProperty();
+      if (columnIndexes[i] == -1 || property == null) {
+        continue;
+      }
+      if (!addCompiledColumn(compiledRowMapper, reflector, columnIndexes[i], property, propertyMapping.getTypeHandler())) {
+        return NOT_COMPILABLE;
+      }
+    }
+    return compiledRowMapper;
+  }
+
+  private boolean addCompiledColumn(CompiledRowMapper compiledRowMapper, Reflector reflector, int columnIndex, String property, TypeHandler<?> typeHandler) {
+    if (typeHandler == null || property.indexOf('.') != -1 || property.indexOf('[') != -1 || !reflector.hasSetter(property)) {
+      return false;
+    }
+    return compiledRowMapper.addColumn(columnIndex, property, typeHandler, reflector.getSetInvoker(property), reflector.getSetterType(property));
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -465,19 +618,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
-    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    final int[] columnIndexes = rsw.getMappingPlan(resultMap, columnPrefix).getPropertyColumnIndexes();
     boolean foundValues = false;
     final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-    for (ResultMapping propertyMapping : propertyMappings) {
-      String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      if (propertyMapping.getNestedResultMapId() != null) {
-        // the user added a column attribute to a nested result map, ignore it
-        column = null;
-      }
+    for (int i = 0; i < columnIndexes.length; i++) {
+      final ResultMapping propertyMapping = propertyMappings.get(i);
+      final int columnIndex = columnIndexes[i];
       if (propertyMapping.isCompositeResult()
-          || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
+          || columnIndex != -1
           || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix, columnIndex);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -498,8 +648,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
-      throws SQLException {
+  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix,
+      int columnIndex) throws SQLException {
     if (propertyMapping.getNestedQueryId() != null) {
       return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
     } else if (propertyMapping.getResultSet() != null) {
@@ -507,17 +657,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return DEFERRED;
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
+      if (columnIndex != -1) {
+        return typeHandler.getResult(rs, columnIndex);
+      }
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
       return typeHandler.getResult(rs, column);
     }
   }
 
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    final String mapKey = resultMap.getId() + ":" + columnPrefix;
-    List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    final MappingPlan mappingPlan = rsw.getMappingPlan(resultMap, columnPrefix);
+    List<UnMappedColumnAutoMapping> autoMapping = mappingPlan.getAutoMappings();
     if (autoMapping == null) {
       autoMapping = new ArrayList<>();
-      final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+      final List<String> unmappedColumnNames = mappingPlan.getUnmappedColumnNames();
       for (String columnName : unmappedColumnNames) {
         String propertyName = columnName;
         if (columnPrefix != null && !columnPrefix.isEmpty()) {
@@ -537,7 +690,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           final Class<?> propertyType = metaObject.getSetterType(property);
           if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
             final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
+            autoMapping.add(new UnMappedColumnAutoMapping(columnName, rsw.getColumnIndex(columnName), property, typeHandler, propertyType.isPrimitive()));
           } else {
             configuration.getAutoMappingUnknownColumnBehavior()
                 .doAction(mappedStatement, columnName, property, propertyType);
@@ -547,7 +700,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
+      mappingPlan.setAutoMappings(autoMapping);
     }
     return autoMapping;
   }
@@ -557,7 +710,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
         if (value != null) {
           foundValues = true;
         }
@@ -651,14 +804,45 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return createPrimitiveResultObject(rsw, resultMap, columnPrefix);
     } else if (!constructorMappings.isEmpty()) {
       return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs, columnPrefix);
+    } else if (resultType == Map.class && configuration.isCompactRowMapsEnabled() && objectFactory.getClass() == DefaultObjectFactory.class) {
+      return new CompactRowMap(getRowMapSchema(rsw, resultMap, columnPrefix));
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
       return objectFactory.create(resultType);
     } else if (shouldApplyAutomaticMappings(resultMap, false)) {
-      return createByConstructorSignature(rsw, resultType, constructorArgTypes, constructorArgs);
+      return createByConstructorSignature(rsw, resultMap, columnPrefix, constructorArgTypes, constructorArgs);
     }
     throw new ExecutorException("Do not know how to create an instance of " + resultType);
   }
 
+  private CompactRowMap.Schema getRowMapSchema(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) {
+    final MappingPlan mappingPlan = rsw.getMappingPlan(resultMap, columnPrefix);
+    CompactRowMap.Schema schema = mappingPlan.getRowMapSchema();
+    if (schema == null) {
+      // the keys are the mapped properties followed by the columns a map is automapped to
+      final List<String> keys = new ArrayList<>();
+      for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+        addRowMapKey(keys, propertyMapping.getProperty());
+      }
+      for (String columnName : mappingPlan.getUnmappedColumnNames()) {
+        if (columnPrefix == null || columnPrefix.isEmpty()) {
+          addRowMapKey(keys, columnName);
+        } else if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          addRowMapKey(keys, columnName.substring(columnPrefix.length()));
+        }
+      }
+      schema = new CompactRowMap.Schema(keys);
+      mappingPlan.setRowMapSchema(schema);
+    }
+    return schema;
+  }
+
+  private void addRowMapKey(List<String> keys, String property) {
+    // nested properties are put as maps under their first name, which is left out of the schema
+    if (property != null && property.indexOf('.') == -1 && property.indexOf('[') == -1) {
+      keys.add(property);
+    }
+  }
+
   Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings,
                                          List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) {
     boolean foundValues = false;
@@ -674,7 +858,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getColumnValue(rsw, typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -686,32 +870,51 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
   }
 
-  private Object createByConstructorSignature(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) throws SQLException {
+  private Object createByConstructorSignature(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix, List<Class<?>> constructorArgTypes,
+      List<Object> constructorArgs) throws SQLException {
+    final MappingPlan mappingPlan = rsw.getMappingPlan(resultMap, columnPrefix);
+    ConstructorAutoMapping constructorAutoMapping = mappingPlan.getConstructorAutoMapping();
+    if (constructorAutoMapping == null) {
+      constructorAutoMapping = createConstructorAutoMapping(rsw, resultMap.getType());
+      mappingPlan.setConstructorAutoMapping(constructorAutoMapping);
+    }
+    return createUsingConstructor(rsw, resultMap.getType(), constructorArgTypes, constructorArgs, constructorAutoMapping);
+  }
+
+  private ConstructorAutoMapping createConstructorAutoMapping(ResultSetWrapper rsw, Class<?> resultType) {
     final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
     final Constructor<?> defaultConstructor = findDefaultConstructor(constructors);
     if (defaultConstructor != null) {
-      return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, defaultConstructor);
+      return createConstructorAutoMapping(rsw, defaultConstructor);
     } else {
       for (Constructor<?> constructor : constructors) {
         if (allowedConstructorUsingTypeHandlers(constructor, rsw.getJdbcTypes())) {
-          return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructor);
+          return createConstructorAutoMapping(rsw, constructor);
         }
       }
     }
     throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
   }
 
-  private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs, Constructor<?> constructor) throws SQLException {
+  private ConstructorAutoMapping createConstructorAutoMapping(ResultSetWrapper rsw, Constructor<?> constructor) {
+    final Class<?>[] parameterTypes = constructor.getParameterTypes();
+    final TypeHandler<?>[] typeHandlers = new TypeHandler<?>[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      typeHandlers[i] = rsw.getTypeHandler(parameterTypes[i], rsw.getColumnNames().get(i));
+    }
+    return new ConstructorAutoMapping(Collections.unmodifiableList(Arrays.asList(parameterTypes)), typeHandlers);
+  }
+
+  private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs,
+      ConstructorAutoMapping constructorAutoMapping) throws SQLException {
     boolean foundValues = false;
-    for (int i = 0; i < constructor.getParameterTypes().length; i++) {
-      Class<?> parameterType = constructor.getParameterTypes()[i];
-      String columnName = rsw.getColumnNames().get(i);
-      TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
-      constructorArgTypes.add(parameterType);
+    final TypeHandler<?>[] typeHandlers = constructorAutoMapping.typeHandlers;
+    for (int i = 0; i < typeHandlers.length; i++) {
+      Object value = typeHandlers[i].getResult(rsw.getResultSet(), i + 1);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
     }
+    constructorArgTypes.addAll(constructorAutoMapping.parameterTypes);
     return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
   }
 
@@ -752,7 +955,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getColumnValue(rsw, typeHandler, columnName);
+  }
+
+  private Object getColumnValue(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String columnName) throws SQLException {
+    final int columnIndex = rsw.getColumnIndex(columnName);
+    // the name is still passed to the driver when the column is missing, so that the error reports it
+    return columnIndex > 0 ? typeHandler.getResult(rsw.getResultSet(), columnIndex) : typeHandler.getResult(rsw.getResultSet(), columnName);
   }
 
   //
@@ -795,6 +1004,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (pendingNestedQueries != null && !hasNestedQueries(nestedQuery)) {
+          value = addPendingNestedQuery(key, nestedQuery, nestedQueryParameterObject, nestedBoundSql, resultLoader, metaResultObject, propertyMapping);
         } else {
           value = resultLoader.loadResult();
         }
@@ -803,6 +1014,154 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  //
+  // PARALLEL NESTED QUERIES
+  //
+
+  private static boolean hasNestedQueries(MappedStatement statement) {
+    for (ResultMap resultMap : statement.getResultMaps()) {
+      if (resultMap.hasNestedQueries()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Nested queries only run on other connections when the session commits each statement,
+   * as they would not see the uncommitted changes of its transaction.
+   */
+  private boolean isAutoCommit() throws SQLException {
+    return executor.getTransaction().getConnection().getAutoCommit();
+  }
+
+  /**
+   * Collects a nested query whose result map has no nested queries itself, so its results can not refer back to
+   * the objects of this statement and may be loaded by another session.
+   */
+  private Object addPendingNestedQuery(CacheKey key, MappedStatement nestedQuery, Object nestedQueryParameterObject, BoundSql nestedBoundSql,
+      ResultLoader resultLoader, MetaObject metaResultObject, ResultMapping propertyMapping) throws SQLException {
+    final Class<?> targetType = propertyMapping.getJavaType();
+    PendingNestedQuery pendingQuery = pendingNestedQueries.get(key);
+    if (pendingQuery == null) {
+      pendingQuery = new PendingNestedQuery(nestedQuery, nestedQueryParameterObject, key, nestedBoundSql, targetType);
+      pendingNestedQueries.put(key, pendingQuery);
+      unclaimedNestedQueries.add(pendingQuery);
+      startNestedQueryWorker();
+    } else if (pendingQuery.targetType != targetType) {
+      return resultLoader.loadResult();
+    }
+    PendingRelation relation = new PendingRelation();
+    relation.metaObject = metaResultObject;
+    relation.propertyMapping = propertyMapping;
+    pendingQuery.relations.add(relation);
+    return DEFERRED;
+  }
+
+  private void startNestedQueryWorker() {
+    if (nestedQueryWorkers.get() >= configuration.getMaxParallelNestedQueries()) {
+      return;
+    }
+    final Queue<PendingNestedQuery> unclaimedQueries = unclaimedNestedQueries;
+    final AtomicInteger workers = nestedQueryWorkers;
+    workers.incrementAndGet();
+    try {
+      configuration.getAsyncExecutor().execute(() -> {
+        try {
+          loadNestedQueries(unclaimedQueries);
+        } finally {
+          workers.decrementAndGet();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // the queries will be run by this thread in loadPendingNestedQueries()
+      workers.decrementAndGet();
+    }
+  }
+
+  /**
+   * Runs the nested queries no thread has claimed yet on a new session. The connection is taken before a query is
+   * claimed, so the thread of the statement only waits for workers that already hold one, and never for a worker
+   * that waits for a connection of the pool.
+   */
+  private void loadNestedQueries(Queue<PendingNestedQuery> unclaimedQueries) {
+    if (unclaimedQueries.isEmpty()) {
+      return;
+    }
+    // the nested queries of a nested query are not run in parallel
+    loadingNestedQuery.set(Boolean.TRUE);
+    Executor nestedExecutor = null;
+    try {
+      nestedExecutor = newNestedQueryExecutor();
+      final ResultExtractor resultExtractor = new ResultExtractor(configuration, objectFactory);
+      PendingNestedQuery pendingQuery;
+      while ((pendingQuery = unclaimedQueries.poll()) != null) {
+        if (pendingQuery.claim()) {
+          pendingQuery.load(nestedExecutor, resultExtractor);
+        }
+      }
+    } catch (SQLException | RuntimeException e) {
+      // no connection: the queries are left to the thread of the statement
+    } finally {
+      if (nestedExecutor != null) {
+        // the results are put in the 2nd level caches
+        nestedExecutor.close(false);
+      }
+      loadingNestedQuery.remove();
+    }
+  }
+
+  private Executor newNestedQueryExecutor() throws SQLException {
+    final Environment environment = configuration.getEnvironment();
+    final DataSource dataSource = environment == null ? null : environment.getDataSource();
+    if (dataSource == null) {
+      throw new ExecutorException("Nested queries could not be run in parallel. DataSource was not configured.");
+    }
+    final Transaction tx = environment.getTransactionFactory().newTransaction(dataSource, null, true);
+    try {
+      tx.getConnection();
+    } catch (SQLException | RuntimeException e) {
+      tx.close();
+      throw e;
+    }
+    return configuration.newExecutor(tx, ExecutorType.SIMPLE);
+  }
+
+  private void loadPendingNestedQueries() throws SQLException {
+    final Map<CacheKey, PendingNestedQuery> pendingQueries = pendingNestedQueries;
+    pendingNestedQueries = null;
+    unclaimedNestedQueries = null;
+    nestedQueryWorkers = null;
+    final ResultExtractor resultExtractor = new ResultExtractor(configuration, objectFactory);
+    for (PendingNestedQuery pendingQuery : pendingQueries.values()) {
+      // the queries no worker has claimed yet are run here, with the executor of this statement
+      if (pendingQuery.claim()) {
+        pendingQuery.load(executor, resultExtractor);
+      }
+      final Object value;
+      try {
+        value = pendingQuery.result.join();
+      } catch (CompletionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          throw (SQLException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new ExecutorException("Error loading nested query. Cause: " + cause, cause);
+      }
+      for (PendingRelation relation : pendingQuery.relations) {
+        final MetaObject metaObject = relation.metaObject;
+        final String property = relation.propertyMapping.getProperty();
+        if (value != null || (configuration.isCallSettersOnNulls() && !metaObject.getSetterType(property).isPrimitive())) {
+          metaObject.setValue(property, value);
+        }
+      }
+    }
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -1054,7 +1413,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
+          final Object value = th.getResult(rsw.getResultSet(), rsw.getColumnIndex(column));
           if (value != null || configuration.isReturnInstanceForEmptyRow()) {
             cacheKey.update(column);
             cacheKey.update(value);
@@ -0,0 +1,99 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.executor.result.CompactRowMap;
+
+/**
+ * The column mapping of one result map (and column prefix) resolved against one result set column layout.
+ * <p>
+ * Plans are shared through the {@link org.apache.ibatis.session.Configuration}, so a statement that is executed again
+ * does not have to split the columns into mapped and unmapped ones, look up the column indexes, resolve the
+ * automapping properties and their type handlers, select the constructor to automap, collect the keys of compact row
+ * maps, or compile its row mapper again.
+ *
+ * @since 3.5.6
+ */
+public class MappingPlan {
+
+  private final List<String> mappedColumnNames;
+  private final List<String> unmappedColumnNames;
+  private final int[] propertyColumnIndexes;
+  private volatile List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMappings;
+  private volatile CompiledRowMapper compiledRowMapper;
+  private volatile DefaultResultSetHandler.ConstructorAutoMapping constructorAutoMapping;
+  private volatile CompactRowMap.Schema rowMapSchema;
+
+  MappingPlan(List<String> mappedColumnNames, List<String> unmappedColumnNames, int[] propertyColumnIndexes) {
+    this.mappedColumnNames = Collections.unmodifiableList(mappedColumnNames);
+    this.unmappedColumnNames = Collections.unmodifiableList(unmappedColumnNames);
+    this.propertyColumnIndexes = propertyColumnIndexes;
+  }
+
+  public List<String> getMappedColumnNames() {
+    return mappedColumnNames;
+  }
+
+  public List<String> getUnmappedColumnNames() {
+    return unmappedColumnNames;
+  }
+
+  /**
+   * Gets the column indexes of the property result mappings of the result map, in the same order.
+   *
+   * @return the 1-based column index of each property result mapping, or {@code -1} for a mapping whose column is not
+   *         in the result set
+   */
+  int[] getPropertyColumnIndexes() {
+    return propertyColumnIndexes;
+  }
+
+  List<DefaultResultSetHandler.UnMappedColumnAutoMapping> getAutoMappings() {
+    return autoMappings;
+  }
+
+  void setAutoMappings(List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMappings) {
+    this.autoMappings = Collections.unmodifiableList(autoMappings);
+  }
+
+  DefaultResultSetHandler.ConstructorAutoMapping getConstructorAutoMapping() {
+    return constructorAutoMapping;
+  }
+
+  void setConstructorAutoMapping(DefaultResultSetHandler.ConstructorAutoMapping constructorAutoMapping) {
+    this.constructorAutoMapping = constructorAutoMapping;
+  }
+
+  CompactRowMap.Schema getRowMapSchema() {
+    return rowMapSchema;
+  }
+
+  void setRowMapSchema(CompactRowMap.Schema rowMapSchema) {
+    this.rowMapSchema = rowMapSchema;
+  }
+
+  CompiledRowMapper getCompiledRowMapper() {
+    return compiledRowMapper;
+  }
+
+  void setCompiledRowMapper(CompiledRowMapper compiledRowMapper) {
+    this.compiledRowMapper = compiledRowMapper;
+  }
+
+}
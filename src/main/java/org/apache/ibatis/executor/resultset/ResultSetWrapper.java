@@ -29,6 +29,7 @@ import java.util.Set;
 
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.ObjectTypeHandler;
@@ -42,16 +43,19 @@ import org.apache.ibatis.type.UnknownTypeHandler;
 public class ResultSetWrapper {
 
   private final ResultSet resultSet;
+  private final Configuration configuration;
   private final TypeHandlerRegistry typeHandlerRegistry;
   private final List<String> columnNames = new ArrayList<>();
   private final List<String> classNames = new ArrayList<>();
   private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final Map<String, MappingPlan> mappingPlans = new HashMap<>();
+  private String columnSignature;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
+    this.configuration = configuration;
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
@@ -61,6 +65,12 @@ public class ResultSetWrapper {
       jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
       classNames.add(metaData.getColumnClassName(i));
     }
+    for (int i = 0; i < columnCount; i++) {
+      final String columnName = columnNames.get(i);
+      if (columnName != null) {
+        columnIndexes.putIfAbsent(columnName.toUpperCase(Locale.ENGLISH), i + 1);
+      }
+    }
   }
 
   public ResultSet getResultSet() {
@@ -79,13 +89,41 @@ public class ResultSetWrapper {
     return jdbcTypes;
   }
 
-  public JdbcType getJdbcType(String columnName) {
-    for (int i = 0; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-        return jdbcTypes.get(i);
+  /**
+   * Returns a string that identifies the column layout of this result set,
+   * i.e. the names, JDBC types and Java class names of all the columns in order.
+   *
+   * @return the column signature
+   * @since 3.5.6
+   */
+  public String getColumnSignature() {
+    if (columnSignature == null) {
+      final StringBuilder signature = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        signature.append(columnNames.get(i)).append(':').append(jdbcTypes.get(i)).append(':').append(classNames.get(i)).append(';');
       }
+      columnSignature = signature.toString();
     }
-    return null;
+    return columnSignature;
+  }
+
+  public JdbcType getJdbcType(String columnName) {
+    final int columnIndex = getColumnIndex(columnName);
+    return columnIndex == -1 ? null : jdbcTypes.get(columnIndex - 1);
+  }
+
+  /**
+   * Gets the index of a column, to read its values by index instead of making the driver look up the label again.
+   * Like {@link ResultSet#findColumn(String)}, the name is case insensitive and the first matching column is returned.
+   *
+   * @param columnName
+   *          the column name
+   * @return the 1-based column index, or {@code -1} if the result set has no such column
+   * @since 3.5.6
+   */
+  public int getColumnIndex(String columnName) {
+    final Integer columnIndex = columnName == null ? null : columnIndexes.get(columnName.toUpperCase(Locale.ENGLISH));
+    return columnIndex == null ? -1 : columnIndex;
   }
 
   /**
@@ -114,8 +152,8 @@ public class ResultSetWrapper {
       // Replicate logic of UnknownTypeHandler#resolveTypeHandler
       // See issue #59 comment 10
       if (handler == null || handler instanceof UnknownTypeHandler) {
-        final int index = columnNames.indexOf(columnName);
-        final Class<?> javaType = resolveClass(classNames.get(index));
+        final int columnIndex = getColumnIndex(columnName);
+        final Class<?> javaType = columnIndex == -1 ? null : resolveClass(classNames.get(columnIndex - 1));
         if (javaType != null && jdbcType != null) {
           handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
         } else if (javaType != null) {
@@ -144,7 +182,33 @@ public class ResultSetWrapper {
     return null;
   }
 
-  private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+  /**
+   * Gets the mapping plan of a result map for the column layout of this result set.
+   * Plans are looked up in the {@link Configuration} first and only built when no statement has used this result map
+   * with the same column layout before.
+   *
+   * @param resultMap
+   *          the result map
+   * @param columnPrefix
+   *          the column prefix, can be {@code null}
+   * @return the mapping plan
+   * @since 3.5.6
+   */
+  public MappingPlan getMappingPlan(ResultMap resultMap, String columnPrefix) {
+    final String mapKey = getMapKey(resultMap, columnPrefix);
+    MappingPlan mappingPlan = mappingPlans.get(mapKey);
+    if (mappingPlan == null) {
+      final String planKey = mapKey + ":" + getColumnSignature();
+      mappingPlan = configuration.getMappingPlan(planKey);
+      if (mappingPlan == null) {
+        mappingPlan = configuration.addMappingPlan(planKey, createMappingPlan(resultMap, columnPrefix));
+      }
+      mappingPlans.put(mapKey, mappingPlan);
+    }
+    return mappingPlan;
+  }
+
+  private MappingPlan createMappingPlan(ResultMap resultMap, String columnPrefix) {
     List<String> mappedColumnNames = new ArrayList<>();
     List<String> unmappedColumnNames = new ArrayList<>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
@@ -157,32 +221,40 @@ public class ResultSetWrapper {
         unmappedColumnNames.add(columnName);
       }
     }
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
+    final int[] propertyColumnIndexes = new int[propertyMappings.size()];
+    for (int i = 0; i < propertyColumnIndexes.length; i++) {
+      final ResultMapping propertyMapping = propertyMappings.get(i);
+      // the user added a column attribute to a nested result map, ignore it
+      final String column = propertyMapping.getNestedResultMapId() == null ? prependPrefix(propertyMapping.getColumn(), columnPrefix) : null;
+      if (column != null && mappedColumns.contains(column.toUpperCase(Locale.ENGLISH))) {
+        propertyColumnIndexes[i] = getColumnIndex(column);
+      } else {
+        propertyColumnIndexes[i] = -1;
+      }
+    }
+    return new MappingPlan(mappedColumnNames, unmappedColumnNames, propertyColumnIndexes);
   }
 
   public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    if (mappedColumnNames == null) {
-      loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    }
-    return mappedColumnNames;
+    return getMappingPlan(resultMap, columnPrefix).getMappedColumnNames();
   }
 
   public List<String> getUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    if (unMappedColumnNames == null) {
-      loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    }
-    return unMappedColumnNames;
+    return getMappingPlan(resultMap, columnPrefix).getUnmappedColumnNames();
   }
 
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
 
+  private String prependPrefix(String columnName, String prefix) {
+    if (columnName == null || columnName.length() == 0 || prefix == null || prefix.length() == 0) {
+      return columnName;
+    }
+    return prefix + columnName;
+  }
+
   private Set<String> prependPrefixes(Set<String> columnNames, String prefix) {
     if (columnNames == null || columnNames.isEmpty() || prefix == null || prefix.length() == 0) {
       return columnNames;
@@ -20,16 +20,29 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ConcurrentCache;
+import org.apache.ibatis.cache.TableVersions;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.apache.ibatis.cache.weigher.CacheWeigher;
+import org.apache.ibatis.cache.weigher.RetainedSizeWeigher;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.MetricsCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TableVersionedCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -47,9 +60,19 @@ public class CacheBuilder {
   private final List<Class<? extends Cache>> decorators;
   private Integer size;
   private Long clearInterval;
+  private Long timeToLive;
+  private Long timeToLiveJitter;
+  private Long staleWhileRevalidate;
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private Class<? extends CacheCodec> codec;
+  private Long maxWeight;
+  private Class<? extends CacheWeigher> weigher;
+  private TableVersions tableVersions;
+  private boolean metrics;
+  private LongSupplier estimatedSize;
+  private CacheCodec copyCodec;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -78,6 +101,45 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets the time in milliseconds each entry is kept after it was put.
+   *
+   * @param timeToLive
+   *          the time to live, {@code null} to keep the entries until they are evicted or flushed
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder timeToLive(Long timeToLive) {
+    this.timeToLive = timeToLive;
+    return this;
+  }
+
+  /**
+   * Sets the maximum random time in milliseconds added to the time to live of each entry.
+   *
+   * @param timeToLiveJitter
+   *          the jitter, {@code null} to expire the entries exactly after the time to live
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder timeToLiveJitter(Long timeToLiveJitter) {
+    this.timeToLiveJitter = timeToLiveJitter;
+    return this;
+  }
+
+  /**
+   * Sets the time in milliseconds an expired entry is still returned while it is reloaded by another caller.
+   *
+   * @param staleWhileRevalidate
+   *          the stale while revalidate window, {@code null} to not return expired entries
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder staleWhileRevalidate(Long staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    return this;
+  }
+
   public CacheBuilder readWrite(boolean readWrite) {
     this.readWrite = readWrite;
     return this;
@@ -88,6 +150,73 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets the table versions the entries of the cache are checked against, when the cache invalidation scope is
+   * {@link org.apache.ibatis.session.CacheInvalidationScope#TABLE}.
+   *
+   * @param tableVersions
+   *          the table versions, {@code null} to invalidate the whole cache on writes
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder tableVersions(TableVersions tableVersions) {
+    this.tableVersions = tableVersions;
+    return this;
+  }
+
+  /**
+   * Sets the codec that copies the entries of a read/write cache, and that stores the entries of the custom caches
+   * having a {@code codec} property.
+   *
+   * @param codec
+   *          the codec type, {@code null} to use the Java serialization
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder codec(Class<? extends CacheCodec> codec) {
+    this.codec = codec;
+    return this;
+  }
+
+  /**
+   * Sets the maximum total weight of the entries, computed by the {@link #weigher(Class) weigher}.
+   *
+   * @param maxWeight
+   *          the maximum weight, {@code null} to not bound the cache by weight
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder maxWeight(Long maxWeight) {
+    this.maxWeight = maxWeight;
+    return this;
+  }
+
+  /**
+   * Sets the weigher of the entries when the cache has a {@link #maxWeight(Long) maximum weight}.
+   *
+   * @param weigher
+   *          the weigher type, {@code null} to weigh the entries by their retained size
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder weigher(Class<? extends CacheWeigher> weigher) {
+    this.weigher = weigher;
+    return this;
+  }
+
+  /**
+   * Sets whether the cache collects {@link org.apache.ibatis.cache.metrics.CacheMetrics metrics}.
+   *
+   * @param metrics
+   *          {@code true} to decorate the cache with a {@link MetricsCache}
+   * @return this builder
+   * @since 3.5.6
+   */
+  public CacheBuilder metrics(boolean metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -101,27 +230,61 @@ public class CacheBuilder {
   public Cache build() {
     // 设置默认实现类，和初始化的装饰器 LruCache
     setDefaultImplementations();
+    copyCodec = null;
     // 通过反射创建一个 PerpetualCache 对象
-    Cache cache = newBaseCacheInstance(implementation, id);
+    final boolean concurrent = isConcurrent() && maxWeight == null;
+    Cache cache = concurrent ? new PerpetualCache(id, new ConcurrentHashMap<>()) : newBaseCacheInstance(implementation, id);
     // 设置缓存属性
     setCacheProperties(cache);
+    setCacheCodec(cache);
+    if (cache instanceof OffHeapCache) {
+      estimatedSize = ((OffHeapCache) cache)::getUsedBytes;
+    }
+    final LongSupplier overwrites = cache instanceof PerpetualCache ? ((PerpetualCache) cache)::getOverwrites : null;
     // 不要为自定义的缓存应用装饰器
     // issue #352, do not apply decorators to custom caches
     if (PerpetualCache.class.equals(cache.getClass())) {
       // 如果是 PerpetualCache 类型的缓存，那么就给它设置装饰器
+      // 按权重淘汰时，包装最内层的缓存，淘汰策略等装饰器移除的条目会立即释放其权重
+      final WeightedCache.Storage storage = maxWeight != null ? new WeightedCache.Storage(cache) : null;
+      if (storage != null) {
+        cache = storage;
+      }
       for (Class<? extends Cache> decorator : decorators) {
         // 创建一个缓存装饰器实例
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
       }
       // 设置其他标准的装饰器
-      cache = setStandardDecorators(cache);
-    } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
-      cache = new LoggingCache(cache);
+      cache = setStandardDecorators(cache, concurrent, storage);
+    } else {
+      // 自定义缓存是否复制其中的对象未知，按可读写缓存处理
+      copyCodec = newCodecInstance();
+      if (tableVersions != null) {
+        cache = new TableVersionedCache(cache, tableVersions);
+      }
+      if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
+        cache = new LoggingCache(cache);
+      }
+    }
+    if (metrics) {
+      // 设置统计缓存装饰器 MetricsCache，放在最外层
+      cache = new MetricsCache(cache, estimatedSize, overwrites);
     }
     return cache;
   }
 
+  /**
+   * Returns the codec the last built cache copies its objects with, so that the other copies of them are made the
+   * same way.
+   *
+   * @return the codec, or {@code null} if the cache hands out the objects it holds without copying them
+   * @since 3.5.6
+   */
+  public CacheCodec getCopyCodec() {
+    return copyCodec;
+  }
+
   /**
    * 设置缓存的默认实现
    */
@@ -134,13 +297,31 @@ public class CacheBuilder {
     }
   }
 
+  /**
+   * Returns whether the default cache is used and all of its eviction decorators can be called concurrently,
+   * in which case it does not need to be synchronized.
+   */
+  private boolean isConcurrent() {
+    if (!PerpetualCache.class.equals(implementation) || decorators.isEmpty()) {
+      return false;
+    }
+    for (Class<? extends Cache> decorator : decorators) {
+      if (!ConcurrentCache.class.isAssignableFrom(decorator)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * 设置标准的缓存装饰器
    *
    * @param cache
+   * @param concurrent
+   * @param storage
    * @return
    */
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean concurrent, WeightedCache.Storage storage) {
     try {
       // 获取缓存的元对象
       MetaObject metaCache = SystemMetaObject.forObject(cache);
@@ -153,14 +334,39 @@ public class CacheBuilder {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
+      if (timeToLive != null) {
+        // 根据存活时间属性，设置按条目过期的缓存装饰器 ExpiringCache
+        ExpiringCache expiringCache = new ExpiringCache(cache);
+        expiringCache.setTimeToLive(timeToLive);
+        if (timeToLiveJitter != null) {
+          expiringCache.setJitter(timeToLiveJitter);
+        }
+        if (staleWhileRevalidate != null) {
+          expiringCache.setStaleWhileRevalidate(staleWhileRevalidate);
+        }
+        cache = expiringCache;
+      }
       if (readWrite) {
         // 根据是否可读写属性，设置序列化缓存装饰器 SerializedCache
-        cache = new SerializedCache(cache);
+        copyCodec = newCodecInstance();
+        cache = new SerializedCache(cache, copyCodec);
+      }
+      if (tableVersions != null) {
+        cache = new TableVersionedCache(cache, tableVersions);
       }
-      // 设置日志缓存装饰器 LoggingCache
-      cache = new LoggingCache(cache);
+      if (maxWeight != null) {
+        // 根据最大权重属性，设置按权重淘汰的缓存装饰器 WeightedCache
+        WeightedCache weightedCache = new WeightedCache(cache, newWeigherInstance(), storage);
+        weightedCache.setMaxWeight(maxWeight);
+        estimatedSize = weightedCache::getWeight;
+        cache = weightedCache;
+      }
+      // 设置日志缓存装饰器 LoggingCache，未同步时使用并发计数
+      cache = new LoggingCache(cache, concurrent);
       // 设置同步缓存装饰器 SynchronizedCache
-      cache = new SynchronizedCache(cache);
+      if (!concurrent) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         // 根据是否阻塞，设置阻塞缓存装饰器
         cache = new BlockingCache(cache);
@@ -218,6 +424,37 @@ public class CacheBuilder {
     }
   }
 
+  private void setCacheCodec(Cache cache) {
+    if (codec != null) {
+      MetaObject metaCache = SystemMetaObject.forObject(cache);
+      if (metaCache.hasSetter("codec") && CacheCodec.class == metaCache.getSetterType("codec")) {
+        metaCache.setValue("codec", newCodecInstance());
+      }
+    }
+  }
+
+  private CacheCodec newCodecInstance() {
+    if (codec == null) {
+      return new JavaSerializationCodec();
+    }
+    try {
+      return codec.getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate cache codec (" + codec + "). Cause: " + e, e);
+    }
+  }
+
+  private CacheWeigher newWeigherInstance() {
+    if (weigher == null) {
+      return new RetainedSizeWeigher();
+    }
+    try {
+      return weigher.getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate cache weigher (" + weigher + "). Cause: " + e, e);
+    }
+  }
+
   private Cache newBaseCacheInstance(Class<? extends Cache> cacheClass, String id) {
     Constructor<? extends Cache> cacheConstructor = getBaseCacheConstructor(cacheClass);
     try {
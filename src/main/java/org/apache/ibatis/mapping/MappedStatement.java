@@ -19,13 +19,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableNames;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -61,6 +64,8 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private String[] tables;
+  private volatile String[] writtenTables;
 
   MappedStatement() {
     // constructor disabled
@@ -179,6 +184,19 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Sets the tables the statement reads, or writes if it is not a select, instead of deriving them from its SQL.
+     *
+     * @param tables
+     *          the table names, separated by commas
+     * @return the builder
+     * @since 3.5.6
+     */
+    public Builder tables(String tables) {
+      mappedStatement.tables = TableNames.parse(tables);
+      return this;
+    }
+
     /**
      * Resul sets.
      *
@@ -295,6 +313,41 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Gets the tables declared as read, or written if the statement is not a select.
+   *
+   * @return the normalized table names, or {@code null} if they were not declared
+   * @since 3.5.6
+   */
+  public String[] getTables() {
+    return tables;
+  }
+
+  /**
+   * Gets the tables written by the statement: the declared ones, or the ones derived from its SQL.
+   * The tables of a statement whose SQL does not depend on its parameter are only derived once.
+   *
+   * @param parameterObject
+   *          the parameter of the statement
+   * @return the normalized table names, or {@code null} if they cannot be derived
+   * @since 3.5.6
+   */
+  public String[] getWrittenTables(Object parameterObject) {
+    if (tables != null) {
+      return tables;
+    }
+    if (!(sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource)) {
+      return TableNames.written(getBoundSql(parameterObject).getSql());
+    }
+    String[] written = writtenTables;
+    if (written == null) {
+      final String[] derived = TableNames.written(getBoundSql(parameterObject).getSql());
+      written = derived == null ? new String[0] : derived;
+      writtenTables = written;
+    }
+    return written.length == 0 ? null : written;
+  }
+
   /**
    * Gets the resul sets.
    *
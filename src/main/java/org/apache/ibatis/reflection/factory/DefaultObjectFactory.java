@@ -16,6 +16,9 @@
 package org.apache.ibatis.reflection.factory;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,8 +31,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.apache.ibatis.lang.UsesJava7;
 import org.apache.ibatis.reflection.ReflectionException;
 import org.apache.ibatis.reflection.Reflector;
 
@@ -40,6 +45,20 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
   private static final long serialVersionUID = -8855120656740914948L;
 
+  private static final Object[] NO_ARGS = new Object[0];
+  private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  /**
+   * Constructors resolved by the classes to create and their argument types, as method handles taking the arguments as
+   * an array. A {@link ClassValue} lets the classes be unloaded with their class loader.
+   */
+  private static final ClassValue<Map<List<Class<?>>, MethodHandle>> instantiators = new ClassValue<Map<List<Class<?>>, MethodHandle>>() {
+    @Override
+    protected Map<List<Class<?>>, MethodHandle> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
   @Override
   public <T> T create(Class<T> type) {
     return create(type, null, null);
@@ -53,34 +72,18 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     return (T) instantiateClass(classToCreate, constructorArgTypes, constructorArgs);
   }
 
-  private  <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+  @UsesJava7
+  @SuppressWarnings("unchecked")
+  private <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
     try {
-      Constructor<T> constructor;
       if (constructorArgTypes == null || constructorArgs == null) {
-        constructor = type.getDeclaredConstructor();
-        try {
-          return constructor.newInstance();
-        } catch (IllegalAccessException e) {
-          if (Reflector.canControlMemberAccessible()) {
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-          } else {
-            throw e;
-          }
-        }
+        return (T) getInstantiator(type, Collections.emptyList()).invokeExact(NO_ARGS);
       }
-      constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]));
-      try {
-        return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-      } catch (IllegalAccessException e) {
-        if (Reflector.canControlMemberAccessible()) {
-          constructor.setAccessible(true);
-          return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-        } else {
-          throw e;
-        }
-      }
-    } catch (Exception e) {
+      return (T) getInstantiator(type, constructorArgTypes).invokeExact(constructorArgs.toArray());
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // the exception thrown by the constructor itself, not wrapped in an InvocationTargetException
       String argTypes = Optional.ofNullable(constructorArgTypes).orElseGet(Collections::emptyList)
           .stream().map(Class::getSimpleName).collect(Collectors.joining(","));
       String argValues = Optional.ofNullable(constructorArgs).orElseGet(Collections::emptyList)
@@ -89,6 +92,33 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     }
   }
 
+  private static MethodHandle getInstantiator(Class<?> type, List<Class<?>> constructorArgTypes) throws ReflectiveOperationException {
+    final Map<List<Class<?>>, MethodHandle> typeInstantiators = instantiators.get(type);
+    MethodHandle instantiator = typeInstantiators.get(constructorArgTypes);
+    if (instantiator == null) {
+      final Constructor<?> constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]));
+      instantiator = unreflectConstructor(constructor)
+          .asSpreader(Object[].class, constructorArgTypes.size())
+          .asType(INSTANTIATOR_TYPE);
+      // the argument types belong to the caller, so a copy is cached
+      typeInstantiators.putIfAbsent(Collections.unmodifiableList(new ArrayList<>(constructorArgTypes)), instantiator);
+    }
+    return instantiator;
+  }
+
+  private static MethodHandle unreflectConstructor(Constructor<?> constructor) throws IllegalAccessException {
+    try {
+      return MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+      } else {
+        throw e;
+      }
+    }
+  }
+
   protected Class<?> resolveInterface(Class<?> type) {
     Class<?> classToCreate;
     if (type == List.class || type == Collection.class || type == Iterable.class) {
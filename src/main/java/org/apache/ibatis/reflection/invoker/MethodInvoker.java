@@ -56,4 +56,14 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  /**
+   * Gets the method invoked by this invoker.
+   *
+   * @return the method
+   * @since 3.5.6
+   */
+  public Method getMethod() {
+    return method;
+  }
 }
@@ -48,4 +48,14 @@ public class SetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  /**
+   * Gets the field assigned by this invoker.
+   *
+   * @return the field
+   * @since 3.5.6
+   */
+  public Field getField() {
+    return field;
+  }
 }
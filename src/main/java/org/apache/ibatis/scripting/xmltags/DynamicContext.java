@@ -15,7 +15,10 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -24,6 +27,7 @@ import ognl.OgnlRuntime;
 import ognl.PropertyAccessor;
 
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -40,18 +44,29 @@ public class DynamicContext {
 
   private final ContextMap bindings;
   private final StringJoiner sqlBuilder = new StringJoiner(" ");
+  private final List<SqlFragment.Placeholder> placeholders;
   private int uniqueNumber = 0;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, false);
+  }
+
+  /**
+   * @param parseSql
+   *          if {@code true}, the {@code #{...}} placeholders are replaced with {@code ?} as the sql is appended
+   *          and can be retrieved with {@link #getPlaceholders()}
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, boolean parseSql) {
     if (parameterObject != null && !(parameterObject instanceof Map)) {
       MetaObject metaObject = configuration.newMetaObject(parameterObject);
       boolean existsTypeHandler = configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass());
-      bindings = new ContextMap(metaObject, existsTypeHandler);
+      bindings = new ContextMap(metaObject, existsTypeHandler, configuration.getReflectorFactory());
     } else {
-      bindings = new ContextMap(null, false);
+      bindings = new ContextMap(null, false, configuration.getReflectorFactory());
     }
     bindings.put(PARAMETER_OBJECT_KEY, parameterObject);
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
+    placeholders = parseSql ? new ArrayList<>() : null;
   }
 
   public Map<String, Object> getBindings() {
@@ -63,7 +78,32 @@ public class DynamicContext {
   }
 
   public void appendSql(String sql) {
-    sqlBuilder.add(sql);
+    if (placeholders != null && sql != null && sql.contains("#{")) {
+      appendSql(SqlFragment.parse(sql));
+    } else {
+      sqlBuilder.add(sql);
+    }
+  }
+
+  /**
+   * Appends an already parsed fragment. Must only be called when {@link #acceptsParsedSql()} returns {@code true}.
+   */
+  void appendSql(SqlFragment fragment) {
+    sqlBuilder.add(fragment.getSql());
+    Collections.addAll(placeholders, fragment.getPlaceholders());
+  }
+
+  /**
+   * Returns whether this context collects parsed sql, in which case static text can be appended as a
+   * {@link SqlFragment} instead of being parsed again. Contexts that delegate to another one must return
+   * what their delegate returns, and override {@link #appendSql(SqlFragment)} accordingly.
+   */
+  boolean acceptsParsedSql() {
+    return placeholders != null;
+  }
+
+  List<SqlFragment.Placeholder> getPlaceholders() {
+    return placeholders;
   }
 
   public String getSql() {
@@ -78,10 +118,19 @@ public class DynamicContext {
     private static final long serialVersionUID = 2977601501966151582L;
     private final MetaObject parameterMetaObject;
     private final boolean fallbackParameterObject;
+    private final ReflectorFactory reflectorFactory;
 
-    public ContextMap(MetaObject parameterMetaObject, boolean fallbackParameterObject) {
+    public ContextMap(MetaObject parameterMetaObject, boolean fallbackParameterObject, ReflectorFactory reflectorFactory) {
       this.parameterMetaObject = parameterMetaObject;
       this.fallbackParameterObject = fallbackParameterObject;
+      this.reflectorFactory = reflectorFactory;
+    }
+
+    /**
+     * Returns the reflector factory of the configuration, which the properties of the bindings are read with.
+     */
+    ReflectorFactory getReflectorFactory() {
+      return reflectorFactory;
     }
 
     @Override
@@ -15,8 +15,14 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.Configuration;
 
@@ -35,13 +41,26 @@ public class DynamicSqlSource implements SqlSource {
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
-    DynamicContext context = new DynamicContext(configuration, parameterObject);
+    // static text is appended already parsed, so the sql is not scanned for placeholders a second time
+    DynamicContext context = new DynamicContext(configuration, parameterObject, true);
     rootSqlNode.apply(context);
     SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
-    context.getBindings().forEach(boundSql::setAdditionalParameter);
+    Map<String, Object> bindings = context.getBindings();
+    Function<String, ParameterMapping> mappingBuilder = sqlSourceParser.parameterMappingBuilder(parameterType, bindings);
+    // mappings can only be reused when the bindings are known to be looked up as a plain map
+    boolean reusable = !configuration.getObjectWrapperFactory().hasWrapperFor(bindings);
+    List<SqlFragment.Placeholder> placeholders = context.getPlaceholders();
+    List<ParameterMapping> parameterMappings = new ArrayList<>(placeholders.size());
+    for (SqlFragment.Placeholder placeholder : placeholders) {
+      parameterMappings.add(placeholder.resolve(parameterType, bindings, reusable, mappingBuilder));
+    }
+    String sql = context.getSql();
+    if (configuration.isShrinkWhitespacesInSql()) {
+      sql = SqlSourceBuilder.removeExtraWhitespaces(sql);
+    }
+    BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    bindings.forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
@@ -150,17 +150,29 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
-        String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-        if (itemIndex != null && newContent.equals(content)) {
-          newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
-        }
-        return "#{" + newContent + "}";
-      });
+      GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> "#{" + itemize(content) + "}");
 
       delegate.appendSql(parser.parse(sql));
     }
 
+    @Override
+    void appendSql(SqlFragment fragment) {
+      delegate.appendSql(fragment.rewritePlaceholders(this::itemize));
+    }
+
+    @Override
+    boolean acceptsParsedSql() {
+      return delegate.acceptsParsedSql();
+    }
+
+    private String itemize(String content) {
+      String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
+      if (itemIndex != null && newContent.equals(content)) {
+        newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+      }
+      return newContent;
+    }
+
     @Override
     public int getUniqueNumber() {
       return delegate.getUniqueNumber();
@@ -204,6 +216,20 @@ public class ForEachSqlNode implements SqlNode {
       delegate.appendSql(sql);
     }
 
+    @Override
+    void appendSql(SqlFragment fragment) {
+      if (!prefixApplied && !fragment.isBlank()) {
+        delegate.appendSql(prefix);
+        prefixApplied = true;
+      }
+      delegate.appendSql(fragment);
+    }
+
+    @Override
+    boolean acceptsParsedSql() {
+      return delegate.acceptsParsedSql();
+    }
+
     @Override
     public String getSql() {
       return delegate.getSql();
@@ -16,6 +16,7 @@
 package org.apache.ibatis.scripting.xmltags;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 import ognl.Ognl;
@@ -25,6 +26,9 @@ import org.apache.ibatis.builder.BuilderException;
 
 /**
  * Caches OGNL parsed expressions.
+ * <p>
+ * Simple expressions, such as null checks and comparisons of properties, are evaluated without OGNL.
+ * See {@link SimpleExpression}.
  *
  * @author Eduardo Macarron
  *
@@ -35,12 +39,20 @@ public final class OgnlCache {
   private static final OgnlMemberAccess MEMBER_ACCESS = new OgnlMemberAccess();
   private static final OgnlClassResolver CLASS_RESOLVER = new OgnlClassResolver();
   private static final Map<String, Object> expressionCache = new ConcurrentHashMap<>();
+  private static final Map<String, Optional<SimpleExpression>> simpleExpressionCache = new ConcurrentHashMap<>();
 
   private OgnlCache() {
     // Prevent Instantiation of Static Class
   }
 
   public static Object getValue(String expression, Object root) {
+    SimpleExpression simpleExpression = compileSimpleExpression(expression);
+    if (simpleExpression != null) {
+      Object value = simpleExpression.getValue(root);
+      if (value != SimpleExpression.UNSUPPORTED) {
+        return value;
+      }
+    }
     try {
       Map context = Ognl.createDefaultContext(root, MEMBER_ACCESS, CLASS_RESOLVER, null);
       return Ognl.getValue(parseExpression(expression), context, root);
@@ -49,6 +61,15 @@ public final class OgnlCache {
     }
   }
 
+  private static SimpleExpression compileSimpleExpression(String expression) {
+    Optional<SimpleExpression> compiled = simpleExpressionCache.get(expression);
+    if (compiled == null) {
+      compiled = Optional.ofNullable(SimpleExpression.compile(expression));
+      simpleExpressionCache.put(expression, compiled);
+    }
+    return compiled.orElse(null);
+  }
+
   private static Object parseExpression(String expression) throws OgnlException {
     Object node = expressionCache.get(expression);
     if (node == null) {
@@ -0,0 +1,545 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import ognl.OgnlOps;
+
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * A compiled form of the expressions that are most often found in dynamic sql,
+ * e.g. {@code name != null and name != ''} or {@code list != null and list.size() > 0}.
+ * <p>
+ * The supported subset is made of {@code null}, boolean, integer, string and character literals, property paths,
+ * the {@code size()}, {@code isEmpty()} and {@code length()} methods, the array {@code length} property,
+ * comparisons, {@code and}, {@code or}, {@code not} and parentheses.
+ * Properties are read directly and operators are applied with {@link OgnlOps}, so the results are the same as OGNL's.
+ * Anything else, including values of a type that is not handled here, makes the evaluation return
+ * {@link #UNSUPPORTED} so that the caller can fall back to OGNL.
+ */
+abstract class SimpleExpression {
+
+  /**
+   * Returned by {@link #getValue(Object)} when the expression must be evaluated by OGNL.
+   */
+  static final Object UNSUPPORTED = new Object();
+
+  private static final DynamicContext.ContextAccessor CONTEXT_ACCESSOR = new DynamicContext.ContextAccessor();
+
+  /**
+   * The reflectors used when the root is not the bindings of a {@link DynamicContext}, which carry the reflector
+   * factory of the configuration. They are dropped with the class loader of their class.
+   */
+  private static final ClassValue<Reflector> REFLECTORS = new ClassValue<Reflector>() {
+    @Override
+    protected Reflector computeValue(Class<?> type) {
+      return new Reflector(type);
+    }
+  };
+
+  abstract Object getValue(Object root);
+
+  /**
+   * Compiles the expression.
+   *
+   * @return the compiled expression, or {@code null} if the expression is not supported
+   */
+  static SimpleExpression compile(String expression) {
+    List<String> tokens = tokenize(expression);
+    if (tokens == null) {
+      return null;
+    }
+    Parser parser = new Parser(tokens);
+    SimpleExpression result = parser.parseOr();
+    return result != null && parser.atEnd() ? result : null;
+  }
+
+  private static List<String> tokenize(String expression) {
+    List<String> tokens = new ArrayList<>();
+    int length = expression.length();
+    int i = 0;
+    while (i < length) {
+      char c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int start = i++;
+        while (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+          i++;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (c >= '0' && c <= '9') {
+        int start = i++;
+        while (i < length && expression.charAt(i) >= '0' && expression.charAt(i) <= '9') {
+          i++;
+        }
+        if (i < length && (expression.charAt(i) == '.' || Character.isJavaIdentifierPart(expression.charAt(i)))) {
+          // decimals and typed literals
+          return null;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (c == '\'' || c == '"') {
+        int end = expression.indexOf(c, i + 1);
+        if (end < 0 || expression.indexOf('\\', i + 1) >= 0 && expression.indexOf('\\', i + 1) < end) {
+          return null;
+        }
+        tokens.add(expression.substring(i, end + 1));
+        i = end + 1;
+      } else if (i + 1 < length && isTwoCharOperator(c, expression.charAt(i + 1))) {
+        tokens.add(expression.substring(i, i + 2));
+        i += 2;
+      } else if ("<>!().".indexOf(c) >= 0) {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else {
+        return null;
+      }
+    }
+    return tokens;
+  }
+
+  private static boolean isTwoCharOperator(char first, char second) {
+    switch (first) {
+      case '=':
+      case '!':
+      case '<':
+      case '>':
+        return second == '=';
+      case '&':
+        return second == '&';
+      case '|':
+        return second == '|';
+      default:
+        return false;
+    }
+  }
+
+  private static class Parser {
+    private final List<String> tokens;
+    private int position;
+
+    Parser(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    boolean atEnd() {
+      return position == tokens.size();
+    }
+
+    private String peek() {
+      return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private boolean accept(String... candidates) {
+      String token = peek();
+      for (String candidate : candidates) {
+        if (candidate.equals(token)) {
+          position++;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    SimpleExpression parseOr() {
+      SimpleExpression left = parseAnd();
+      while (left != null && accept("or", "||")) {
+        SimpleExpression right = parseAnd();
+        left = right == null ? null : new Or(left, right);
+      }
+      return left;
+    }
+
+    private SimpleExpression parseAnd() {
+      SimpleExpression left = parseEquality();
+      while (left != null && accept("and", "&&")) {
+        SimpleExpression right = parseEquality();
+        left = right == null ? null : new And(left, right);
+      }
+      return left;
+    }
+
+    private SimpleExpression parseEquality() {
+      SimpleExpression left = parseRelational();
+      while (left != null) {
+        Operator operator;
+        if (accept("==", "eq")) {
+          operator = Operator.EQUAL;
+        } else if (accept("!=", "neq")) {
+          operator = Operator.NOT_EQUAL;
+        } else {
+          break;
+        }
+        SimpleExpression right = parseRelational();
+        left = right == null ? null : new Comparison(operator, left, right);
+      }
+      return left;
+    }
+
+    private SimpleExpression parseRelational() {
+      SimpleExpression left = parseUnary();
+      while (left != null) {
+        Operator operator;
+        if (accept("<", "lt")) {
+          operator = Operator.LESS;
+        } else if (accept("<=", "lte")) {
+          operator = Operator.LESS_OR_EQUAL;
+        } else if (accept(">", "gt")) {
+          operator = Operator.GREATER;
+        } else if (accept(">=", "gte")) {
+          operator = Operator.GREATER_OR_EQUAL;
+        } else {
+          break;
+        }
+        SimpleExpression right = parseUnary();
+        left = right == null ? null : new Comparison(operator, left, right);
+      }
+      return left;
+    }
+
+    private SimpleExpression parseUnary() {
+      if (accept("!", "not")) {
+        SimpleExpression operand = parseUnary();
+        return operand == null ? null : new Not(operand);
+      }
+      return parsePrimary();
+    }
+
+    private SimpleExpression parsePrimary() {
+      String token = peek();
+      if (token == null) {
+        return null;
+      }
+      position++;
+      if (token.equals("(")) {
+        SimpleExpression inner = parseOr();
+        return inner != null && accept(")") ? inner : null;
+      }
+      char first = token.charAt(0);
+      if (first == '\'' || first == '"') {
+        String value = token.substring(1, token.length() - 1);
+        // OGNL reads a single character between single quotes as a Character
+        return new Literal(first == '\'' && value.length() == 1 ? (Object) value.charAt(0) : value);
+      }
+      if (first >= '0' && first <= '9') {
+        if (first == '0' && token.length() > 1) {
+          // octal
+          return null;
+        }
+        try {
+          return new Literal(Integer.valueOf(token));
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+      if (!Character.isJavaIdentifierStart(first)) {
+        return null;
+      }
+      switch (token) {
+        case "null":
+          return new Literal(null);
+        case "true":
+          return new Literal(Boolean.TRUE);
+        case "false":
+          return new Literal(Boolean.FALSE);
+        default:
+          if (isKeyword(token)) {
+            return null;
+          }
+          return parsePath(token);
+      }
+    }
+
+    private SimpleExpression parsePath(String first) {
+      List<String> names = new ArrayList<>();
+      names.add(first);
+      while (accept(".")) {
+        String name = peek();
+        if (name == null || !Character.isJavaIdentifierStart(name.charAt(0)) || isKeyword(name)) {
+          return null;
+        }
+        position++;
+        if (accept("(")) {
+          if (!accept(")") || !(name.equals("size") || name.equals("isEmpty") || name.equals("length"))) {
+            return null;
+          }
+          name += "()";
+        }
+        names.add(name);
+      }
+      if ("(".equals(peek())) {
+        // method calls on the root object
+        return null;
+      }
+      return new Path(names.toArray(new String[0]));
+    }
+
+    private static boolean isKeyword(String token) {
+      switch (token) {
+        case "and":
+        case "or":
+        case "not":
+        case "eq":
+        case "neq":
+        case "lt":
+        case "lte":
+        case "gt":
+        case "gte":
+        case "in":
+        case "instanceof":
+        case "shl":
+        case "shr":
+        case "ushr":
+        case "band":
+        case "bor":
+        case "xor":
+        case "new":
+        case "null":
+        case "true":
+        case "false":
+          return true;
+        default:
+          return false;
+      }
+    }
+  }
+
+  private static final class Literal extends SimpleExpression {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      return value;
+    }
+  }
+
+  private static final class Path extends SimpleExpression {
+    private final String[] names;
+
+    Path(String[] names) {
+      this.names = names;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      ReflectorFactory reflectorFactory = root instanceof DynamicContext.ContextMap
+          ? ((DynamicContext.ContextMap) root).getReflectorFactory() : null;
+      Object value = root;
+      try {
+        for (String name : names) {
+          value = getProperty(value, name, reflectorFactory);
+          if (value == UNSUPPORTED) {
+            break;
+          }
+        }
+      } catch (RuntimeException e) {
+        // let OGNL report the failure
+        return UNSUPPORTED;
+      }
+      return value;
+    }
+
+    private static Object getProperty(Object target, String name, ReflectorFactory reflectorFactory) {
+      if (target == null) {
+        return UNSUPPORTED;
+      }
+      if (name.endsWith("()")) {
+        return invoke(target, name);
+      }
+      if (target instanceof DynamicContext.ContextMap) {
+        return CONTEXT_ACCESSOR.getProperty(null, target, name);
+      }
+      if (target instanceof Map) {
+        return getMapProperty((Map<?, ?>) target, name);
+      }
+      if (target.getClass().isArray()) {
+        return "length".equals(name) ? (Object) Array.getLength(target) : UNSUPPORTED;
+      }
+      if (target instanceof Collection || target instanceof Iterator || target instanceof Enumeration) {
+        return UNSUPPORTED;
+      }
+      Reflector reflector = reflectorFactory != null
+          ? reflectorFactory.findForClass(target.getClass()) : REFLECTORS.get(target.getClass());
+      if (!reflector.hasGetter(name)) {
+        return UNSUPPORTED;
+      }
+      try {
+        return reflector.getGetInvoker(name).invoke(target, null);
+      } catch (Exception e) {
+        // let OGNL report the failure
+        return UNSUPPORTED;
+      }
+    }
+
+    /**
+     * Same as OGNL's {@code MapPropertyAccessor}.
+     */
+    private static Object getMapProperty(Map<?, ?> map, String name) {
+      switch (name) {
+        case "size":
+          return map.size();
+        case "keys":
+        case "keySet":
+          return map.keySet();
+        case "values":
+          return map.values();
+        case "isEmpty":
+          return map.isEmpty() ? Boolean.TRUE : Boolean.FALSE;
+        default:
+          return map.get(name);
+      }
+    }
+
+    private static Object invoke(Object target, String method) {
+      switch (method) {
+        case "size()":
+          if (target instanceof Collection) {
+            return ((Collection<?>) target).size();
+          } else if (target instanceof Map) {
+            return ((Map<?, ?>) target).size();
+          }
+          return UNSUPPORTED;
+        case "isEmpty()":
+          if (target instanceof Collection) {
+            return ((Collection<?>) target).isEmpty();
+          } else if (target instanceof Map) {
+            return ((Map<?, ?>) target).isEmpty();
+          } else if (target instanceof String) {
+            return ((String) target).isEmpty();
+          }
+          return UNSUPPORTED;
+        default:
+          return target instanceof CharSequence ? (Object) ((CharSequence) target).length() : UNSUPPORTED;
+      }
+    }
+  }
+
+  private enum Operator {
+    EQUAL, NOT_EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL
+  }
+
+  private static final class Comparison extends SimpleExpression {
+    private final Operator operator;
+    private final SimpleExpression left;
+    private final SimpleExpression right;
+
+    Comparison(Operator operator, SimpleExpression left, SimpleExpression right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object v1 = left.getValue(root);
+      if (v1 == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      Object v2 = right.getValue(root);
+      if (v2 == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      try {
+        switch (operator) {
+          case EQUAL:
+            return OgnlOps.equal(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+          case NOT_EQUAL:
+            return OgnlOps.equal(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+          case LESS:
+            return OgnlOps.less(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+          case LESS_OR_EQUAL:
+            return OgnlOps.greater(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+          case GREATER:
+            return OgnlOps.greater(v1, v2) ? Boolean.TRUE : Boolean.FALSE;
+          default:
+            return OgnlOps.less(v1, v2) ? Boolean.FALSE : Boolean.TRUE;
+        }
+      } catch (RuntimeException e) {
+        // e.g. comparing a String with a Character, let OGNL report the failure
+        return UNSUPPORTED;
+      }
+    }
+  }
+
+  private static final class And extends SimpleExpression {
+    private final SimpleExpression left;
+    private final SimpleExpression right;
+
+    And(SimpleExpression left, SimpleExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      if (value == UNSUPPORTED || !OgnlOps.booleanValue(value)) {
+        return value;
+      }
+      return right.getValue(root);
+    }
+  }
+
+  private static final class Or extends SimpleExpression {
+    private final SimpleExpression left;
+    private final SimpleExpression right;
+
+    Or(SimpleExpression left, SimpleExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      if (value == UNSUPPORTED || OgnlOps.booleanValue(value)) {
+        return value;
+      }
+      return right.getValue(root);
+    }
+  }
+
+  private static final class Not extends SimpleExpression {
+    private final SimpleExpression operand;
+
+    Not(SimpleExpression operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    Object getValue(Object root) {
+      Object value = operand.getValue(root);
+      if (value == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      return OgnlOps.booleanValue(value) ? Boolean.FALSE : Boolean.TRUE;
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.parsing.GenericTokenParser;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+
+/**
+ * A piece of sql whose {@code #{...}} placeholders have already been replaced with {@code ?}.
+ * <p>
+ * Static text is parsed once when the script is built, so only the text produced at runtime
+ * (e.g. by {@code ${...}} substitutions) has to be scanned for placeholders while a statement is executed.
+ */
+final class SqlFragment {
+
+  private static final Placeholder[] NO_PLACEHOLDERS = new Placeholder[0];
+
+  private final String sql;
+  private final Placeholder[] placeholders;
+  private final boolean blank;
+
+  SqlFragment(String sql, Placeholder[] placeholders) {
+    this.sql = sql;
+    this.placeholders = placeholders;
+    this.blank = sql.trim().isEmpty();
+  }
+
+  static SqlFragment parse(String text) {
+    List<Placeholder> placeholders = new ArrayList<>();
+    GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
+      placeholders.add(new Placeholder(content));
+      return "?";
+    });
+    String sql = parser.parse(text);
+    return new SqlFragment(sql, placeholders.isEmpty() ? NO_PLACEHOLDERS : placeholders.toArray(NO_PLACEHOLDERS));
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  Placeholder[] getPlaceholders() {
+    return placeholders;
+  }
+
+  boolean isBlank() {
+    return blank;
+  }
+
+  /**
+   * Returns a copy of this fragment with each placeholder content rewritten by the given function.
+   */
+  SqlFragment rewritePlaceholders(UnaryOperator<String> rewriter) {
+    if (placeholders.length == 0) {
+      return this;
+    }
+    Placeholder[] rewritten = new Placeholder[placeholders.length];
+    for (int i = 0; i < placeholders.length; i++) {
+      rewritten[i] = new Placeholder(rewriter.apply(placeholders[i].content));
+    }
+    return new SqlFragment(sql, rewritten);
+  }
+
+  /**
+   * The content of a {@code #{...}} placeholder, which remembers the last parameter mapping built for it.
+   * <p>
+   * A mapping only depends on the parameter type unless its property is also found in the additional parameters
+   * (see issue #448), so the remembered mapping is reused as long as the parameter type is the same and
+   * the property is not bound in the context.
+   */
+  static final class Placeholder {
+    private final String content;
+    private volatile ResolvedMapping resolved;
+
+    Placeholder(String content) {
+      this.content = content;
+    }
+
+    String getContent() {
+      return content;
+    }
+
+    ParameterMapping resolve(Class<?> parameterType, Map<String, Object> bindings, boolean reusable,
+        Function<String, ParameterMapping> mappingBuilder) {
+      ResolvedMapping last = resolved;
+      if (reusable && last != null && last.parameterType == parameterType && !bindings.containsKey(last.bindingName)) {
+        return last.mapping;
+      }
+      ParameterMapping mapping = mappingBuilder.apply(content);
+      if (reusable && mapping.getProperty() != null) {
+        String bindingName = bindingName(mapping.getProperty());
+        if (!bindings.containsKey(bindingName)) {
+          resolved = new ResolvedMapping(parameterType, bindingName, mapping);
+        }
+      }
+      return mapping;
+    }
+
+    /**
+     * Returns the key that is looked up in the additional parameters to find the given property.
+     */
+    private static String bindingName(String property) {
+      PropertyTokenizer prop = new PropertyTokenizer(property);
+      return prop.hasNext() ? prop.getIndexedName() : prop.getName();
+    }
+  }
+
+  private static final class ResolvedMapping {
+    private final Class<?> parameterType;
+    private final String bindingName;
+    private final ParameterMapping mapping;
+
+    ResolvedMapping(Class<?> parameterType, String bindingName, ParameterMapping mapping) {
+      this.parameterType = parameterType;
+      this.bindingName = bindingName;
+      this.mapping = mapping;
+    }
+  }
+
+}
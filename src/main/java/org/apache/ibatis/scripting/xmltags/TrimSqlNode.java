@@ -16,6 +16,7 @@
 package org.apache.ibatis.scripting.xmltags;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -35,6 +36,8 @@ public class TrimSqlNode implements SqlNode {
   private final List<String> prefixesToOverride;
   private final List<String> suffixesToOverride;
   private final Configuration configuration;
+  private final SqlFragment parsedPrefix;
+  private final SqlFragment parsedSuffix;
 
   public TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, String prefixesToOverride, String suffix, String suffixesToOverride) {
     this(configuration, contents, prefix, parseOverrides(prefixesToOverride), suffix, parseOverrides(suffixesToOverride));
@@ -47,6 +50,8 @@ public class TrimSqlNode implements SqlNode {
     this.suffix = suffix;
     this.suffixesToOverride = suffixesToOverride;
     this.configuration = configuration;
+    this.parsedPrefix = prefix == null ? null : SqlFragment.parse(prefix);
+    this.parsedSuffix = suffix == null ? null : SqlFragment.parse(suffix);
   }
 
   @Override
@@ -74,6 +79,7 @@ public class TrimSqlNode implements SqlNode {
     private boolean prefixApplied;
     private boolean suffixApplied;
     private StringBuilder sqlBuffer;
+    private final List<SqlFragment.Placeholder> placeholders;
 
     public FilteredDynamicContext(DynamicContext delegate) {
       super(configuration, null);
@@ -81,6 +87,7 @@ public class TrimSqlNode implements SqlNode {
       this.prefixApplied = false;
       this.suffixApplied = false;
       this.sqlBuffer = new StringBuilder();
+      this.placeholders = delegate.acceptsParsedSql() ? new ArrayList<>() : null;
     }
 
     public void applyAll() {
@@ -90,7 +97,11 @@ public class TrimSqlNode implements SqlNode {
         applyPrefix(sqlBuffer, trimmedUppercaseSql);
         applySuffix(sqlBuffer, trimmedUppercaseSql);
       }
-      delegate.appendSql(sqlBuffer.toString());
+      if (placeholders != null) {
+        delegate.appendSql(new SqlFragment(sqlBuffer.toString(), placeholders.toArray(new SqlFragment.Placeholder[0])));
+      } else {
+        delegate.appendSql(sqlBuffer.toString());
+      }
     }
 
     @Override
@@ -110,7 +121,22 @@ public class TrimSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      sqlBuffer.append(sql);
+      if (placeholders != null && sql != null && sql.contains("#{")) {
+        appendSql(SqlFragment.parse(sql));
+      } else {
+        sqlBuffer.append(sql);
+      }
+    }
+
+    @Override
+    void appendSql(SqlFragment fragment) {
+      sqlBuffer.append(fragment.getSql());
+      Collections.addAll(placeholders, fragment.getPlaceholders());
+    }
+
+    @Override
+    boolean acceptsParsedSql() {
+      return placeholders != null;
     }
 
     @Override
@@ -131,7 +157,13 @@ public class TrimSqlNode implements SqlNode {
         }
         if (prefix != null) {
           sql.insert(0, " ");
-          sql.insert(0, prefix);
+          if (placeholders != null) {
+            // the placeholders of the prefix come before the ones of the contents
+            sql.insert(0, parsedPrefix.getSql());
+            placeholders.addAll(0, Arrays.asList(parsedPrefix.getPlaceholders()));
+          } else {
+            sql.insert(0, prefix);
+          }
         }
       }
     }
@@ -151,7 +183,12 @@ public class TrimSqlNode implements SqlNode {
         }
         if (suffix != null) {
           sql.append(" ");
-          sql.append(suffix);
+          if (placeholders != null) {
+            sql.append(parsedSuffix.getSql());
+            Collections.addAll(placeholders, parsedSuffix.getPlaceholders());
+          } else {
+            sql.append(suffix);
+          }
         }
       }
     }
@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An asynchronous facade over a {@link SqlSessionFactory}.
+ * <p>
+ * Each call opens its own {@link SqlSession} on the {@link Configuration#getAsyncExecutor() async executor},
+ * executes the statement, commits and closes the session, so calls do not block the calling thread
+ * and several calls can run in parallel. As a consequence, calls do not share a transaction nor a local cache.
+ * Instances are thread safe.
+ *
+ * @since 3.5.6
+ * @see SqlSessionFactory#openAsyncSession()
+ */
+public interface AsyncSqlSession {
+
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  CompletableFuture<Integer> insert(String statement);
+
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  CompletableFuture<Integer> update(String statement);
+
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  CompletableFuture<Integer> delete(String statement);
+
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  /**
+   * Retrieves a mapper. The methods of the mapper that return a {@link CompletableFuture} are executed on the
+   * async executor, the other ones are executed by the calling thread. Each call uses its own session.
+   *
+   * @param <T>
+   *          the mapper type
+   * @param type
+   *          Mapper interface class
+   * @return a mapper bound to this session
+   */
+  <T> T getMapper(Class<T> type);
+
+  Configuration getConfiguration();
+
+}
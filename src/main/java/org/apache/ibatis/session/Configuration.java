@@ -25,6 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,12 +38,29 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.SingleFlight;
+import org.apache.ibatis.cache.TableVersions;
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.CompactCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationBus;
+import org.apache.ibatis.cache.invalidation.CacheInvalidationTransport;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+import org.apache.ibatis.cache.metrics.CacheMetricsReporter;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsReporter;
+import org.apache.ibatis.cache.weigher.RetainedSizeWeigher;
+import org.apache.ibatis.cache.weigher.RowCountWeigher;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
@@ -52,7 +73,10 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.CompactRowMap;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.MappingPlan;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
@@ -116,6 +140,9 @@ public class Configuration {
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
   protected boolean shrinkWhitespacesInSql;
+  protected boolean compiledRowMappersEnabled;
+  protected int mappingPlanCacheSize = 1024;
+  protected boolean compactRowMapsEnabled;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -126,6 +153,21 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Integer maxBatchSize;
+  protected Integer maxTotalBatchSize;
+  // java.util.concurrent.Executor is not imported, as Executor is the statement executor here
+  protected java.util.concurrent.Executor asyncExecutor;
+  private volatile java.util.concurrent.Executor defaultAsyncExecutor;
+  protected boolean parallelNestedQueriesEnabled;
+  protected int maxParallelNestedQueries = 4;
+  protected CacheInvalidationScope cacheInvalidationScope = CacheInvalidationScope.NAMESPACE;
+  protected boolean cacheSingleFlightEnabled;
+  protected int cacheSingleFlightTimeout = 10000;
+  protected Integer localCacheSize;
+  protected Integer localCacheMaxRows;
+  protected boolean cacheMetricsEnabled;
+  protected CacheMetricsReporter cacheMetricsReporter;
+  protected CacheInvalidationBus cacheInvalidationBus;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -158,9 +200,13 @@ public class Configuration {
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  protected final Map<String, CacheCodec> cacheCopyCodecs = new HashMap<>();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
+  protected Cache mappingPlans = newMappingPlanCache(mappingPlanCacheSize);
+  protected final TableVersions tableVersions = new TableVersions();
+  protected final SingleFlight singleFlight = new SingleFlight();
 
   protected final Set<String> loadedResources = new HashSet<>();
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
@@ -191,6 +237,7 @@ public class Configuration {
     // 数据源工厂
     typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
     typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_POOLED", ConcurrentPooledDataSourceFactory.class);
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     // 缓存类别名
@@ -199,6 +246,14 @@ public class Configuration {
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
+    typeAliasRegistry.registerAlias("JAVA", JavaSerializationCodec.class);
+    typeAliasRegistry.registerAlias("COMPACT", CompactCodec.class);
+    typeAliasRegistry.registerAlias("BYTES", RetainedSizeWeigher.class);
+    typeAliasRegistry.registerAlias("ROWS", RowCountWeigher.class);
+    typeAliasRegistry.registerAlias("JMX", JmxCacheMetricsReporter.class);
+    typeAliasRegistry.registerAlias("LOOPBACK", LoopbackTransport.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -306,6 +361,85 @@ public class Configuration {
     this.shrinkWhitespacesInSql = shrinkWhitespacesInSql;
   }
 
+  /**
+   * Gets whether flat result maps are mapped with compiled row mappers.
+   *
+   * @return {@code true} if compiled row mappers are enabled
+   * @since 3.5.6
+   */
+  public boolean isCompiledRowMappersEnabled() {
+    return compiledRowMappersEnabled;
+  }
+
+  /**
+   * Sets whether flat result maps are mapped with compiled row mappers.
+   *
+   * @param compiledRowMappersEnabled
+   *          {@code true} to map rows of flat result maps through method handles instead of {@code MetaObject}
+   * @since 3.5.6
+   * @see CompiledRowMapper
+   */
+  public void setCompiledRowMappersEnabled(boolean compiledRowMappersEnabled) {
+    this.compiledRowMappersEnabled = compiledRowMappersEnabled;
+  }
+
+  /**
+   * Gets the maximum number of mapping plans shared between statement executions.
+   *
+   * @return the maximum number of mapping plans
+   * @since 3.5.6
+   */
+  public int getMappingPlanCacheSize() {
+    return mappingPlanCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of mapping plans shared between statement executions. The least recently used plans are
+   * evicted first. Setting it to {@code 0} resolves the mappings once per result set, as before plans were shared.
+   *
+   * @param mappingPlanCacheSize
+   *          the maximum number of mapping plans
+   * @since 3.5.6
+   * @see MappingPlan
+   */
+  public void setMappingPlanCacheSize(int mappingPlanCacheSize) {
+    this.mappingPlanCacheSize = mappingPlanCacheSize;
+    this.mappingPlans = newMappingPlanCache(mappingPlanCacheSize);
+  }
+
+  private static Cache newMappingPlanCache(int size) {
+    if (size <= 0) {
+      return null;
+    }
+    final LruCache lruCache = new LruCache(new PerpetualCache("MappingPlans"));
+    lruCache.setSize(size);
+    return new SynchronizedCache(lruCache);
+  }
+
+  /**
+   * Gets whether the rows of {@code java.util.Map} result types are compact row maps.
+   *
+   * @return {@code true} if compact row maps are enabled
+   * @since 3.5.6
+   */
+  public boolean isCompactRowMapsEnabled() {
+    return compactRowMapsEnabled;
+  }
+
+  /**
+   * Sets whether the rows of {@code java.util.Map} result types (e.g. {@code resultType="map"}) are compact row maps,
+   * which share their keys with the other rows of the result set instead of being {@code HashMap}s.
+   * It has no effect when a custom object factory is configured.
+   *
+   * @param compactRowMapsEnabled
+   *          {@code true} to create compact row maps
+   * @since 3.5.6
+   * @see CompactRowMap
+   */
+  public void setCompactRowMapsEnabled(boolean compactRowMapsEnabled) {
+    this.compactRowMapsEnabled = compactRowMapsEnabled;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -344,6 +478,7 @@ public class Configuration {
 
   public void setMapUnderscoreToCamelCase(boolean mapUnderscoreToCamelCase) {
     this.mapUnderscoreToCamelCase = mapUnderscoreToCamelCase;
+    clearMappingPlans();
   }
 
   public void addLoadedResource(String resource) {
@@ -389,6 +524,7 @@ public class Configuration {
    */
   public void setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior) {
     this.autoMappingUnknownColumnBehavior = autoMappingUnknownColumnBehavior;
+    clearMappingPlans();
   }
 
   public boolean isLazyLoadingEnabled() {
@@ -487,6 +623,365 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  /**
+   * Gets the number of updates a statement of the batch executor accumulates before its batch is executed.
+   *
+   * @return the maximum batch size, {@code null} if unlimited
+   * @since 3.5.6
+   */
+  public Integer getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Sets the number of updates a statement of the batch executor accumulates before its batch is executed.
+   * When the limit is reached, the pending batches are executed in order, their parameter objects are released and
+   * their update counts are appended to their {@link org.apache.ibatis.executor.BatchResult}.
+   *
+   * @param maxBatchSize
+   *          the maximum batch size, {@code null} if unlimited
+   * @since 3.5.6
+   */
+  public void setMaxBatchSize(Integer maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Gets the number of updates the batch executor accumulates, across all its statements, before executing them.
+   *
+   * @return the maximum total batch size, {@code null} if unlimited
+   * @since 3.5.6
+   */
+  public Integer getMaxTotalBatchSize() {
+    return maxTotalBatchSize;
+  }
+
+  /**
+   * Sets the number of updates the batch executor accumulates, across all its statements, before executing them.
+   *
+   * @param maxTotalBatchSize
+   *          the maximum total batch size, {@code null} if unlimited
+   * @since 3.5.6
+   * @see #setMaxBatchSize(Integer)
+   */
+  public void setMaxTotalBatchSize(Integer maxTotalBatchSize) {
+    this.maxTotalBatchSize = maxTotalBatchSize;
+  }
+
+  /**
+   * Gets the executor that runs the statements of {@link AsyncSqlSession}s and of mapper methods returning a
+   * {@link java.util.concurrent.CompletableFuture}.
+   *
+   * @return the async executor, or a pool of daemon threads owned by this configuration if none was set
+   * @since 3.5.6
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    if (asyncExecutor != null) {
+      return asyncExecutor;
+    }
+    java.util.concurrent.Executor executor = defaultAsyncExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = defaultAsyncExecutor;
+        if (executor == null) {
+          executor = newDefaultAsyncExecutor();
+          defaultAsyncExecutor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Sets the executor that runs the statements of {@link AsyncSqlSession}s and of mapper methods returning a
+   * {@link java.util.concurrent.CompletableFuture}, e.g. an executor that starts a virtual thread per task.
+   *
+   * @param asyncExecutor
+   *          the async executor
+   * @since 3.5.6
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Creates the executor used when none is set: at most one daemon thread per processor (and at least two), as
+   * statements block on JDBC. The tasks beyond that wait in a queue, and idle threads stop after a minute,
+   * so an unused configuration does not keep any thread.
+   */
+  private static java.util.concurrent.Executor newDefaultAsyncExecutor() {
+    final int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+    final AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Returns whether the eager nested queries of a statement are run concurrently on the async executor.
+   *
+   * @return {@code true} if nested queries are run in parallel
+   * @since 3.5.6
+   */
+  public boolean isParallelNestedQueriesEnabled() {
+    return parallelNestedQueriesEnabled;
+  }
+
+  /**
+   * Sets whether the eager nested queries of a statement are run concurrently on the async executor.
+   * <p>
+   * This only applies to the statements of sessions whose connection is in auto-commit mode, so there are no uncommitted
+   * changes the other connections would not see, and to the nested queries whose result maps have no nested queries
+   * themselves. Up to {@link #getMaxParallelNestedQueries()} workers per statement then run these nested queries, each
+   * on its own connection. The nested queries no worker has started when the rows of the statement have been read are
+   * run by the calling thread on the connection of the session. The nested queries sharing the same parameters are
+   * only executed once.
+   *
+   * @param parallelNestedQueriesEnabled
+   *          {@code true} to run nested queries in parallel
+   * @since 3.5.6
+   * @see #setAsyncExecutor(java.util.concurrent.Executor)
+   */
+  public void setParallelNestedQueriesEnabled(boolean parallelNestedQueriesEnabled) {
+    this.parallelNestedQueriesEnabled = parallelNestedQueriesEnabled;
+  }
+
+  /**
+   * Gets the maximum number of workers that run the nested queries of one statement in parallel.
+   *
+   * @return the maximum number of workers per statement
+   * @since 3.5.6
+   */
+  public int getMaxParallelNestedQueries() {
+    return maxParallelNestedQueries;
+  }
+
+  /**
+   * Sets the maximum number of workers that run the nested queries of one statement in parallel. Each worker holds a
+   * connection in addition to the one of the session.
+   *
+   * @param maxParallelNestedQueries
+   *          the maximum number of workers per statement
+   * @since 3.5.6
+   * @see #setParallelNestedQueriesEnabled(boolean)
+   */
+  public void setMaxParallelNestedQueries(int maxParallelNestedQueries) {
+    this.maxParallelNestedQueries = maxParallelNestedQueries;
+  }
+
+  /**
+   * Gets the entries of the 2nd level caches a statement that flushes the cache invalidates.
+   *
+   * @return the cache invalidation scope
+   * @since 3.5.6
+   */
+  public CacheInvalidationScope getCacheInvalidationScope() {
+    return cacheInvalidationScope;
+  }
+
+  /**
+   * Sets the entries of the 2nd level caches a statement that flushes the cache invalidates. It must be set before the
+   * caches are built.
+   *
+   * @param cacheInvalidationScope
+   *          the cache invalidation scope
+   * @since 3.5.6
+   */
+  public void setCacheInvalidationScope(CacheInvalidationScope cacheInvalidationScope) {
+    this.cacheInvalidationScope = cacheInvalidationScope;
+  }
+
+  /**
+   * Gets whether the concurrent loads of the same 2nd level cache entry by different sessions are coalesced.
+   *
+   * @return {@code true} if the loads are coalesced
+   * @since 3.5.6
+   */
+  public boolean isCacheSingleFlightEnabled() {
+    return cacheSingleFlightEnabled;
+  }
+
+  /**
+   * Sets whether the concurrent loads of the same 2nd level cache entry by different sessions are coalesced.
+   * <p>
+   * When several sessions miss on the same cache key at once, only the first one queries the database and the others
+   * receive a copy of its result. The sessions that have executed updates since their last commit or rollback neither
+   * share nor receive results.
+   *
+   * @param cacheSingleFlightEnabled
+   *          {@code true} to coalesce the loads
+   * @since 3.5.6
+   * @see #setCacheSingleFlightTimeout(int)
+   */
+  public void setCacheSingleFlightEnabled(boolean cacheSingleFlightEnabled) {
+    this.cacheSingleFlightEnabled = cacheSingleFlightEnabled;
+  }
+
+  /**
+   * Gets the maximum time in milliseconds a session waits for the load of a cache entry by another session.
+   *
+   * @return the single flight timeout, {@code 0} if a session waits until the load is done
+   * @since 3.5.6
+   */
+  public int getCacheSingleFlightTimeout() {
+    return cacheSingleFlightTimeout;
+  }
+
+  /**
+   * Sets the maximum time in milliseconds a session waits for the load of a cache entry by another session, after which
+   * it queries the database by itself. The default is 10000.
+   *
+   * @param cacheSingleFlightTimeout
+   *          the single flight timeout, {@code 0} to wait until the load is done
+   * @since 3.5.6
+   */
+  public void setCacheSingleFlightTimeout(int cacheSingleFlightTimeout) {
+    this.cacheSingleFlightTimeout = cacheSingleFlightTimeout;
+  }
+
+  /**
+   * Gets the maximum number of entries of the local cache of a session.
+   *
+   * @return the local cache size, {@code null} if the number of entries is not limited
+   * @since 3.5.6
+   */
+  public Integer getLocalCacheSize() {
+    return localCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of entries of the local cache of a session. The least recently used entries are evicted
+   * once the outermost query of the session completes, so nested queries and deferred loads always see the results of
+   * the queries they depend on.
+   *
+   * @param localCacheSize
+   *          the local cache size, {@code null} to not limit the number of entries
+   * @since 3.5.6
+   * @see #setLocalCacheMaxRows(Integer)
+   */
+  public void setLocalCacheSize(Integer localCacheSize) {
+    this.localCacheSize = localCacheSize;
+  }
+
+  /**
+   * Gets the maximum number of rows held by the local cache of a session.
+   *
+   * @return the maximum number of rows, {@code null} if the number of rows is not limited
+   * @since 3.5.6
+   */
+  public Integer getLocalCacheMaxRows() {
+    return localCacheMaxRows;
+  }
+
+  /**
+   * Sets the maximum number of rows held by the local cache of a session, counted as the sizes of the cached lists.
+   * Entries are evicted the same way as with {@link #setLocalCacheSize(Integer)}.
+   *
+   * @param localCacheMaxRows
+   *          the maximum number of rows, {@code null} to not limit the number of rows
+   * @since 3.5.6
+   */
+  public void setLocalCacheMaxRows(Integer localCacheMaxRows) {
+    this.localCacheMaxRows = localCacheMaxRows;
+  }
+
+  /**
+   * Gets whether the 2nd level caches collect metrics.
+   *
+   * @return {@code true} if the caches collect metrics
+   * @since 3.5.6
+   */
+  public boolean isCacheMetricsEnabled() {
+    return cacheMetricsEnabled;
+  }
+
+  /**
+   * Sets whether the 2nd level caches collect metrics. When enabled, the caches built afterwards implement
+   * {@link CacheMetrics}, and are registered to the {@link #setCacheMetricsReporter(CacheMetricsReporter) metrics
+   * reporter} if any.
+   *
+   * @param cacheMetricsEnabled
+   *          {@code true} to collect metrics
+   * @since 3.5.6
+   */
+  public void setCacheMetricsEnabled(boolean cacheMetricsEnabled) {
+    this.cacheMetricsEnabled = cacheMetricsEnabled;
+  }
+
+  /**
+   * Gets the reporter the metrics of the 2nd level caches are registered to.
+   *
+   * @return the cache metrics reporter, {@code null} if the metrics are not reported
+   * @since 3.5.6
+   */
+  public CacheMetricsReporter getCacheMetricsReporter() {
+    return cacheMetricsReporter;
+  }
+
+  /**
+   * Sets the reporter the metrics of the 2nd level caches are registered to, e.g. a {@link JmxCacheMetricsReporter}.
+   * It must be set before the caches are built, and has no effect unless the metrics are enabled.
+   *
+   * @param cacheMetricsReporter
+   *          the cache metrics reporter, {@code null} to not report the metrics
+   * @since 3.5.6
+   */
+  public void setCacheMetricsReporter(CacheMetricsReporter cacheMetricsReporter) {
+    this.cacheMetricsReporter = cacheMetricsReporter;
+  }
+
+  /**
+   * Gets the transport the cache invalidations are broadcast with to the other nodes of a cluster.
+   *
+   * @return the cache invalidation transport, {@code null} if the invalidations are not broadcast
+   * @since 3.5.6
+   */
+  public CacheInvalidationTransport getCacheInvalidationTransport() {
+    return cacheInvalidationBus == null ? null : cacheInvalidationBus.getTransport();
+  }
+
+  /**
+   * Sets the transport the cache invalidations are broadcast with to the other nodes of a cluster.
+   * <p>
+   * When a session commits, the caches of the namespaces it flushed, or the tables it wrote to when the cache
+   * invalidation scope is {@link CacheInvalidationScope#TABLE}, are invalidated on the other nodes too. This makes the
+   * 2nd level caches safe to enable when several nodes write to the same database, with a short delay before the other
+   * nodes see the invalidation.
+   *
+   * @param cacheInvalidationTransport
+   *          the cache invalidation transport, {@code null} to not broadcast the invalidations
+   * @since 3.5.6
+   */
+  public void setCacheInvalidationTransport(CacheInvalidationTransport cacheInvalidationTransport) {
+    this.cacheInvalidationBus = cacheInvalidationTransport == null ? null : new CacheInvalidationBus(this, cacheInvalidationTransport);
+  }
+
+  /**
+   * Gets the bus the cache invalidations are published to and received from.
+   *
+   * @return the cache invalidation bus, {@code null} if no transport is set
+   * @since 3.5.6
+   */
+  public CacheInvalidationBus getCacheInvalidationBus() {
+    return cacheInvalidationBus;
+  }
+
+  /**
+   * Gets the versions of the tables the cache entries are checked against when the cache invalidation scope is
+   * {@link CacheInvalidationScope#TABLE}.
+   *
+   * @return the table versions
+   * @since 3.5.6
+   */
+  public TableVersions getTableVersions() {
+    return tableVersions;
+  }
+
   /**
    * Gets the default result set type.
    *
@@ -584,6 +1079,7 @@ public class Configuration {
 
   public void setObjectFactory(ObjectFactory objectFactory) {
     this.objectFactory = objectFactory;
+    clearMappingPlans();
   }
 
   public ObjectWrapperFactory getObjectWrapperFactory() {
@@ -592,6 +1088,7 @@ public class Configuration {
 
   public void setObjectWrapperFactory(ObjectWrapperFactory objectWrapperFactory) {
     this.objectWrapperFactory = objectWrapperFactory;
+    clearMappingPlans();
   }
 
   /**
@@ -726,7 +1223,9 @@ public class Configuration {
     // 如果启用二级缓存
     if (cacheEnabled) {
       // 创建一个 CachingExecutor 类型，使用装饰器模式
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor, cacheInvalidationScope == CacheInvalidationScope.TABLE ? tableVersions : null,
+          cacheSingleFlightEnabled ? singleFlight : null, cacheSingleFlightTimeout,
+          cacheInvalidationBus);
     }
     // 添加拦截器，这里用户可以实现自定义的拦截器
     executor = (Executor) interceptorChain.pluginAll(executor);
@@ -755,6 +1254,37 @@ public class Configuration {
 
   public void addCache(Cache cache) {
     caches.put(cache.getId(), cache);
+    if (cacheMetricsReporter != null && cache instanceof CacheMetrics) {
+      cacheMetricsReporter.register(this, (CacheMetrics) cache);
+    }
+  }
+
+  /**
+   * Adds a cache with the codec it copies its objects with.
+   *
+   * @param cache
+   *          the cache
+   * @param copyCodec
+   *          the codec, or {@code null} if the cache hands out the objects it holds without copying them
+   * @since 3.5.6
+   */
+  public void addCache(Cache cache, CacheCodec copyCodec) {
+    addCache(cache);
+    cacheCopyCodecs.put(cache.getId(), copyCodec);
+  }
+
+  /**
+   * Gets the codec a cache copies its objects with, which the other copies of them are made with, e.g. the ones a
+   * {@link SingleFlight} hands over. It defaults to a {@link JavaSerializationCodec} for the caches added without one.
+   *
+   * @param id
+   *          the cache id
+   * @return the codec, or {@code null} if the cache hands out the objects it holds without copying them
+   * @since 3.5.6
+   */
+  public CacheCodec getCacheCopyCodec(String id) {
+    final CacheCodec codec = cacheCopyCodecs.get(id);
+    return codec != null || cacheCopyCodecs.containsKey(id) ? codec : SingleFlight.DEFAULT_CODEC;
   }
 
   public Collection<String> getCacheNames() {
@@ -795,6 +1325,56 @@ public class Configuration {
     return resultMaps.containsKey(id);
   }
 
+  /**
+   * Gets a mapping plan.
+   *
+   * @param key
+   *          the result map id and column prefix followed by the column signature of the result set
+   * @return the mapping plan, or {@code null} if none has been built yet or it has been evicted
+   * @since 3.5.6
+   */
+  public MappingPlan getMappingPlan(String key) {
+    final Cache plans = mappingPlans;
+    return plans == null ? null : (MappingPlan) plans.getObject(key);
+  }
+
+  /**
+   * Adds a mapping plan, keeping the existing one if another thread built it first.
+   *
+   * @param key
+   *          the result map id and column prefix followed by the column signature of the result set
+   * @param mappingPlan
+   *          the mapping plan
+   * @return the mapping plan to use
+   * @since 3.5.6
+   */
+  public MappingPlan addMappingPlan(String key, MappingPlan mappingPlan) {
+    final Cache plans = mappingPlans;
+    if (plans == null) {
+      return mappingPlan;
+    }
+    synchronized (plans) {
+      final MappingPlan existing = (MappingPlan) plans.getObject(key);
+      if (existing != null) {
+        return existing;
+      }
+      plans.putObject(key, mappingPlan);
+      return mappingPlan;
+    }
+  }
+
+  /**
+   * Removes all the mapping plans, so that the mappings are resolved again with the current settings.
+   *
+   * @since 3.5.6
+   */
+  public void clearMappingPlans() {
+    final Cache plans = mappingPlans;
+    if (plans != null) {
+      plans.clear();
+    }
+  }
+
   public void addParameterMap(ParameterMap pm) {
     parameterMaps.put(pm.getId(), pm);
   }
@@ -17,6 +17,8 @@ package org.apache.ibatis.session;
 
 import java.sql.Connection;
 
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
+
 /**
  * 创建一个 SqlSession
  *
@@ -44,4 +46,14 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Opens an asynchronous facade over this factory.
+   *
+   * @return a new async session
+   * @since 3.5.6
+   */
+  default AsyncSqlSession openAsyncSession() {
+    return new DefaultAsyncSqlSession(this);
+  }
+
 }
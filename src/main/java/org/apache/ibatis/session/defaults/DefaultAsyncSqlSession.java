@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionManager;
+
+/**
+ * The default implementation for {@link AsyncSqlSession}, which runs each call through a {@link SqlSessionManager}.
+ *
+ * @since 3.5.6
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  private final SqlSessionManager sqlSession;
+
+  public DefaultAsyncSqlSession(SqlSessionFactory sqlSessionFactory) {
+    this.sqlSession = SqlSessionManager.newInstance(sqlSessionFactory);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return supply(() -> sqlSession.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return supply(() -> sqlSession.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return supply(() -> sqlSession.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return supply(() -> sqlSession.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return supply(() -> sqlSession.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return supply(() -> sqlSession.selectMap(statement, parameter, mapKey));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement) {
+    return supply(() -> sqlSession.insert(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return supply(() -> sqlSession.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement) {
+    return supply(() -> sqlSession.update(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return supply(() -> sqlSession.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement) {
+    return supply(() -> sqlSession.delete(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return supply(() -> sqlSession.delete(statement, parameter));
+  }
+
+  @Override
+  public <T> T getMapper(Class<T> type) {
+    return sqlSession.getMapper(type);
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return sqlSession.getConfiguration();
+  }
+
+  private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+    return CompletableFuture.supplyAsync(supplier, getConfiguration().getAsyncExecutor());
+  }
+
+}
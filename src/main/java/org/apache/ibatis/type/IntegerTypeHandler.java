@@ -23,7 +23,7 @@ import java.sql.SQLException;
 /**
  * @author Clinton Begin
  */
-public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
+public class IntegerTypeHandler extends BaseTypeHandler<Integer> implements PrimitiveTypeHandler<Integer> {
 
   @Override
   public void setNonNullParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType)
@@ -51,4 +51,14 @@ public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
     int result = cs.getInt(columnIndex);
     return result == 0 && cs.wasNull() ? null : result;
   }
+
+  @Override
+  public Class<?> getPrimitiveType() {
+    return int.class;
+  }
+
+  @Override
+  public int getInt(ResultSet rs, int columnIndex) throws SQLException {
+    return rs.getInt(columnIndex);
+  }
 }
@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A type handler that can also read its values as a primitive, so that they are not boxed when they are assigned to a
+ * primitive property.
+ * <p>
+ * Like the JDBC getters, the primitive getters return {@code 0} for SQL {@code NULL}, and callers check
+ * {@link ResultSet#wasNull()} to tell them apart. Only the getter matching {@link #getPrimitiveType()} is called. By
+ * default the primitive getters unbox the value returned by {@link #getResult(ResultSet, int)}; handlers override the
+ * one they support to read the column without boxing it.
+ *
+ * @param <T>
+ *          the wrapper type of the primitive
+ * @since 3.5.6
+ */
+public interface PrimitiveTypeHandler<T> extends TypeHandler<T> {
+
+  /**
+   * Gets the primitive type this handler reads.
+   *
+   * @return {@code int.class}, {@code long.class} or {@code double.class}
+   */
+  Class<?> getPrimitiveType();
+
+  default int getInt(ResultSet rs, int columnIndex) throws SQLException {
+    final T value = getResult(rs, columnIndex);
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
+  default long getLong(ResultSet rs, int columnIndex) throws SQLException {
+    final T value = getResult(rs, columnIndex);
+    return value == null ? 0 : ((Number) value).longValue();
+  }
+
+  default double getDouble(ResultSet rs, int columnIndex) throws SQLException {
+    final T value = getResult(rs, columnIndex);
+    return value == null ? 0 : ((Number) value).doubleValue();
+  }
+
+}
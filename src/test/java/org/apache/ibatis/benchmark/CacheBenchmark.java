@@ -0,0 +1,118 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures queries answered from the first level (session) cache and from the second level (namespace) cache.
+ * The second level benchmarks also run with several threads to expose contention on the cache decorators, with the
+ * default LRU eviction and with the W-TinyLFU eviction that does not synchronize reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+  private static final int ROWS = 100;
+
+  @State(Scope.Thread)
+  public static class OpenSession {
+
+    SqlSession sqlSession;
+    EmployeeMapper mapper;
+
+    @Setup(Level.Iteration)
+    public void setUp(SqlSessionFactoryState state) {
+      sqlSession = state.getSqlSessionFactory().openSession();
+      mapper = sqlSession.getMapper(EmployeeMapper.class);
+      mapper.selectEmployees(ROWS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+      sqlSession.close();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class WarmSecondLevelCache {
+
+    @Setup(Level.Iteration)
+    public void setUp(SqlSessionFactoryState state) {
+      try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+        CachedEmployeeMapper mapper = sqlSession.getMapper(CachedEmployeeMapper.class);
+        mapper.selectEmployee(1);
+        mapper.selectEmployees(ROWS);
+        sqlSession.getMapper(TinyLfuCachedEmployeeMapper.class).selectEmployee(1);
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Employee> localCacheHit(OpenSession session) {
+    return session.mapper.selectEmployees(ROWS);
+  }
+
+  @Benchmark
+  public Employee secondLevelCacheHit(SqlSessionFactoryState state, WarmSecondLevelCache cache) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(CachedEmployeeMapper.class).selectEmployee(1);
+    }
+  }
+
+  @Benchmark
+  public List<Employee> secondLevelCacheHitList(SqlSessionFactoryState state, WarmSecondLevelCache cache) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(CachedEmployeeMapper.class).selectEmployees(ROWS);
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Employee secondLevelCacheHitConcurrent(SqlSessionFactoryState state, WarmSecondLevelCache cache) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(CachedEmployeeMapper.class).selectEmployee(1);
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Employee secondLevelCacheHitConcurrentTinyLfu(SqlSessionFactoryState state, WarmSecondLevelCache cache) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(TinyLfuCachedEmployeeMapper.class).selectEmployee(1);
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a {@link CacheKey} the way {@code BaseExecutor.createCacheKey} does, and looking it up in a map
+ * that holds many keys of the same statement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheKeyBenchmark {
+
+  private static final String STATEMENT_ID = "org.apache.ibatis.benchmark.EmployeeMapper.findEmployees";
+  private static final String SQL = "select id, first_name, last_name, email, department_id, hired_on, salary, active"
+      + " from employees where department_id = ? and last_name like ? order by id";
+  private static final int KEYS = 100000;
+
+  private final Map<CacheKey, Object> keys = new HashMap<>();
+  private int next;
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < KEYS; i++) {
+      keys.put(createCacheKey(i % 20, "Last" + i), Boolean.TRUE);
+    }
+  }
+
+  @Benchmark
+  public CacheKey createCacheKey() {
+    return createCacheKey(1, "Last1");
+  }
+
+  @Benchmark
+  public Object lookup() {
+    int i = next++ % KEYS;
+    return keys.get(createCacheKey(i % 20, "Last" + i));
+  }
+
+  private static CacheKey createCacheKey(Integer departmentId, String lastName) {
+    CacheKey cacheKey = new CacheKey(7);
+    cacheKey.update(STATEMENT_ID);
+    cacheKey.update(0);
+    cacheKey.update(Integer.MAX_VALUE);
+    cacheKey.update(SQL);
+    cacheKey.update(departmentId);
+    cacheKey.update(lastName);
+    cacheKey.update("development");
+    return cacheKey;
+  }
+
+}
@@ -0,0 +1,34 @@
+--
+--    Copyright 2009-2020 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table employees if exists;
+drop table departments if exists;
+
+create table departments (
+  id int not null primary key,
+  name varchar(64) not null
+);
+
+create table employees (
+  id int not null primary key,
+  first_name varchar(64) not null,
+  last_name varchar(64) not null,
+  email varchar(128),
+  department_id int not null,
+  hired_on date,
+  salary decimal(12, 2),
+  active boolean
+);
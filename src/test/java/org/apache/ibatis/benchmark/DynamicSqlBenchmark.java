@@ -0,0 +1,82 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering of a dynamic statement ({@code <where>}, {@code <if>}, {@code <foreach>} and {@code <choose>})
+ * into a {@link BoundSql}, without touching the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicSqlBenchmark {
+
+  private MappedStatement staticStatement;
+  private MappedStatement dynamicStatement;
+  private EmployeeExample emptyExample;
+  private EmployeeExample fullExample;
+
+  @Setup
+  public void setUp(SqlSessionFactoryState state) {
+    Configuration configuration = state.getSqlSessionFactory().getConfiguration();
+    staticStatement = configuration.getMappedStatement("org.apache.ibatis.benchmark.EmployeeMapper.selectEmployee");
+    dynamicStatement = configuration.getMappedStatement("org.apache.ibatis.benchmark.EmployeeMapper.findEmployees");
+    emptyExample = new EmployeeExample();
+    fullExample = new EmployeeExample();
+    fullExample.setFirstName("First1%");
+    fullExample.setLastName("Last1%");
+    fullExample.setActive(Boolean.TRUE);
+    fullExample.setDepartmentIds(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)));
+    fullExample.setOrderBy("name");
+  }
+
+  @Benchmark
+  public BoundSql staticSql() {
+    return staticStatement.getBoundSql(1);
+  }
+
+  @Benchmark
+  public BoundSql dynamicSqlNoConditions() {
+    return dynamicStatement.getBoundSql(emptyExample);
+  }
+
+  @Benchmark
+  public BoundSql dynamicSqlAllConditions() {
+    return dynamicStatement.getBoundSql(fullExample);
+  }
+
+}
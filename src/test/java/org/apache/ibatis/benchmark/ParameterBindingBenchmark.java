@@ -0,0 +1,79 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures single row lookups that differ only in how the parameters are bound: a single scalar, a
+ * {@code @Param} map and a bean whose properties feed a {@code <foreach>}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParameterBindingBenchmark {
+
+  private EmployeeExample example;
+
+  @Setup
+  public void setUp() {
+    example = new EmployeeExample();
+    example.setFirstName("First42");
+    example.setLastName("Last42");
+    example.setActive(Boolean.TRUE);
+    example.setDepartmentIds(new ArrayList<>(Arrays.asList(1, 2, 3)));
+  }
+
+  @Benchmark
+  public Employee scalarParameter(SqlSessionFactoryState state) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(EmployeeMapper.class).selectEmployee(42);
+    }
+  }
+
+  @Benchmark
+  public Employee namedParameters(SqlSessionFactoryState state) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(EmployeeMapper.class).selectEmployeeByName("First42", "Last42", 1);
+    }
+  }
+
+  @Benchmark
+  public List<Employee> beanParameter(SqlSessionFactoryState state) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(EmployeeMapper.class).findEmployees(example);
+    }
+  }
+
+}
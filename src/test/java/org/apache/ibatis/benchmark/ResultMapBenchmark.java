@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code selectList} through the whole pipeline down to {@code DefaultResultSetHandler}, for a flat result
+ * map and for a result map with a nested collection. The flat result map is measured with and without compiled row
+ * mappers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultMapBenchmark {
+
+  @Param({ "10", "1000" })
+  public int rows;
+
+  @Param({ "false", "true" })
+  public boolean compiledRowMappers;
+
+  @Setup
+  public void setUp(SqlSessionFactoryState state) {
+    state.getSqlSessionFactory().getConfiguration().setCompiledRowMappersEnabled(compiledRowMappers);
+  }
+
+  @Benchmark
+  public List<Employee> simpleResultMap(SqlSessionFactoryState state) {
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(EmployeeMapper.class).selectEmployees(rows);
+    }
+  }
+
+  @Benchmark
+  public List<Department> nestedResultMap(SqlSessionFactoryState state) {
+    int departments = Math.max(1, rows / SqlSessionFactoryState.EMPLOYEES_PER_DEPARTMENT);
+    try (SqlSession sqlSession = state.getSqlSessionFactory().openSession()) {
+      return sqlSession.getMapper(EmployeeMapper.class).selectDepartmentsWithEmployees(departments);
+    }
+  }
+
+}
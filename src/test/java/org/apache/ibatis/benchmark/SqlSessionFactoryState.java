@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared fixture of the benchmarks: an in-memory HSQLDB populated with {@link #DEPARTMENTS} departments of
+ * {@link #EMPLOYEES_PER_DEPARTMENT} employees each.
+ */
+@State(Scope.Benchmark)
+public class SqlSessionFactoryState {
+
+  public static final int DEPARTMENTS = 20;
+  public static final int EMPLOYEES_PER_DEPARTMENT = 50;
+  public static final int EMPLOYEES = DEPARTMENTS * EMPLOYEES_PER_DEPARTMENT;
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Setup
+  public void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/benchmark/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    BaseDataTest.runScript(dataSource, "org/apache/ibatis/benchmark/CreateDB.sql");
+    populate(dataSource);
+  }
+
+  @TearDown
+  public void tearDown() {
+    DataSource dataSource = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    if (dataSource instanceof PooledDataSource) {
+      ((PooledDataSource) dataSource).forceCloseAll();
+    }
+  }
+
+  public SqlSessionFactory getSqlSessionFactory() {
+    return sqlSessionFactory;
+  }
+
+  private static void populate(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (PreparedStatement ps = connection.prepareStatement("insert into departments (id, name) values (?, ?)")) {
+        for (int i = 1; i <= DEPARTMENTS; i++) {
+          ps.setInt(1, i);
+          ps.setString(2, "Department " + i);
+          ps.addBatch();
+        }
+        ps.executeBatch();
+      }
+      try (PreparedStatement ps = connection.prepareStatement("insert into employees"
+          + " (id, first_name, last_name, email, department_id, hired_on, salary, active)"
+          + " values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+        for (int i = 1; i <= EMPLOYEES; i++) {
+          ps.setInt(1, i);
+          ps.setString(2, "First" + i);
+          ps.setString(3, "Last" + i);
+          ps.setString(4, "employee" + i + "@example.com");
+          ps.setInt(5, (i - 1) / EMPLOYEES_PER_DEPARTMENT + 1);
+          ps.setDate(6, new java.sql.Date(1_500_000_000_000L + i * 86_400_000L));
+          ps.setBigDecimal(7, BigDecimal.valueOf(30_000 + i, 2));
+          ps.setBoolean(8, i % 3 != 0);
+          ps.addBatch();
+        }
+        ps.executeBatch();
+      }
+      connection.commit();
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+
+@CacheNamespace(eviction = TinyLfuCache.class)
+public interface TinyLfuCachedEmployeeMapper {
+
+  @ResultMap("org.apache.ibatis.benchmark.EmployeeMapper.employeeResult")
+  @Select("select id, first_name, last_name, email, department_id, hired_on, salary, active from employees where id = #{id}")
+  Employee selectEmployee(int id);
+
+}
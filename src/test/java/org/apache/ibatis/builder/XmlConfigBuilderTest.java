@@ -37,6 +37,8 @@ import java.util.Properties;
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsReporter;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -54,6 +56,7 @@ import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.CacheInvalidationScope;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -101,6 +104,21 @@ class XmlConfigBuilderTest {
       assertNull(config.getConfigurationFactory());
       assertThat(config.getTypeHandlerRegistry().getTypeHandler(RoundingMode.class)).isInstanceOf(EnumTypeHandler.class);
       assertThat(config.isShrinkWhitespacesInSql()).isFalse();
+      assertThat(config.isCompiledRowMappersEnabled()).isFalse();
+      assertThat(config.getMappingPlanCacheSize()).isEqualTo(1024);
+      assertThat(config.isCompactRowMapsEnabled()).isFalse();
+      assertNull(config.getMaxBatchSize());
+      assertNull(config.getMaxTotalBatchSize());
+      assertThat(config.isParallelNestedQueriesEnabled()).isFalse();
+      assertThat(config.getMaxParallelNestedQueries()).isEqualTo(4);
+      assertThat(config.getCacheInvalidationScope()).isEqualTo(CacheInvalidationScope.NAMESPACE);
+      assertThat(config.isCacheSingleFlightEnabled()).isFalse();
+      assertThat(config.getCacheSingleFlightTimeout()).isEqualTo(10000);
+      assertThat(config.getLocalCacheSize()).isNull();
+      assertThat(config.getLocalCacheMaxRows()).isNull();
+      assertThat(config.isCacheMetricsEnabled()).isFalse();
+      assertThat(config.getCacheMetricsReporter()).isNull();
+      assertThat(config.getCacheInvalidationTransport()).isNull();
       assertThat(config.getDefaultSqlProviderType()).isNull();
     }
   }
@@ -197,6 +215,22 @@ class XmlConfigBuilderTest {
       assertThat(config.getVfsImpl().getName()).isEqualTo(JBoss6VFS.class.getName());
       assertThat(config.getConfigurationFactory().getName()).isEqualTo(String.class.getName());
       assertThat(config.isShrinkWhitespacesInSql()).isTrue();
+      assertThat(config.isCompiledRowMappersEnabled()).isTrue();
+      assertThat(config.getMappingPlanCacheSize()).isEqualTo(256);
+      assertThat(config.isCompactRowMapsEnabled()).isTrue();
+      assertThat(config.getMaxBatchSize()).isEqualTo(1000);
+      assertThat(config.getMaxTotalBatchSize()).isEqualTo(5000);
+      assertThat(config.isParallelNestedQueriesEnabled()).isTrue();
+      assertThat(config.getMaxParallelNestedQueries()).isEqualTo(8);
+      assertThat(config.getCacheInvalidationScope()).isEqualTo(CacheInvalidationScope.TABLE);
+      assertThat(config.isCacheSingleFlightEnabled()).isTrue();
+      assertThat(config.getCacheSingleFlightTimeout()).isEqualTo(500);
+      assertThat(config.getLocalCacheSize()).isEqualTo(100);
+      assertThat(config.getLocalCacheMaxRows()).isEqualTo(10000);
+      assertThat(config.isCacheMetricsEnabled()).isTrue();
+      assertThat(config.getCacheMetricsReporter()).isInstanceOf(JmxCacheMetricsReporter.class);
+      assertThat(config.getCacheInvalidationTransport()).isInstanceOf(LoopbackTransport.class);
+      ((LoopbackTransport) config.getCacheInvalidationTransport()).close();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
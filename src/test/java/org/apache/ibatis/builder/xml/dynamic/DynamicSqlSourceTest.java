@@ -16,6 +16,7 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -36,7 +37,10 @@ import org.apache.ibatis.scripting.xmltags.IfSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.TrimSqlNode;
+import org.apache.ibatis.scripting.xmltags.VarDeclSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -376,6 +380,67 @@ class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  void shouldParseStaticTextInsideWhereAndForEach() throws Exception {
+    final Map<String, Object> param = new HashMap<>();
+    param.put("name", "Steve");
+    param.put("ids", Arrays.asList(1, 2));
+    final String expected = "SELECT * FROM BLOG WHERE  name = ?AND id in (?,?)AND note = '#{note}'";
+    DynamicSqlSource source = createDynamicSqlSource(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(new Configuration(), mixedContents(
+            new IfSqlNode(mixedContents(new StaticTextSqlNode("AND name = #{name}")), "name != null"),
+            new ForEachSqlNode(new Configuration(), mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, "id",
+                "AND id in (", ")", ","),
+            new TextSqlNode("AND note = '\\#{note}'"))));
+    BoundSql boundSql = source.getBoundSql(param);
+    assertEquals(expected, boundSql.getSql());
+    assertEquals(3, boundSql.getParameterMappings().size());
+    assertEquals("name", boundSql.getParameterMappings().get(0).getProperty());
+    assertEquals("__frch_id_0", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals(Integer.class, boundSql.getParameterMappings().get(1).getJavaType());
+    assertEquals("__frch_id_1", boundSql.getParameterMappings().get(2).getProperty());
+  }
+
+  @Test
+  void shouldParsePlaceholdersOfTrimPrefixAndSuffix() throws Exception {
+    final Map<String, Object> param = new HashMap<>();
+    param.put("id", 1);
+    param.put("a", "x");
+    param.put("name", "Steve");
+    final String expected = "SELECT * FROM BLOG WHERE id = ? AND (  a = ? ) AND name = ?";
+    DynamicSqlSource source = createDynamicSqlSource(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new TrimSqlNode(new Configuration(), mixedContents(new StaticTextSqlNode("OR a = #{a}")),
+            "WHERE id = #{id} AND (", "OR", ") AND name = #{name}", null));
+    BoundSql boundSql = source.getBoundSql(param);
+    assertEquals(expected, boundSql.getSql());
+    assertEquals(3, boundSql.getParameterMappings().size());
+    assertEquals("id", boundSql.getParameterMappings().get(0).getProperty());
+    assertEquals("a", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals("name", boundSql.getParameterMappings().get(2).getProperty());
+  }
+
+  @Test
+  void shouldReuseParameterMappingsOfStaticTextUnlessPropertyIsBound() throws Exception {
+    final StaticTextSqlNode where = new StaticTextSqlNode("WHERE ID = #{id}");
+    DynamicSqlSource source = createDynamicSqlSource(new StaticTextSqlNode("SELECT * FROM BLOG"), where);
+    DynamicSqlSource boundSource = createDynamicSqlSource(new VarDeclSqlNode("id", "42"), new StaticTextSqlNode("SELECT * FROM BLOG"), where);
+
+    BoundSql first = source.getBoundSql(new Bean("a"));
+    BoundSql second = source.getBoundSql(new Bean("b"));
+    assertEquals("SELECT * FROM BLOG WHERE ID = ?", first.getSql());
+    assertEquals(String.class, first.getParameterMappings().get(0).getJavaType());
+    assertSame(first.getParameterMappings().get(0), second.getParameterMappings().get(0));
+
+    BoundSql bound = boundSource.getBoundSql(new Bean("c"));
+    assertEquals(Integer.class, bound.getParameterMappings().get(0).getJavaType());
+    assertEquals(42, bound.getAdditionalParameter("id"));
+
+    BoundSql map = source.getBoundSql(new HashMap<String, Object>());
+    assertEquals(Object.class, map.getParameterMappings().get(0).getJavaType());
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
@@ -30,6 +30,8 @@ import org.apache.ibatis.builder.ExamplePlugin;
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsReporter;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -85,6 +87,21 @@ class XmlConfigBuilderTest {
       assertNull(config.getLogImpl());
       assertNull(config.getConfigurationFactory());
       assertFalse(config.isShrinkWhitespacesInSql());
+      assertFalse(config.isCompiledRowMappersEnabled());
+      assertEquals(1024, config.getMappingPlanCacheSize());
+      assertFalse(config.isCompactRowMapsEnabled());
+      assertNull(config.getMaxBatchSize());
+      assertNull(config.getMaxTotalBatchSize());
+      assertFalse(config.isParallelNestedQueriesEnabled());
+      assertEquals(4, config.getMaxParallelNestedQueries());
+      assertEquals(CacheInvalidationScope.NAMESPACE, config.getCacheInvalidationScope());
+      assertFalse(config.isCacheSingleFlightEnabled());
+      assertEquals(10000, config.getCacheSingleFlightTimeout());
+      assertNull(config.getLocalCacheSize());
+      assertNull(config.getLocalCacheMaxRows());
+      assertFalse(config.isCacheMetricsEnabled());
+      assertNull(config.getCacheMetricsReporter());
+      assertNull(config.getCacheInvalidationTransport());
     } finally {
       // System.clearProperty(XPathParser.KEY_USE_XSD);
     }
@@ -123,6 +140,21 @@ class XmlConfigBuilderTest {
       assertEquals(JBoss6VFS.class.getName(), config.getVfsImpl().getName());
       assertEquals(String.class.getName(), config.getConfigurationFactory().getName());
       assertTrue(config.isShrinkWhitespacesInSql());
+      assertTrue(config.isCompiledRowMappersEnabled());
+      assertEquals(256, config.getMappingPlanCacheSize());
+      assertTrue(config.isCompactRowMapsEnabled());
+      assertEquals(Integer.valueOf(1000), config.getMaxBatchSize());
+      assertEquals(Integer.valueOf(5000), config.getMaxTotalBatchSize());
+      assertTrue(config.isParallelNestedQueriesEnabled());
+      assertEquals(8, config.getMaxParallelNestedQueries());
+      assertEquals(CacheInvalidationScope.TABLE, config.getCacheInvalidationScope());
+      assertTrue(config.isCacheSingleFlightEnabled());
+      assertEquals(500, config.getCacheSingleFlightTimeout());
+      assertEquals(100, config.getLocalCacheSize().intValue());
+      assertEquals(10000, config.getLocalCacheMaxRows().intValue());
+      assertTrue(config.isCacheMetricsEnabled());
+      assertTrue(config.getCacheMetricsReporter() instanceof JmxCacheMetricsReporter);
+      assertTrue(config.getCacheInvalidationTransport() instanceof LoopbackTransport);
 
       assertEquals(Author.class, config.getTypeAliasRegistry().getTypeAliases().get("blogauthor"));
       assertEquals(Blog.class, config.getTypeAliasRegistry().getTypeAliases().get("blog"));
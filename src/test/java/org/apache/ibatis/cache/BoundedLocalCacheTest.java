@@ -0,0 +1,86 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.BoundedLocalCache;
+import org.junit.jupiter.api.Test;
+
+class BoundedLocalCacheTest {
+
+  @Test
+  void shouldNotEvictBeforeTrim() {
+    BoundedLocalCache cache = new BoundedLocalCache("local", 2, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, rows(1));
+    }
+    assertEquals(5, cache.getSize());
+    List<Object> evicted = new ArrayList<>();
+    cache.trim(evicted::add);
+    assertEquals(2, cache.getSize());
+    assertEquals(Arrays.asList(0, 1, 2), evicted);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntries() {
+    BoundedLocalCache cache = new BoundedLocalCache("local", 2, 0);
+    cache.putObject(0, rows(1));
+    cache.putObject(1, rows(1));
+    cache.getObject(0);
+    cache.putObject(2, rows(1));
+    cache.trim(key -> { });
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+  }
+
+  @Test
+  void shouldBoundNumberOfRows() {
+    BoundedLocalCache cache = new BoundedLocalCache("local", 0, 10);
+    cache.putObject(0, rows(4));
+    cache.putObject(1, rows(4));
+    cache.putObject(2, rows(4));
+    assertEquals(12, cache.getRows());
+    cache.trim(key -> { });
+    assertNull(cache.getObject(0));
+    assertEquals(8, cache.getRows());
+  }
+
+  @Test
+  void shouldTrackRowsOfReplacedAndRemovedEntries() {
+    BoundedLocalCache cache = new BoundedLocalCache("local", 0, 10);
+    cache.putObject(0, "placeholder");
+    cache.putObject(0, rows(4));
+    cache.putObject(0, rows(3));
+    cache.putObject(1, rows(2));
+    assertEquals(5, cache.getRows());
+    cache.removeObject(0);
+    assertEquals(2, cache.getRows());
+    cache.clear();
+    assertEquals(0, cache.getRows());
+  }
+
+  private static List<Object> rows(int count) {
+    return new ArrayList<>(Collections.nCopies(count, new Object()));
+  }
+
+}
@@ -0,0 +1,231 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TableVersionedCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class BulkOperationsTest {
+
+  @Test
+  void shouldPutGetAndRemoveSeveralEntries() {
+    Cache cache = new PerpetualCache("default");
+    cache.putAll(entries("a", "b", "c"));
+    Map<Object, Object> values = cache.getAll(Arrays.asList("a", "c", "d"));
+    assertEquals(2, values.size());
+    assertEquals("a value", values.get("a"));
+    assertEquals("c value", values.get("c"));
+    cache.removeAll(Arrays.asList("a", "b"));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldPassBulkOperationsThroughDecorators() {
+    CountingCache counting = new CountingCache();
+    Cache cache = new SynchronizedCache(new LoggingCache(new SerializedCache(counting)));
+    cache.putAll(entries("a", "b", "c"));
+    Map<Object, Object> values = cache.getAll(Arrays.asList("a", "b", "d"));
+    cache.removeAll(Arrays.asList("a", "b"));
+    assertEquals("a value", values.get("a"));
+    assertEquals(2, values.size());
+    assertEquals(Arrays.asList("putAll", "getAll", "removeAll"), counting.calls);
+  }
+
+  @Test
+  void shouldCopyEntriesOfSerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"));
+    List<String> list = new ArrayList<>(Arrays.asList("x", "y"));
+    Map<Object, Object> entries = new HashMap<>();
+    entries.put("a", list);
+    cache.putAll(entries);
+    list.add("z");
+    assertEquals(Arrays.asList("x", "y"), cache.getAll(Arrays.asList("a")).get("a"));
+  }
+
+  @Test
+  void shouldReleaseLocksOfBlockingCache() {
+    Cache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    Map<Object, Object> entries = new HashMap<>();
+    entries.put("a", "a value");
+    entries.put("b", null);
+    cache.putAll(entries);
+    assertEquals("a value", cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    assertNull(cache.getObject("c"));
+    cache.removeAll(Arrays.asList("b", "c"));
+    assertNull(cache.getObject("b"));
+    cache.removeObject("b");
+  }
+
+  @Test
+  void shouldReleaseOtherLocksWhenOneIsNotHeld() {
+    Cache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject("b"));
+    assertThrows(IllegalStateException.class, () -> cache.removeAll(Arrays.asList("a", "b")));
+    assertNull(cache.getObject("b"));
+    cache.removeObject("b");
+  }
+
+  @Test
+  void shouldRemoveOtherKeysWhenOneRemovalFails() {
+    List<Object> removed = new ArrayList<>();
+    Cache cache = new PerpetualCache("default") {
+      @Override
+      public Object removeObject(Object key) {
+        if ("a".equals(key)) {
+          throw new IllegalStateException("failed");
+        }
+        removed.add(key);
+        return super.removeObject(key);
+      }
+    };
+    assertThrows(IllegalStateException.class, () -> cache.removeAll(Arrays.asList("a", "b", "c")));
+    assertEquals(Arrays.asList("b", "c"), removed);
+  }
+
+  @Test
+  void shouldNotReturnNullEntriesOfSerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"));
+    Map<Object, Object> entries = entries("a");
+    entries.put("b", null);
+    cache.putAll(entries);
+    Map<Object, Object> values = cache.getAll(Arrays.asList("a", "b"));
+    assertEquals(1, values.size());
+    assertEquals("a value", values.get("a"));
+  }
+
+  @Test
+  void shouldDropStaleEntriesOfTableVersionedCache() {
+    TableVersions tableVersions = new TableVersions();
+    Cache store = new PerpetualCache("default");
+    Cache cache = new TableVersionedCache(store, tableVersions);
+    Map<Object, Object> entries = new HashMap<>();
+    entries.put("blog", tableVersions.newEntry("blog value", new String[] { "blog" }));
+    entries.put("author", tableVersions.newEntry("author value", new String[] { "author" }));
+    cache.putAll(entries);
+    tableVersions.invalidate(new String[] { "blog" });
+    Map<Object, Object> values = cache.getAll(Arrays.asList("blog", "author"));
+    assertEquals(1, values.size());
+    assertEquals("author value", values.get("author"));
+    assertEquals(1, store.getSize());
+  }
+
+  @Test
+  void shouldStoreSeveralEntriesOffHeap() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(8192);
+    cache.setSegmentBytes(2048);
+    cache.initialize();
+    cache.putAll(entries("a", "b"));
+    assertEquals(2, cache.getAll(Arrays.asList("a", "b", "c")).size());
+    Map<Object, Object> entries = new HashMap<>();
+    entries.put("a", null);
+    cache.putAll(entries);
+    cache.removeAll(Arrays.asList("b"));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  void shouldFlushTransactionalCacheInOneCall() {
+    CountingCache counting = new CountingCache();
+    TransactionalCache cache = new TransactionalCache(counting);
+    assertNull(cache.getObject("a"));
+    assertNull(cache.getObject("b"));
+    cache.putObject("a", "a value");
+    cache.commit();
+    assertEquals(Arrays.asList("getObject", "getObject", "putAll"), counting.calls);
+    assertEquals("a value", counting.getObject("a"));
+    assertTrue(counting.cache.containsKey("b"));
+
+    counting.calls.clear();
+    assertNull(cache.getObject("c"));
+    assertNull(cache.getObject("d"));
+    cache.rollback();
+    assertEquals(Arrays.asList("getObject", "getObject", "removeAll"), counting.calls);
+  }
+
+  private static Map<Object, Object> entries(String... keys) {
+    Map<Object, Object> entries = new HashMap<>();
+    for (String key : keys) {
+      entries.put(key, key + " value");
+    }
+    return entries;
+  }
+
+  private static class CountingCache extends PerpetualCache {
+    private final Map<Object, Object> cache;
+    private final List<String> calls = new ArrayList<>();
+
+    CountingCache() {
+      this(new HashMap<>());
+    }
+
+    private CountingCache(Map<Object, Object> cache) {
+      super("counting", cache);
+      this.cache = cache;
+    }
+
+    @Override
+    public Object getObject(Object key) {
+      calls.add("getObject");
+      return super.getObject(key);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+      calls.add("putAll");
+      cache.putAll(entries);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+      calls.add("getAll");
+      Map<Object, Object> values = new HashMap<>();
+      for (Object key : keys) {
+        if (cache.get(key) != null) {
+          values.put(key, cache.get(key));
+        }
+      }
+      return values;
+    }
+
+    @Override
+    public void removeAll(Collection<?> keys) {
+      calls.add("removeAll");
+      cache.keySet().removeAll(keys);
+    }
+  }
+
+}
@@ -86,6 +86,70 @@ class CacheKeyTest {
     assertEquals(key1, key2);
   }
 
+  @Test
+  void shouldTestIntComponentsEqualToBoxedIntegers() {
+    CacheKey key1 = new CacheKey();
+    key1.update("select");
+    key1.update(0);
+    key1.update(Integer.MAX_VALUE);
+    CacheKey key2 = new CacheKey(new Object[] { "select", 0, Integer.MAX_VALUE });
+    assertEquals(key1, key2);
+    assertEquals(key2, key1);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldTestCacheKeysNotEqualDueToIntOrder() {
+    CacheKey key1 = new CacheKey();
+    key1.update(0);
+    key1.update(10);
+    CacheKey key2 = new CacheKey();
+    key2.update(10);
+    key2.update(0);
+    assertNotEquals(key1, key2);
+    assertNotEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  void shouldGrowBeyondExpectedUpdateCount() {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update("value" + i);
+      key2.update(Integer.valueOf(i));
+      key1.update("value" + i);
+    }
+    assertEquals(40, key1.getUpdateCount());
+    assertNotEquals(key1, key2);
+    CacheKey key3 = new CacheKey(0);
+    for (int i = 0; i < 20; i++) {
+      key3.update(Integer.valueOf(i));
+      key3.update("value" + i);
+    }
+    assertEquals(key1, key3);
+    assertEquals(key1.hashCode(), key3.hashCode());
+  }
+
+  @Test
+  void shouldNotShareComponentsWithClone() throws Exception {
+    CacheKey cacheKey = new CacheKey(2);
+    cacheKey.update("id");
+    cacheKey.update(1);
+    CacheKey clonedCacheKey = cacheKey.clone();
+    assertEquals(cacheKey, clonedCacheKey);
+    clonedCacheKey.update(2);
+    assertNotEquals(cacheKey, clonedCacheKey);
+    assertEquals(2, cacheKey.getUpdateCount());
+  }
+
+  @Test
+  void throwExceptionWhenTryingToUpdateNullCacheKeyWithInt() {
+    CacheKey cacheKey = CacheKey.NULL_CACHE_KEY;
+    assertThrows(CacheException.class, () -> cacheKey.update(1));
+  }
+
   @Test
   void throwExceptionWhenTryingToUpdateNullCacheKey() {
     CacheKey cacheKey = CacheKey.NULL_CACHE_KEY;
@@ -122,6 +186,16 @@ class CacheKeyTest {
     assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void serializationWithIntComponentsTest() throws Exception {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("serializable");
+    cacheKey.update(100);
+    CacheKey deserialized = serialize(cacheKey);
+    assertEquals(cacheKey, deserialized);
+    assertEquals(cacheKey.hashCode(), deserialized.hashCode());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+  @Test
+  void shouldExpireEachItemAfterItsTimeToLive() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(500);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, 0);
+    Thread.sleep(300);
+    cache.putObject(1, 1);
+    assertEquals(0, cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldSpreadExpiryWithJitter() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(100);
+    expiringCache.setJitter(2000);
+    Cache cache = new LoggingCache(expiringCache);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    Thread.sleep(1100);
+    int hits = 0;
+    for (int i = 0; i < 100; i++) {
+      if (cache.getObject(i) != null) {
+        hits++;
+      }
+    }
+    assertTrue(hits > 0 && hits < 100, "hits: " + hits);
+  }
+
+  @Test
+  void shouldReturnStaleItemWhileFirstCallerReloadsIt() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(200);
+    expiringCache.setStaleWhileRevalidate(60000);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, "old");
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals("old", cache.getObject(0));
+    assertEquals("old", cache.getObject(0));
+    cache.putObject(0, "new");
+    assertEquals("new", cache.getObject(0));
+  }
+
+  @Test
+  void shouldKeepStaleItemWhenReloadPutsNull() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(200);
+    expiringCache.setStaleWhileRevalidate(60000);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, "old");
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals("old", cache.getObject(0));
+  }
+
+  @Test
+  void shouldDropItemAfterStaleWindow() throws Exception {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(100);
+    expiringCache.setStaleWhileRevalidate(100);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, 0);
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    ExpiringCache expiringCache = new ExpiringCache(new PerpetualCache("DefaultCache"));
+    expiringCache.setTimeToLive(60000);
+    Cache cache = new LoggingCache(expiringCache);
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+}
@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class MetricsCacheTest {
+
+  @Test
+  void shouldCountHitsAndMisses() {
+    MetricsCache cache = new MetricsCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    // recorded by the caller, which may discard an entry found in the cache
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getHits() + cache.getMisses());
+    cache.recordHit();
+    cache.recordHit();
+    cache.recordMiss();
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2.0 / 3, cache.getHitRatio());
+    assertEquals(1, cache.getPuts());
+  }
+
+  @Test
+  void shouldNotCountNullPuts() {
+    MetricsCache cache = new MetricsCache(new PerpetualCache("default"));
+    cache.putObject(0, null);
+    assertEquals(0, cache.getPuts());
+  }
+
+  @Test
+  void shouldEstimateEvictions() {
+    LruCache lru = new LruCache(new PerpetualCache("default"));
+    lru.setSize(5);
+    MetricsCache cache = new MetricsCache(lru);
+    for (int i = 0; i < 8; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(3, cache.getEvictions());
+    cache.clear();
+    assertEquals(1, cache.getInvalidations());
+    assertEquals(3, cache.getEvictions());
+  }
+
+  @Test
+  void shouldNotCountRemovalsAndOverwritesAsEvictions() {
+    PerpetualCache perpetualCache = new PerpetualCache("default");
+    LruCache lru = new LruCache(perpetualCache);
+    lru.setSize(5);
+    MetricsCache cache = new MetricsCache(lru, null, perpetualCache::getOverwrites);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.putObject(0, 10);
+    cache.putObject(1, 11);
+    cache.removeObject(2);
+    assertEquals(2, perpetualCache.getOverwrites());
+    assertEquals(0, cache.getEvictions());
+    cache.putObject(5, 5);
+    cache.putObject(6, 6);
+    cache.putObject(7, 7);
+    assertEquals(2, cache.getEvictions());
+  }
+
+  @Test
+  void shouldAverageLoadTime() {
+    MetricsCache cache = new MetricsCache(new PerpetualCache("default"), () -> 42);
+    assertEquals(0, cache.getAverageLoadTime());
+    cache.recordLoad(100);
+    cache.recordLoad(300);
+    assertEquals(2, cache.getLoads());
+    assertEquals(400, cache.getTotalLoadTime());
+    assertEquals(200, cache.getAverageLoadTime());
+    assertEquals(42, cache.getEstimatedSize());
+  }
+
+  @Test
+  void shouldNotEstimateSizeByDefault() {
+    assertEquals(-1, new MetricsCache(new PerpetualCache("default")).getEstimatedSize());
+  }
+
+}
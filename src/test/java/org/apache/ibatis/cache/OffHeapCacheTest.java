@@ -0,0 +1,138 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldStoreCopiesOfTheEntries() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject(1, value);
+    Object cached = cache.getObject(1);
+    assertEquals(value, cached);
+    assertNotSame(value, cached);
+    assertNotSame(cached, cache.getObject(1));
+    assertEquals(1, cache.getSize());
+    assertTrue(cache.getUsedBytes() > 0);
+  }
+
+  @Test
+  void shouldReplaceAndRemoveEntries() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(1, "first");
+    cache.putObject(1, "second");
+    assertEquals("second", cache.getObject(1));
+    assertEquals(1, cache.getSize());
+    assertEquals("second", cache.removeObject(1));
+    assertNull(cache.getObject(1));
+    assertNull(cache.removeObject(1));
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  void shouldRemoveEntryWhenNullIsPut() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(1, "value");
+    cache.putObject(1, null);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldNotGrowBeyondMaximumBytes() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(8 * 1024);
+    cache.setSegmentBytes(2 * 1024);
+    cache.initialize();
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value " + i);
+      assertEquals("value " + i, cache.getObject(i));
+    }
+    assertEquals(8 * 1024, cache.getAllocatedBytes());
+    assertTrue(cache.getUsedBytes() <= 8 * 1024);
+    assertTrue(cache.getSize() < 1000);
+    // the oldest entries are evicted first
+    assertNull(cache.getObject(0));
+    assertEquals("value 999", cache.getObject(999));
+  }
+
+  @Test
+  void shouldNotCacheEntriesLargerThanSegments() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(4 * 1024);
+    cache.setSegmentBytes(1024);
+    cache.initialize();
+    cache.putObject(1, new byte[2048]);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    OffHeapCache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  void shouldRejectNonSerializableObjects() {
+    OffHeapCache cache = new OffHeapCache("default");
+    assertThrows(CacheException.class, () -> cache.putObject(1, new Object()));
+  }
+
+  @Test
+  void shouldRejectSegmentsLargerThanMaximumBytes() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setMaxBytes(1024);
+    cache.setSegmentBytes(4096);
+    assertThrows(CacheException.class, cache::initialize);
+  }
+
+  @Test
+  void shouldBeConfiguredWithAliasAndProperties() {
+    Configuration configuration = new Configuration();
+    @SuppressWarnings("unchecked")
+    Class<? extends Cache> type = configuration.getTypeAliasRegistry().resolveAlias("OFFHEAP");
+    Properties properties = new Properties();
+    properties.setProperty("maxBytes", "8192");
+    properties.setProperty("segmentBytes", "1024");
+    Cache cache = new CacheBuilder("default").implementation(type).properties(properties).build();
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value " + i);
+    }
+    assertTrue(cache.getSize() < 1000);
+  }
+
+}
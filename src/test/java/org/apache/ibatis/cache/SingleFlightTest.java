@@ -0,0 +1,227 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.codec.CacheCodec;
+import org.apache.ibatis.cache.codec.JavaSerializationCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private final SingleFlight singleFlight = new SingleFlight();
+  private ExecutorService executorService;
+
+  @BeforeEach
+  void setUp() {
+    executorService = Executors.newFixedThreadPool(5);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void shouldLoadOnceForConcurrentCallers() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<List<String>>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      results.add(executorService.submit(() -> singleFlight.load("key", 0, () -> {
+        loads.incrementAndGet();
+        await(release);
+        return new ArrayList<>(Collections.singletonList("value"));
+      })));
+    }
+    waitForLoads(loads, 1);
+    Thread.sleep(200);
+    release.countDown();
+    List<List<String>> values = new ArrayList<>();
+    for (Future<List<String>> result : results) {
+      values.add(result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+    for (List<String> value : values) {
+      assertEquals(Collections.singletonList("value"), value);
+    }
+    // each caller gets its own copy
+    assertEquals(5, values.stream().map(System::identityHashCode).distinct().count());
+    assertEquals(0, singleFlight.getSize());
+  }
+
+  @Test
+  void shouldLoadAgainOnceTheFirstLoadIsDone() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    singleFlight.load("key", 0, loads::incrementAndGet);
+    singleFlight.load("key", 0, loads::incrementAndGet);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void shouldLoadByItselfWhenTheWaitTimesOut() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Future<String> first = executorService.submit(() -> singleFlight.load("key", 0, () -> {
+      loads.incrementAndGet();
+      await(release);
+      return "first";
+    }));
+    waitForLoads(loads, 1);
+    assertEquals("second", singleFlight.load("key", 100, () -> "second"));
+    release.countDown();
+    assertEquals("first", first.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldLoadByItselfWhenTheFirstLoadFails() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Future<String> first = executorService.submit(() -> singleFlight.load("key", 0, () -> {
+      loads.incrementAndGet();
+      await(release);
+      throw new SQLException("failed");
+    }));
+    waitForLoads(loads, 1);
+    Future<String> second = executorService.submit(() -> singleFlight.load("key", 0, () -> "second"));
+    Thread.sleep(200);
+    release.countDown();
+    assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    Exception e = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof SQLException);
+  }
+
+  @Test
+  void shouldLoadByItselfWhenTheValueIsNotSerializable() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Object notSerializable = new Object();
+    Future<Object> first = executorService.submit(() -> singleFlight.load("key", 0, () -> {
+      loads.incrementAndGet();
+      await(release);
+      return notSerializable;
+    }));
+    waitForLoads(loads, 1);
+    Future<Object> second = executorService.submit(() -> singleFlight.load("key", 0, () -> "second"));
+    Thread.sleep(200);
+    release.countDown();
+    assertSame(notSerializable, first.get(5, TimeUnit.SECONDS));
+    assertEquals("second", second.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldHandOverTheValueItselfWithoutCodec() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Object notSerializable = new Object();
+    Future<Object> first = executorService.submit(() -> singleFlight.load("key", 0, null, () -> {
+      loads.incrementAndGet();
+      await(release);
+      return notSerializable;
+    }));
+    waitForLoads(loads, 1);
+    Future<Object> second = executorService.submit(() -> singleFlight.load("key", 0, null, () -> "second"));
+    Thread.sleep(200);
+    release.countDown();
+    assertSame(notSerializable, first.get(5, TimeUnit.SECONDS));
+    assertSame(notSerializable, second.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldCopyTheValueWithTheGivenCodec() throws Exception {
+    AtomicInteger encodes = new AtomicInteger();
+    AtomicInteger decodes = new AtomicInteger();
+    CacheCodec codec = new JavaSerializationCodec() {
+      @Override
+      public byte[] encode(Object value) {
+        encodes.incrementAndGet();
+        return super.encode(value);
+      }
+
+      @Override
+      public Object decode(byte[] bytes) {
+        decodes.incrementAndGet();
+        return super.decode(bytes);
+      }
+    };
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    List<String> value = new ArrayList<>(Collections.singletonList("value"));
+    Future<List<String>> first = executorService.submit(() -> singleFlight.load("key", 0, codec, () -> {
+      loads.incrementAndGet();
+      await(release);
+      return value;
+    }));
+    waitForLoads(loads, 1);
+    Future<List<String>> second = executorService.submit(() -> singleFlight.load("key", 0, codec, () -> null));
+    Thread.sleep(200);
+    release.countDown();
+    assertSame(value, first.get(5, TimeUnit.SECONDS));
+    List<String> copy = second.get(5, TimeUnit.SECONDS);
+    assertEquals(value, copy);
+    assertNotSame(value, copy);
+    assertEquals(1, encodes.get());
+    assertEquals(1, decodes.get());
+  }
+
+  @Test
+  void shouldNotWaitForAnotherLoadWhileLoading() throws Exception {
+    CountDownLatch bothLoading = new CountDownLatch(2);
+    Future<String> first = executorService.submit(() -> singleFlight.load("key1", 0, () -> {
+      bothLoading.countDown();
+      await(bothLoading);
+      return singleFlight.load("key2", 0, () -> "value2") + "1";
+    }));
+    Future<String> second = executorService.submit(() -> singleFlight.load("key2", 0, () -> {
+      bothLoading.countDown();
+      await(bothLoading);
+      return singleFlight.load("key1", 0, () -> "value1") + "2";
+    }));
+    assertEquals("value21", first.get(5, TimeUnit.SECONDS));
+    assertEquals("value12", second.get(5, TimeUnit.SECONDS));
+    assertEquals(0, singleFlight.getSize());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitForLoads(AtomicInteger loads, int expected) throws InterruptedException {
+    for (int i = 0; i < 500 && loads.get() < expected; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, loads.get());
+  }
+
+}
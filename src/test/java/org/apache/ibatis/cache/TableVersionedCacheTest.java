@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.TableVersionedCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TableVersionedCacheTest {
+
+  @Test
+  void shouldDeriveTablesRead() {
+    assertArrayEquals(new String[] { "id", "name", "blog", "b", "author", "a", "author_id" },
+        TableNames.read("select b.id, b.name from blog b join \"PUBLIC\".\"AUTHOR\" a on a.id = b.author_id"));
+    assertArrayEquals(new String[] { "post", "p", "blog_id", "x", "comment", "c" },
+        TableNames.read("select * from (select * from post p where blog_id = ?) x, comment c -- comment\nwhere 'a' = 'b'"));
+    assertNull(TableNames.read("{call selectBlog(?)}"));
+    assertNull(TableNames.read("select 1"));
+  }
+
+  @Test
+  void shouldDeriveTablesWritten() {
+    assertArrayEquals(new String[] { "blog" }, TableNames.written("insert into blog (id, title) select id, title from draft"));
+    assertArrayEquals(new String[] { "blog" }, TableNames.written("update BLOG set title = ? where id = ?"));
+    assertArrayEquals(new String[] { "blog", "author" }, TableNames.written("update blog b join author a on a.id = b.author_id set a.name = b.title"));
+    assertArrayEquals(new String[] { "blog", "post" }, TableNames.written("delete from blog where id = ?; delete from post where blog_id = ?"));
+    assertArrayEquals(new String[] { "audit" }, TableNames.written("truncate table app.audit"));
+    assertNull(TableNames.written("call deleteBlog(?)"));
+    assertNull(TableNames.written("delete b from blog b"));
+  }
+
+  @Test
+  void shouldParseDeclaredTables() {
+    assertArrayEquals(new String[] { "blog", "author" }, TableNames.parse(" Blog, app.author,blog"));
+    assertNull(TableNames.parse(" "));
+  }
+
+  @Test
+  void shouldInvalidateEntriesReadFromWrittenTables() {
+    TableVersions tableVersions = new TableVersions();
+    Cache cache = new TableVersionedCache(new PerpetualCache("default"), tableVersions);
+    cache.putObject("blog", tableVersions.newEntry("blog value", new String[] { "blog" }));
+    cache.putObject("author", tableVersions.newEntry("author value", new String[] { "author", "blog" }));
+    cache.putObject("unknown", tableVersions.newEntry("unknown value", null));
+    cache.putObject("plain", "plain value");
+
+    tableVersions.invalidate(new String[] { "audit" });
+    assertEquals("blog value", cache.getObject("blog"));
+    assertEquals("author value", cache.getObject("author"));
+    assertNull(cache.getObject("unknown"));
+    assertEquals("plain value", cache.getObject("plain"));
+
+    tableVersions.invalidate(new String[] { "blog" });
+    assertNull(cache.getObject("blog"));
+    assertNull(cache.getObject("author"));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepLockOnStaleEntry() {
+    TableVersions tableVersions = new TableVersions();
+    Cache cache = new BlockingCache(new TableVersionedCache(new PerpetualCache("default"), tableVersions));
+    assertNull(cache.getObject("blog"));
+    cache.putObject("blog", tableVersions.newEntry("blog value", new String[] { "blog" }));
+    assertEquals("blog value", cache.getObject("blog"));
+    tableVersions.invalidate(new String[] { "blog" });
+    assertNull(cache.getObject("blog"));
+    // releases the lock acquired by the miss
+    cache.putObject("blog", tableVersions.newEntry("new blog value", new String[] { "blog" }));
+    assertEquals("new blog value", cache.getObject("blog"));
+  }
+
+  @Test
+  void shouldNotServeEntriesInvalidatedInTransaction() {
+    TableVersions tableVersions = new TableVersions();
+    Cache cache = new TableVersionedCache(new PerpetualCache("default"), tableVersions);
+    TransactionalCacheManager tcm = new TransactionalCacheManager(tableVersions);
+    CacheKey blog = new CacheKey(new Object[] { "blog" });
+    CacheKey author = new CacheKey(new Object[] { "author" });
+    assertNull(tcm.getObject(cache, blog, new String[] { "blog" }));
+    tcm.putObject(cache, blog, "blog value", new String[] { "blog" });
+    assertNull(tcm.getObject(cache, author, new String[] { "author" }));
+    tcm.putObject(cache, author, "author value", new String[] { "author" });
+    tcm.commit();
+
+    tcm.invalidate(new String[] { "blog" });
+    assertNull(tcm.getObject(cache, blog, new String[] { "blog" }));
+    assertEquals("author value", tcm.getObject(cache, author, new String[] { "author" }));
+    // not committed yet
+    assertEquals("blog value", new TransactionalCache(cache, tableVersions).getObject(blog, new String[] { "blog" }));
+    tcm.putObject(cache, blog, "new blog value", new String[] { "blog" });
+    tcm.commit();
+
+    assertEquals("new blog value", tcm.getObject(cache, blog, new String[] { "blog" }));
+  }
+
+  @Test
+  void shouldNotCommitEntryReadBeforeConcurrentWrite() {
+    TableVersions tableVersions = new TableVersions();
+    Cache cache = new TableVersionedCache(new PerpetualCache("default"), tableVersions);
+    TransactionalCacheManager reader = new TransactionalCacheManager(tableVersions);
+    TransactionalCacheManager writer = new TransactionalCacheManager(tableVersions);
+    CacheKey blog = new CacheKey(new Object[] { "blog" });
+    String[] tables = { "blog" };
+    assertNull(reader.getObject(cache, blog, tables));
+    long[] versions = tableVersions.getVersions(tables);
+    // committed by another session while the reader's query runs
+    writer.invalidate(tables);
+    writer.commit();
+    reader.putObject(cache, blog, "old blog value", tables, versions);
+    reader.commit();
+
+    assertNull(cache.getObject(blog));
+  }
+
+}
@@ -0,0 +1,137 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuCacheTest {
+
+  @Test
+  void shouldNotGrowBeyondMaximumSize() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(100);
+    for (int i = 0; i < 10000; i++) {
+      cache.putObject(i, i);
+      assertEquals(i, cache.getObject(i));
+    }
+    assertEquals(100, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedItemsDuringScan() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(100);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 10; i++) {
+        assertEquals(i, cache.getObject(i));
+      }
+    }
+    for (int i = 1000; i < 2000; i++) {
+      cache.putObject(i, i);
+    }
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+    assertEquals(100, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemWhenNullIsPut() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default", new ConcurrentHashMap<>()));
+    cache.putObject(0, 0);
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new TinyLfuCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    cache.putObject(5, 5);
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldBeRegisteredAsEvictionAlias() {
+    assertEquals(TinyLfuCache.class, new Configuration().getTypeAliasRegistry().resolveAlias("TINYLFU"));
+  }
+
+  @Test
+  void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default", new ConcurrentHashMap<>()));
+    cache.setSize(500);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(2000);
+            Object value = cache.getObject(key);
+            if (value == null) {
+              cache.putObject(key, key);
+            } else {
+              assertEquals(key, value);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(cache.getSize() <= 500);
+  }
+
+}
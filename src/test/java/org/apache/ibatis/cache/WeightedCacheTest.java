@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.weigher.RowCountWeigher;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  @Test
+  void shouldNotGrowBeyondMaximumWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"), new RowCountWeigher());
+    cache.setMaxWeight(100);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, rows(10));
+      assertNotNull(cache.getObject(i));
+    }
+    assertEquals(10, cache.getSize());
+    assertEquals(100, cache.getWeight());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntries() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"), new RowCountWeigher());
+    cache.setMaxWeight(30);
+    cache.putObject(0, rows(10));
+    cache.putObject(1, rows(10));
+    cache.putObject(2, rows(10));
+    cache.getObject(0);
+    cache.putObject(3, rows(20));
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNull(cache.getObject(2));
+    assertNotNull(cache.getObject(3));
+    assertEquals(30, cache.getWeight());
+  }
+
+  @Test
+  void shouldNotCacheEntriesHeavierThanMaximumWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"), new RowCountWeigher());
+    cache.setMaxWeight(10);
+    cache.putObject(0, rows(5));
+    cache.putObject(0, rows(11));
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldReleaseWeightOfRemovedAndReplacedEntries() {
+    Cache store = new PerpetualCache("default");
+    WeightedCache cache = new WeightedCache(store, new RowCountWeigher());
+    cache.putObject(0, rows(10));
+    cache.putObject(0, rows(5));
+    cache.putObject(1, rows(5));
+    assertEquals(10, cache.getWeight());
+    cache.removeObject(0);
+    assertEquals(5, cache.getWeight());
+    // dropped by the decorated cache
+    store.removeObject(1);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getWeight());
+    cache.putObject(2, null);
+    assertEquals(0, cache.getWeight());
+    cache.putObject(3, rows(3));
+    cache.clear();
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldReleaseWeightOfEntriesDroppedBelow() throws Exception {
+    WeightedCache.Storage storage = new WeightedCache.Storage(new PerpetualCache("default"));
+    LruCache lru = new LruCache(storage);
+    lru.setSize(2);
+    ScheduledCache scheduled = new ScheduledCache(lru);
+    scheduled.setClearInterval(100);
+    WeightedCache cache = new WeightedCache(scheduled, new RowCountWeigher(), storage);
+    cache.setMaxWeight(25);
+    cache.putObject(0, rows(10));
+    cache.putObject(1, rows(10));
+    // evicted by the size bound, without being looked up
+    cache.putObject(2, rows(10));
+    assertEquals(2, cache.getSize());
+    assertEquals(20, cache.getWeight());
+    // the evicted entry does not make room for itself at the expense of a live one
+    cache.putObject(3, rows(5));
+    assertEquals(2, cache.getSize());
+    assertEquals(15, cache.getWeight());
+    Thread.sleep(150);
+    // flushed by the clear interval
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldWeighValuesOfTableVersionedEntries() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"), new RowCountWeigher());
+    cache.putObject(0, new TableVersions().newEntry(rows(7), new String[] { "blog" }));
+    assertEquals(7, cache.getWeight());
+  }
+
+  private static List<Integer> rows(int count) {
+    return new ArrayList<>(Collections.nCopies(count, 1));
+  }
+
+}
@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class CompactCodecTest {
+
+  private final CompactCodec codec = new CompactCodec();
+
+  @Test
+  void shouldCopySimpleValues() {
+    Timestamp timestamp = new Timestamp(1234567890123L);
+    timestamp.setNanos(123456789);
+    List<Object> values = Arrays.asList(null, "text", "téxt 中文 \ud800", "", true, false, (byte) -7, (short) -300, 'c',
+        'é', 0, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, 42L, 1.5f, -2.25d, Double.NaN,
+        new BigInteger("-123456789012345678901234567890"), new BigDecimal("-12345.67890"), new Date(1234567890123L),
+        new java.sql.Date(1234567890123L), new Time(1234567890123L), timestamp, LocalDate.of(1969, 7, 20),
+        LocalTime.of(23, 59, 59, 999999999), LocalDateTime.of(2020, 2, 29, 12, 30), Instant.ofEpochSecond(-1, 5),
+        Section.NEWS);
+    for (Object value : values) {
+      assertEquals(value, codec.decode(codec.encode(value)));
+    }
+    byte[] bytes = (byte[]) codec.decode(codec.encode(new byte[] { 1, 2, 3 }));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, bytes);
+    assertEquals(123456789, ((Timestamp) codec.decode(codec.encode(timestamp))).getNanos());
+  }
+
+  @Test
+  void shouldCopyCollectionsAndMaps() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("b", 1);
+    map.put("a", null);
+    List<Object> values = Arrays.asList(new ArrayList<>(Arrays.asList(1, "a", null)), new LinkedList<>(Arrays.asList(1, 2)),
+        new HashSet<>(Arrays.asList("x", "y")), new LinkedHashSet<>(Arrays.asList("y", "x")), new TreeSet<>(Arrays.asList(3, 1, 2)),
+        new HashMap<>(map), map, new TreeMap<>(Collections.singletonMap("k", "v")));
+    for (Object value : values) {
+      Object copy = codec.decode(codec.encode(value));
+      assertEquals(value, copy);
+      assertEquals(value.getClass(), copy.getClass());
+      assertNotSame(value, copy);
+    }
+    assertEquals(Arrays.asList("b", "a"), new ArrayList<>(((Map<?, ?>) codec.decode(codec.encode(map))).keySet()));
+  }
+
+  @Test
+  void shouldCopyBeansWithSharedReferencesAndCycles() {
+    Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "Something...", Section.NEWS);
+    Node parent = new Node("parent");
+    Node child = new Node("child");
+    parent.children.add(child);
+    child.parent = parent;
+    parent.author = author;
+    child.author = author;
+
+    Node copy = (Node) codec.decode(codec.encode(parent));
+
+    assertNotSame(parent, copy);
+    assertEquals("parent", copy.name);
+    assertEquals(1, copy.children.size());
+    Node childCopy = copy.children.get(0);
+    assertEquals("child", childCopy.name);
+    assertSame(copy, childCopy.parent);
+    assertSame(copy.author, childCopy.author);
+    assertNotSame(author, copy.author);
+    assertEquals(author.toString(), copy.author.toString());
+    assertNull(copy.cache);
+  }
+
+  @Test
+  void shouldFallBackToJavaSerializationForOtherTypes() {
+    List<String> value = Collections.unmodifiableList(new ArrayList<>(Arrays.asList("a", "b")));
+    byte[] bytes = codec.encode(Collections.singletonMap("key", value));
+    assertEquals(2, bytes[0]);
+    assertEquals(Collections.singletonMap("key", value), codec.decode(bytes));
+  }
+
+  @Test
+  void shouldFailOnNonSerializableObjects() {
+    List<Object> value = new ArrayList<>();
+    value.add(new Object());
+    assertThrows(CacheException.class, () -> codec.encode(value));
+  }
+
+  @Test
+  void shouldBeSmallerThanJavaSerialization() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      authors.add(new Author(i, "author" + i, "password" + i, "author" + i + "@ibatis.apache.org", "bio", Section.NEWS));
+    }
+    byte[] compact = codec.encode(authors);
+    assertEquals(1, compact[0]);
+    byte[] java = new JavaSerializationCodec().encode(authors);
+    assertTrue(compact.length < java.length, compact.length + " vs " + java.length);
+    assertEquals(authors.toString(), codec.decode(compact).toString());
+  }
+
+  @Test
+  void shouldCopyEntriesOfSerializedCache() {
+    Cache cache = new SerializedCache(new PerpetualCache("default"), codec);
+    Node node = new Node("node");
+    cache.putObject(1, node);
+    Node copy = (Node) cache.getObject(1);
+    assertEquals("node", copy.name);
+    assertNotSame(node, copy);
+    cache.putObject(2, null);
+    assertNull(cache.getObject(2));
+  }
+
+  static class Node implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String name;
+    private final List<Node> children = new ArrayList<>();
+    private Node parent;
+    private Author author;
+    private transient Object cache;
+
+    Node() {
+      this(null);
+    }
+
+    Node(String name) {
+      this.name = name;
+    }
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cache.TableVersions;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LoopbackTransportTest {
+
+  private final List<LoopbackTransport> transports = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    transports.forEach(LoopbackTransport::close);
+  }
+
+  @Test
+  void shouldDeliverToOtherListenersOfChannel() {
+    List<CacheInvalidation> received = new ArrayList<>();
+    LoopbackTransport publisher = transport("test");
+    publisher.subscribe(invalidation -> fail("delivered to the publisher"));
+    transport("test").subscribe(received::add);
+    transport("other").subscribe(invalidation -> fail("delivered to another channel"));
+
+    publisher.publish(CacheInvalidation.ofNamespace("node", "ns"));
+    assertEquals(1, received.size());
+    assertEquals("ns", received.get(0).getCacheId());
+    assertNull(received.get(0).getTables());
+  }
+
+  @Test
+  void shouldClearCacheOfNamespace() {
+    Configuration node1 = node();
+    Configuration node2 = node();
+    node2.addCache(new PerpetualCache("ns"));
+    node2.getCache("ns").putObject("key", "value");
+
+    node1.getCacheInvalidationBus().publishNamespace("unknown");
+    node1.getCacheInvalidationBus().publishNamespace("ns");
+    assertEquals(0, node2.getCache("ns").getSize());
+  }
+
+  @Test
+  void shouldInvalidateTables() {
+    Configuration node1 = node();
+    Configuration node2 = node();
+    TableVersions.Entry blog = node2.getTableVersions().newEntry("blog value", new String[] { "blog" });
+    TableVersions.Entry author = node2.getTableVersions().newEntry("author value", new String[] { "author" });
+
+    node1.getCacheInvalidationBus().publishTables(new String[] { "blog" });
+    assertNull(node2.getTableVersions().getValue(blog));
+    assertEquals("author value", node2.getTableVersions().getValue(author));
+  }
+
+  @Test
+  void shouldIgnoreOwnInvalidations() {
+    Configuration node = node();
+    node.addCache(new PerpetualCache("ns"));
+    node.getCache("ns").putObject("key", "value");
+    node.getCacheInvalidationBus().onInvalidation(CacheInvalidation.ofNamespace(node.getCacheInvalidationBus().getNodeId(), "ns"));
+    assertEquals(1, node.getCache("ns").getSize());
+  }
+
+  @Test
+  void shouldNotFailCommitWhenPublishFails() {
+    Configuration node = new Configuration();
+    node.setCacheInvalidationTransport(new CacheInvalidationTransport() {
+      @Override
+      public void publish(CacheInvalidation invalidation) {
+        throw new IllegalStateException("broker down");
+      }
+
+      @Override
+      public void subscribe(Listener listener) {
+      }
+    });
+    node.getCacheInvalidationBus().publishNamespace("ns");
+  }
+
+  private LoopbackTransport transport(String channel) {
+    LoopbackTransport transport = new LoopbackTransport(channel);
+    transports.add(transport);
+    return transport;
+  }
+
+  private Configuration node() {
+    Configuration configuration = new Configuration();
+    configuration.setCacheInvalidationTransport(transport("nodes"));
+    return configuration;
+  }
+
+}
@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class JmxCacheMetricsReporterTest {
+
+  private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+  private final JmxCacheMetricsReporter reporter = new JmxCacheMetricsReporter(server);
+
+  @AfterEach
+  void tearDown() {
+    reporter.unregisterAll();
+  }
+
+  @Test
+  void shouldUnregisterAllMBeans() throws Exception {
+    MetricsCache cache = new MetricsCache(new PerpetualCache("test"));
+    reporter.register(new Configuration(), cache);
+    ObjectName name = reporter.getObjectNames().get(0);
+    cache.putObject("key", "value");
+    assertThat(server.getAttribute(name, "Puts")).isEqualTo(1L);
+    assertThat(server.getAttribute(name, "Size")).isEqualTo(1);
+
+    reporter.unregisterAll();
+    assertThat(server.isRegistered(name)).isFalse();
+    assertThat(reporter.getObjectNames()).isEmpty();
+  }
+
+  @Test
+  void shouldNotKeepTheCacheAlive() throws Exception {
+    MetricsCache cache = new MetricsCache(new PerpetualCache("test"));
+    reporter.register(new Configuration(), cache);
+    ObjectName name = reporter.getObjectNames().get(0);
+    cache.putObject("key", new byte[1024]);
+    WeakReference<MetricsCache> reference = new WeakReference<>(cache);
+    cache = null;
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(reference.get()).isNull();
+    assertThat(server.getAttribute(name, "Id")).isEqualTo("test");
+    assertThat(server.getAttribute(name, "Size")).isEqualTo(0);
+  }
+
+}
@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.weigher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class RetainedSizeWeigherTest {
+
+  private final RetainedSizeWeigher weigher = new RetainedSizeWeigher();
+
+  @Test
+  void shouldWeighByteArraysByTheirLength() {
+    assertEquals(1000, weigher.weigh(new byte[1000]));
+  }
+
+  @Test
+  void shouldGrowWithTheNumberOfRows() {
+    long small = weigher.weigh(authors(10));
+    long large = weigher.weigh(authors(1000));
+    assertTrue(small > 10 * 100, "small: " + small);
+    assertTrue(large > 90 * small, "small: " + small + ", large: " + large);
+  }
+
+  @Test
+  void shouldCountSharedObjectsOnce() {
+    Author author = authors(1).get(0);
+    long once = weigher.weigh(Collections.singletonList(author));
+    long twice = weigher.weigh(new ArrayList<>(Arrays.asList(author, author)));
+    assertTrue(twice - once < 16, "once: " + once + ", twice: " + twice);
+  }
+
+  @Test
+  void shouldWeighMaps() {
+    Map<String, Object> row = new HashMap<>();
+    long empty = weigher.weigh(row);
+    row.put("name", "a fairly long string value");
+    row.put("id", 1);
+    assertTrue(weigher.weigh(row) > empty + 2 * 40);
+  }
+
+  private static List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "author" + i, "password" + i, "author" + i + "@ibatis.apache.org", "bio", Section.NEWS));
+    }
+    return authors;
+  }
+
+}
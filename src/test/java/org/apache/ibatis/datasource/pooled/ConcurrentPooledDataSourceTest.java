@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPooledDataSourceTest {
+
+  private ConcurrentPooledDataSource ds;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    ds = new ConcurrentPooledDataSource();
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    ds.setDefaultAutoCommit(false);
+    ds.setPoolMaximumActiveConnections(3);
+    ds.setPoolMaximumIdleConnections(2);
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      connections.add(ds.getConnection());
+    }
+    assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+    for (Connection c : connections) {
+      c.close();
+    }
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    assertEquals(3, ds.getPoolState().getRequestCount());
+    assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    assertEquals(0, ds.getPoolState().getHadToWaitCount());
+    assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+  }
+
+  @Test
+  void shouldReuseTheConnectionLastReturnedByTheSameThread() throws Exception {
+    Connection first = ds.getConnection();
+    Connection second = ds.getConnection();
+    Connection realFirst = PooledDataSource.unwrapConnection(first);
+    second.close();
+    first.close();
+    Connection again = ds.getConnection();
+    assertSame(realFirst, PooledDataSource.unwrapConnection(again));
+    again.close();
+  }
+
+  @Test
+  void shouldNotAllowUsingAConnectionAfterItWasClosed() throws Exception {
+    Connection c = ds.getConnection();
+    c.close();
+    assertThrows(SQLException.class, c::createStatement);
+    Connection again = ds.getConnection();
+    assertNotSame(c, again);
+    assertSame(PooledDataSource.unwrapConnection(c), PooledDataSource.unwrapConnection(again));
+    again.close();
+  }
+
+  @Test
+  void shouldClaimOverdueConnection() throws Exception {
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMaximumCheckoutTime(10);
+    Connection leaked = ds.getConnection();
+    Thread.sleep(50);
+    Connection c = ds.getConnection();
+    assertEquals(1, ds.getPoolState().getClaimedOverdueConnectionCount());
+    assertThrows(SQLException.class, leaked::createStatement);
+    leaked.close();
+    assertEquals(1, ds.getPoolState().getBadConnectionCount());
+    c.close();
+    assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldHandOffConnectionsToWaitingThreads() throws Exception {
+    ds.setPoolMaximumActiveConnections(4);
+    ds.setPoolMaximumIdleConnections(4);
+    int threads = 32;
+    int iterations = 200;
+    AtomicInteger maxActive = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < iterations; j++) {
+            try (Connection c = ds.getConnection()) {
+              maxActive.accumulateAndGet(ds.getPoolState().getActiveConnectionCount(), Math::max);
+              c.getAutoCommit();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(maxActive.get() <= 4);
+    assertEquals(threads * iterations, ds.getPoolState().getRequestCount());
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    assertTrue(ds.getPoolState().getIdleConnectionCount() <= 4);
+  }
+
+  @Test
+  void shouldInvalidateActiveConnectionsOnForceCloseAll() throws Exception {
+    Connection c = ds.getConnection();
+    ds.forceCloseAll();
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    assertThrows(SQLException.class, c::createStatement);
+    c.close();
+    assertEquals(1, ds.getPoolState().getBadConnectionCount());
+  }
+
+  @Test
+  void shouldBeRegisteredAsConcurrentPooled() {
+    Configuration configuration = new Configuration();
+    assertEquals(ConcurrentPooledDataSourceFactory.class,
+        configuration.getTypeAliasRegistry().resolveAlias("CONCURRENT_POOLED"));
+    assertTrue(new ConcurrentPooledDataSourceFactory().getDataSource() instanceof ConcurrentPooledDataSource);
+  }
+
+}
@@ -416,6 +416,29 @@ class BaseExecutorTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldFetchComplexBlogsWithBoundedLocalCache() throws Exception {
+    config.setLocalCacheSize(1);
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectBlog = ExecutorTestHelper.prepareComplexSelectBlogMappedStatement(config);
+      MappedStatement selectPosts = ExecutorTestHelper.prepareSelectPostsForBlogMappedStatement(config);
+      config.addMappedStatement(selectBlog);
+      config.addMappedStatement(selectPosts);
+      List<Blog> blogs = executor.query(selectBlog, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.flushStatements();
+      assertEquals(1, blogs.size());
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertEquals(1, blogs.get(0).getPosts().get(1).getBlog().getPosts().get(1).getBlog().getId());
+      List<Post> posts = executor.query(selectPosts, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, posts.size());
+      executor.rollback(true);
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Test
   void shouldMapConstructorResults() throws Exception {
 
@@ -0,0 +1,111 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CompactRowMapTest {
+
+  private final CompactRowMap.Schema schema = new CompactRowMap.Schema(Arrays.asList("ID", "NAME", "ID", "AGE"));
+
+  @Test
+  void shouldIgnoreDuplicateKeysOfSchema() {
+    assertThat(schema.getKeys()).containsExactly("ID", "NAME", "AGE");
+  }
+
+  @Test
+  void shouldBehaveLikeHashMap() {
+    CompactRowMap row = new CompactRowMap(schema);
+    Map<String, Object> expected = new HashMap<>();
+    for (Map<String, Object> map : Arrays.asList(row, expected)) {
+      assertThat(map.put("ID", 1)).isNull();
+      assertThat(map.put("NAME", null)).isNull();
+      assertThat(map.put("OTHER", "other")).isNull();
+      assertThat(map.put("ID", 2)).isEqualTo(1);
+    }
+    assertThat(row).isEqualTo(expected).hasSize(3);
+    assertThat(row.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(row.containsKey("NAME")).isTrue();
+    assertThat(row.containsKey("AGE")).isFalse();
+    assertThat(row.get("NAME")).isNull();
+    assertThat(row.get("OTHER")).isEqualTo("other");
+    assertThat(row.containsValue(null)).isTrue();
+
+    assertThat(row.remove("ID")).isEqualTo(2);
+    assertThat(row.remove("ID")).isNull();
+    assertThat(row.remove("OTHER")).isEqualTo("other");
+    assertThat(row).hasSize(1).containsEntry("NAME", null);
+
+    row.clear();
+    assertThat(row).isEmpty();
+  }
+
+  @Test
+  void shouldIterateInSchemaOrderThenInsertionOrder() {
+    CompactRowMap row = new CompactRowMap(schema);
+    row.put("OTHER", "other");
+    row.put("AGE", 30);
+    row.put("ID", 1);
+    assertThat(row.keySet()).containsExactly("ID", "AGE", "OTHER");
+    assertThat(row.values()).containsExactly(1, 30, "other");
+    assertThat(row).hasToString("{ID=1, AGE=30, OTHER=other}");
+  }
+
+  @Test
+  void shouldUpdateAndRemoveThroughEntries() {
+    CompactRowMap row = new CompactRowMap(schema);
+    row.put("ID", 1);
+    row.put("NAME", "User1");
+    row.put("OTHER", "other");
+    Iterator<Map.Entry<String, Object>> iterator = row.entrySet().iterator();
+    iterator.next().setValue(2);
+    iterator.next();
+    iterator.remove();
+    assertThatThrownBy(iterator::remove).isInstanceOf(IllegalStateException.class);
+    iterator.next();
+    iterator.remove();
+    assertThat(iterator.hasNext()).isFalse();
+    assertThat(row).containsOnlyKeys("ID").containsEntry("ID", 2);
+  }
+
+  @Test
+  void shouldSerialize() throws Exception {
+    CompactRowMap row = new CompactRowMap(schema);
+    row.put("ID", 1);
+    row.put("NAME", null);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(row);
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      CompactRowMap copy = (CompactRowMap) ois.readObject();
+      assertThat(copy).isEqualTo(row).containsEntry("NAME", null).doesNotContainKey("AGE");
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MappingPlanTest {
+
+  private Configuration configuration;
+  private ResultMap resultMap;
+
+  @BeforeEach
+  void setUp() {
+    configuration = new Configuration();
+    resultMap = new ResultMap.Builder(configuration, "testMap", HashMap.class, Collections.singletonList(
+        new ResultMapping.Builder(configuration, "id", "ID", configuration.getTypeHandlerRegistry().getTypeHandler(Integer.class)).build()))
+        .build();
+  }
+
+  @Test
+  void shouldShareThePlanBetweenResultSetsWithTheSameColumns() throws SQLException {
+    MappingPlan plan = newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null);
+    assertThat(plan.getMappedColumnNames()).containsExactly("ID");
+    assertThat(plan.getUnmappedColumnNames()).containsExactly("NAME");
+    assertThat(newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null)).isSameAs(plan);
+  }
+
+  @Test
+  void shouldNotShareThePlanBetweenDifferentColumnsOrPrefixes() throws SQLException {
+    MappingPlan plan = newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null);
+    MappingPlan otherColumns = newResultSetWrapper("ID", "NICK_NAME").getMappingPlan(resultMap, null);
+    assertThat(otherColumns).isNotSameAs(plan);
+    assertThat(otherColumns.getUnmappedColumnNames()).containsExactly("NICK_NAME");
+    MappingPlan prefixed = newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, "P_");
+    assertThat(prefixed).isNotSameAs(plan);
+    assertThat(prefixed.getMappedColumnNames()).isEmpty();
+  }
+
+  @Test
+  void shouldResolveColumnIndexes() throws SQLException {
+    ResultSetWrapper rsw = newResultSetWrapper("NAME", "id", "ID");
+    assertThat(rsw.getColumnIndex("Id")).isEqualTo(2);
+    assertThat(rsw.getColumnIndex("name")).isEqualTo(1);
+    assertThat(rsw.getColumnIndex("NICK_NAME")).isEqualTo(-1);
+    assertThat(rsw.getMappingPlan(resultMap, null).getPropertyColumnIndexes()).containsExactly(2);
+    assertThat(newResultSetWrapper("NAME").getMappingPlan(resultMap, null).getPropertyColumnIndexes()).containsExactly(-1);
+  }
+
+  @Test
+  void shouldEvictTheLeastRecentlyUsedPlan() throws SQLException {
+    configuration.setMappingPlanCacheSize(1);
+    MappingPlan plan = newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null);
+    newResultSetWrapper("ID", "NICK_NAME").getMappingPlan(resultMap, null);
+    assertThat(newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null)).isNotSameAs(plan);
+  }
+
+  @Test
+  void shouldNotSharePlansWhenDisabled() throws SQLException {
+    configuration.setMappingPlanCacheSize(0);
+    ResultSetWrapper rsw = newResultSetWrapper("ID", "NAME");
+    MappingPlan plan = rsw.getMappingPlan(resultMap, null);
+    assertThat(rsw.getMappingPlan(resultMap, null)).isSameAs(plan);
+    assertThat(newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null)).isNotSameAs(plan);
+  }
+
+  @Test
+  void shouldClearPlansWhenAutoMappingSettingsChange() throws SQLException {
+    MappingPlan plan = newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null);
+    configuration.setMapUnderscoreToCamelCase(true);
+    assertThat(newResultSetWrapper("ID", "NAME").getMappingPlan(resultMap, null)).isNotSameAs(plan);
+  }
+
+  private ResultSetWrapper newResultSetWrapper(String... columns) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rsmd.getColumnCount()).thenReturn(columns.length);
+    for (int i = 0; i < columns.length; i++) {
+      when(rsmd.getColumnLabel(i + 1)).thenReturn(columns[i]);
+      when(rsmd.getColumnType(i + 1)).thenReturn(i == 0 ? Types.INTEGER : Types.VARCHAR);
+      when(rsmd.getColumnClassName(i + 1)).thenReturn(i == 0 ? Integer.class.getName() : String.class.getName());
+    }
+    return new ResultSetWrapper(rs, configuration);
+  }
+
+}
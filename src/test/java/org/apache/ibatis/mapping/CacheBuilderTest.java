@@ -19,11 +19,23 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.codec.CompactCodec;
+import org.apache.ibatis.cache.decorators.ExpiringCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.MetricsCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.weigher.RowCountWeigher;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,11 +55,113 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
-  @SuppressWarnings("unchecked")
+  @Test
+  void testSynchronizedByDefault() {
+    Cache cache = new CacheBuilder("test").build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+    Assertions.assertThat((Object) unwrap(unwrap(cache), "concurrentRequests")).isNull();
+  }
+
+  @Test
+  void testNotSynchronizedWithConcurrentEviction() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).size(100).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    Assertions.assertThat((Object) unwrap(cache, "concurrentRequests")).isNotNull();
+    TinyLfuCache eviction = unwrap(cache);
+    Cache store = unwrap(eviction);
+    Assertions.assertThat(store).isInstanceOf(PerpetualCache.class);
+    for (int i = 0; i < 200; i++) {
+      cache.putObject(i, i);
+    }
+    Assertions.assertThat(cache.getSize()).isEqualTo(100);
+  }
+
+  @Test
+  void testExpiringWithTimeToLive() {
+    Cache cache = new CacheBuilder("test").timeToLive(60000L).timeToLiveJitter(1000L).staleWhileRevalidate(5000L).build();
+
+    Cache logging = unwrap(cache);
+    Cache expiring = unwrap(logging);
+    Assertions.assertThat(expiring).isInstanceOf(ExpiringCache.class);
+    Assertions.assertThat(((ExpiringCache) expiring)).extracting("timeToLive", "jitter", "staleWhileRevalidate")
+      .containsExactly(60000L, 1000L, 5000L);
+    Assertions.assertThat((Cache) unwrap(expiring)).isInstanceOf(LruCache.class);
+  }
+
+  @Test
+  void testReadWriteWithCodec() {
+    CacheBuilder builder = new CacheBuilder("test").readWrite(true).codec(CompactCodec.class);
+    Cache cache = builder.build();
+
+    Cache logging = unwrap(cache);
+    Cache serialized = unwrap(logging);
+    Assertions.assertThat(serialized).isInstanceOf(SerializedCache.class);
+    Assertions.assertThat((Object) unwrap(serialized, "codec")).isSameAs(builder.getCopyCodec());
+  }
+
+  @Test
+  void testReadOnlyHasNoCopyCodec() {
+    CacheBuilder builder = new CacheBuilder("test").readWrite(false);
+    builder.build();
+
+    Assertions.assertThat(builder.getCopyCodec()).isNull();
+  }
+
+  @Test
+  void testCustomCacheWithCodec() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).codec(CompactCodec.class).build();
+
+    OffHeapCache offHeapCache = unwrap(cache);
+    Assertions.assertThat((Object) unwrap(offHeapCache, "codec")).isInstanceOf(CompactCodec.class);
+  }
+
+  @Test
+  void testWeighted() {
+    Cache cache = new CacheBuilder("test").addDecorator(TinyLfuCache.class).maxWeight(100L).weigher(RowCountWeigher.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+    Cache logging = unwrap(cache);
+    WeightedCache weighted = unwrap(logging);
+    Assertions.assertThat(weighted.getMaxWeight()).isEqualTo(100L);
+    Assertions.assertThat((Object) unwrap(weighted, "weigher")).isInstanceOf(RowCountWeigher.class);
+    Cache tinyLfu = unwrap(weighted);
+    Assertions.assertThat(tinyLfu).isInstanceOf(TinyLfuCache.class);
+    Assertions.assertThat((Cache) unwrap(tinyLfu)).isInstanceOf(WeightedCache.Storage.class);
+  }
+
+  @Test
+  void testWeightedReleasesWeightOfEntriesEvictedBySize() {
+    Cache cache = new CacheBuilder("test").size(2).maxWeight(100L).weigher(RowCountWeigher.class).build();
+    cache.putObject("a", Arrays.asList(1, 2, 3));
+    cache.putObject("b", Arrays.asList(1, 2, 3));
+    cache.putObject("c", Arrays.asList(1, 2, 3));
+
+    WeightedCache weighted = unwrap(unwrap(cache));
+    Assertions.assertThat(cache.getSize()).isEqualTo(2);
+    Assertions.assertThat(weighted.getWeight()).isEqualTo(6L);
+  }
+
+  @Test
+  void testMetrics() {
+    Cache cache = new CacheBuilder("test").maxWeight(100L).weigher(RowCountWeigher.class).metrics(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(MetricsCache.class);
+    Assertions.assertThat((Cache) unwrap(cache)).isInstanceOf(SynchronizedCache.class);
+    cache.putObject("a", Arrays.asList(1, 2, 3));
+    Assertions.assertThat(((MetricsCache) cache).getEstimatedSize()).isEqualTo(3L);
+  }
+
   private <T> T unwrap(Cache cache) {
+    return unwrap(cache, "delegate");
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T unwrap(Cache cache, String name) {
     Field field;
     try {
-      field = cache.getClass().getDeclaredField("delegate");
+      field = cache.getClass().getDeclaredField(name);
     } catch (NoSuchFieldException e) {
       throw new IllegalStateException(e);
     }
@@ -61,6 +61,44 @@ class DefaultObjectFactoryTest {
     }
   }
 
+  @Test
+  void createClassWithCachedConstructor() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    List<Class<?>> argTypes = new ArrayList<>(Arrays.asList(String.class, Integer.class));
+    defaultObjectFactory.create(TestClass.class, argTypes, Arrays.asList("foo", 0));
+    argTypes.set(1, String.class);
+
+    TestClass testClass = new DefaultObjectFactory().create(TestClass.class,
+        Arrays.asList(String.class, Integer.class), Arrays.asList("bar", 1));
+    Assertions.assertEquals((Integer) 1, testClass.myInteger, "myInteger didn't match expected");
+    Assertions.assertEquals("bar", testClass.myString, "myString didn't match expected");
+  }
+
+  @Test
+  void createClassWithNonPublicConstructor() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    Assertions.assertEquals("private", defaultObjectFactory.create(PrivateClass.class).value);
+    Assertions.assertEquals("private", defaultObjectFactory.create(PrivateClass.class).value);
+  }
+
+  @Test
+  void createClassWithWrongArgumentThrowsProperErrorMsg() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    ReflectionException wrongType = Assertions.assertThrows(ReflectionException.class,
+        () -> defaultObjectFactory.create(TestClass.class, Arrays.asList(String.class, Integer.class), Arrays.asList("foo", "bar")));
+    Assertions.assertTrue(wrongType.getMessage().contains("(String,Integer)"), "Should list the argument types");
+  }
+
+  @Test
+  void createClassRethrowsErrors() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    Assertions.assertThrows(AssertionError.class, () -> defaultObjectFactory.create(FailingClass.class,
+        Collections.singletonList(Throwable.class), Collections.singletonList(new AssertionError("failed"))));
+    ReflectionException e = Assertions.assertThrows(ReflectionException.class, () -> defaultObjectFactory.create(FailingClass.class,
+        Collections.singletonList(Throwable.class), Collections.singletonList(new IllegalStateException("failed"))));
+    Assertions.assertTrue(e.getCause() instanceof IllegalStateException, "Should be caused by the exception of the constructor");
+  }
+
   @Test
   void createHashMap() {
      DefaultObjectFactory defaultObjectFactory=new DefaultObjectFactory();
@@ -94,4 +132,18 @@ class DefaultObjectFactoryTest {
     Set set = defaultObjectFactory.create(Set.class);
     Assertions.assertTrue(set instanceof HashSet, " set should be HashSet");
   }
+
+  private static class FailingClass {
+    FailingClass(Throwable failure) throws Throwable {
+      throw failure;
+    }
+  }
+
+  private static class PrivateClass {
+    private final String value;
+
+    private PrivateClass() {
+      this.value = "private";
+    }
+  }
 }
@@ -0,0 +1,226 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ognl.Ognl;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class SimpleExpressionTest {
+
+  private static final String[] SUPPORTED = {
+      "username != null",
+      "username != null and username != ''",
+      "username == 'cbegin'",
+      "username eq \"cbegin\"",
+      "password == null || password == ''",
+      "not (id > 0)",
+      "!bio",
+      "id >= 1 and id lt 2",
+      "id <= 0 or id gte 100",
+      "username.length() > 3",
+      "username.isEmpty()",
+      "email != null and email.length() == 0",
+      "_parameter != null",
+      "_databaseId == null",
+      "tags != null and tags.size() > 0",
+      "tags.isEmpty()",
+      "codes.length == 2",
+      "extra.size == 1 and extra.isEmpty == false",
+      "extra.size() > 0",
+      "extra.key",
+      "extra.key == 'value'",
+      "section == 'NEWS'",
+      "id == 1 and (username == 'x' or bio != null)",
+      "id",
+      "true and false",
+      "username and id",
+      "missing == null",
+  };
+
+  private static final String[] UNSUPPORTED = {
+      "username.trim()",
+      "tags[0]",
+      "id + 1",
+      "id > 1.5",
+      "id == 010",
+      "-id",
+      "id in {1, 2}",
+      "@java.lang.Math@max(1, 2)",
+      "#this",
+      "username == 'a\\'b'",
+      "size()",
+      "username != null and",
+      "(username).length()",
+      "id ? 1 : 0",
+  };
+
+  @Test
+  void shouldEvaluateLikeOgnl() {
+    for (Object root : Arrays.asList(contextRoot(), mapContextRoot())) {
+      for (String expression : SUPPORTED) {
+        SimpleExpression compiled = SimpleExpression.compile(expression);
+        assertThat(compiled).as(expression).isNotNull();
+        Object expected;
+        try {
+          expected = ognlValue(expression, root);
+        } catch (Exception e) {
+          // failures are always reported by OGNL
+          expected = SimpleExpression.UNSUPPORTED;
+        }
+        assertThat(compiled.getValue(root)).as(expression).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  void shouldNotCompileUnsupportedExpressions() {
+    for (String expression : UNSUPPORTED) {
+      assertThat(SimpleExpression.compile(expression)).as(expression).isNull();
+    }
+  }
+
+  @Test
+  void shouldDeferToOgnlForUnsupportedValues() {
+    Map<String, Object> root = mapContextRoot();
+    // null source, java.lang.String vs java.lang.Character and a collection property
+    for (String expression : new String[] {"missing.name", "bio == 'c'", "tags.size"}) {
+      assertThat(SimpleExpression.compile(expression).getValue(root)).as(expression).isSameAs(SimpleExpression.UNSUPPORTED);
+    }
+    assertThat(OgnlCache.getValue("tags.size", root)).isEqualTo(2);
+    assertThatThrownBy(() -> OgnlCache.getValue("missing.name", root)).isInstanceOf(BuilderException.class);
+    assertThat(OgnlCache.getValue("bio == 'bio'", root)).isEqualTo(Boolean.TRUE);
+  }
+
+  @Test
+  void shouldReadPrivateFields() {
+    class DataClass {
+      @SuppressWarnings("unused")
+      private int id = 5;
+    }
+    Map<String, Object> root = new HashMap<>();
+    root.put("data", new DataClass());
+    assertThat(SimpleExpression.compile("data.id == 5").getValue(root)).isEqualTo(Boolean.TRUE);
+  }
+
+  @Test
+  void shouldReadPropertiesWithTheReflectorFactoryOfTheConfiguration() {
+    List<Class<?>> reflected = new ArrayList<>();
+    Configuration configuration = new Configuration();
+    configuration.setReflectorFactory(new DefaultReflectorFactory() {
+      @Override
+      public Reflector findForClass(Class<?> type) {
+        reflected.add(type);
+        return super.findForClass(type);
+      }
+    });
+    Author author = new Author(1, "cbegin", null, "", null, Section.NEWS);
+    Map<String, Object> root = new DynamicContext(configuration, new Parameter(author)).getBindings();
+    reflected.clear();
+    assertThat(SimpleExpression.compile("_parameter.author.username == 'cbegin'").getValue(root)).isEqualTo(Boolean.TRUE);
+    assertThat(reflected).containsExactly(Parameter.class, Author.class);
+  }
+
+  private static Map<String, Object> contextRoot() {
+    Author author = new Author(1, "cbegin", null, "", null, Section.NEWS);
+    DynamicContext context = new DynamicContext(new Configuration(), new Parameter(author));
+    return context.getBindings();
+  }
+
+  private static Map<String, Object> mapContextRoot() {
+    Map<String, Object> parameter = new HashMap<>();
+    Parameter bean = new Parameter(new Author(0, "", "secret", "a@b.c", "bio", Section.IMAGES));
+    parameter.put("id", 0);
+    parameter.put("username", "");
+    parameter.put("password", "secret");
+    parameter.put("email", "a@b.c");
+    parameter.put("bio", "bio");
+    parameter.put("section", Section.IMAGES);
+    parameter.put("tags", bean.getTags());
+    parameter.put("codes", bean.getCodes());
+    parameter.put("extra", bean.getExtra());
+    return new DynamicContext(new Configuration(), parameter).getBindings();
+  }
+
+  private static Object ognlValue(String expression, Object root) throws Exception {
+    Map context = Ognl.createDefaultContext(root, new OgnlMemberAccess(), new OgnlClassResolver(), null);
+    return Ognl.getValue(Ognl.parseExpression(expression), context, root);
+  }
+
+  public static class Parameter {
+    private final Author author;
+    private final List<String> tags = new ArrayList<>(Arrays.asList("a", "b"));
+    private final int[] codes = {1, 2};
+    private final Map<String, String> extra = new HashMap<>(Collections.singletonMap("key", "value"));
+
+    Parameter(Author author) {
+      this.author = author;
+    }
+
+    public Integer getId() {
+      return author.getId();
+    }
+
+    public String getUsername() {
+      return author.getUsername();
+    }
+
+    public String getPassword() {
+      return author.getPassword();
+    }
+
+    public String getEmail() {
+      return author.getEmail();
+    }
+
+    public String getBio() {
+      return author.getBio();
+    }
+
+    public Section getSection() {
+      return author.getFavouriteSection();
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+
+    public int[] getCodes() {
+      return codes;
+    }
+
+    public Map<String, String> getExtra() {
+      return extra;
+    }
+  }
+
+}
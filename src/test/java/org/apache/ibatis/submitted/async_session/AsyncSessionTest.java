@@ -0,0 +1,139 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncSessionTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @Test
+  void shouldSelectAndUpdateAsynchronously() throws Exception {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    CompletableFuture<User> user = asyncSession.selectOne("org.apache.ibatis.submitted.async_session.Mapper.getUser", 1);
+    CompletableFuture<List<User>> users = asyncSession.selectList("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync");
+    assertThat(user.get().getName()).isEqualTo("User1");
+    assertThat(users.get()).hasSize(2);
+
+    CompletableFuture<Integer> inserted = asyncSession.insert("org.apache.ibatis.submitted.async_session.Mapper.insertUserAsync",
+        new User(3, "User3"));
+    assertThat(inserted.get()).isEqualTo(1);
+    // each call is committed
+    CompletableFuture<Map<Integer, User>> byId = asyncSession.selectMap("org.apache.ibatis.submitted.async_session.Mapper.getUsersAsync", null, "id");
+    assertThat(byId.get()).containsOnlyKeys(1, 2, 3);
+  }
+
+  @Test
+  void shouldRunMapperMethodsReturningFutureOnAsyncExecutor() throws Exception {
+    RecordingExecutor executor = new RecordingExecutor();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+    Mapper mapper = sqlSessionFactory.openAsyncSession().getMapper(Mapper.class);
+
+    CompletableFuture<User> user = mapper.getUserAsync(2);
+    CompletableFuture<Optional<User>> missing = mapper.findUserAsync(9);
+    CompletableFuture<List<User>> users = mapper.getUsersAsync();
+    CompletableFuture<String[]> names = mapper.getNamesAsync();
+    assertThat(user.get().getName()).isEqualTo("User2");
+    assertThat(missing.get()).isEmpty();
+    assertThat(users.get()).extracting(User::getName).containsExactly("User1", "User2");
+    assertThat(names.get()).containsExactly("User1", "User2");
+    assertThat(mapper.insertUserAsync(new User(3, "User3")).get()).isEqualTo(1);
+    assertThat(mapper.insertUserNoResultAsync(new User(4, "User4")).get()).isNull();
+    assertThat(executor.count).isEqualTo(6);
+
+    // other methods are executed by the calling thread
+    assertThat(mapper.getUser(4).getName()).isEqualTo("User4");
+    assertThat(executor.count).isEqualTo(6);
+  }
+
+  @Test
+  void shouldReportFailuresThroughFuture() {
+    Mapper mapper = sqlSessionFactory.openAsyncSession().getMapper(Mapper.class);
+    CompletableFuture<Integer> inserted = mapper.insertUserAsync(new User(5, "a name that is too long for the column"));
+    assertThatThrownBy(inserted::get).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(PersistenceException.class);
+    assertThat(inserted).isCompletedExceptionally();
+  }
+
+  @Test
+  void shouldExecuteOnCallingThreadWithRegularSession() throws Exception {
+    RecordingExecutor executor = new RecordingExecutor();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      CompletableFuture<User> user = mapper.getUserAsync(1);
+      assertThat(user).isDone();
+      assertThat(user.get().getName()).isEqualTo("User1");
+      assertThat(mapper.insertUserAsync(new User(3, "User3")).get()).isEqualTo(1);
+      // the insert belongs to the transaction of the session
+      sqlSession.rollback();
+      assertThat(mapper.findUserAsync(3).get()).isEmpty();
+    }
+    assertThat(executor.count).isZero();
+  }
+
+  @Test
+  void shouldUseBoundedDefaultExecutorPerConfiguration() {
+    Configuration configuration = new Configuration();
+    Executor executor = configuration.getAsyncExecutor();
+    assertThat(executor).isInstanceOf(ThreadPoolExecutor.class).isSameAs(configuration.getAsyncExecutor())
+        .isNotSameAs(new Configuration().getAsyncExecutor());
+    assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize()).isLessThan(Integer.MAX_VALUE);
+    assertThat(((ThreadPoolExecutor) executor).allowsCoreThreadTimeOut()).isTrue();
+  }
+
+  private static class RecordingExecutor implements Executor {
+    private int count;
+
+    @Override
+    public void execute(Runnable command) {
+      count++;
+      new Thread(command).start();
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_flush;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchFlushTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_flush/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_flush/CreateDB.sql");
+  }
+
+  @Test
+  void shouldExecuteWhenStatementBatchIsFull() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 7; i++) {
+        mapper.insertUser(new Item(i, "User" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).hasSize(1);
+      assertThat(results.get(0).getUpdateCounts()).containsExactly(1, 1, 1, 1, 1, 1, 1);
+      // only the updates added after the last automatic execution are kept
+      assertThat(results.get(0).getParameterObjects()).hasSize(1);
+      assertThat(mapper.countUsers()).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void shouldExecuteAllStatementsInOrderWhenTotalIsReached() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Item> depts = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertUser(new Item(i, "User" + i));
+        Item dept = new Item(null, "Dept" + i);
+        depts.add(dept);
+        mapper.insertDept(dept);
+      }
+      // generated keys are assigned by the automatic execution too
+      assertThat(depts.get(0).getId()).isNotNull();
+      assertThat(depts.get(1).getId()).isNotNull();
+      assertThat(depts.get(2).getId()).isNull();
+
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertThat(results).hasSize(6);
+      for (int i = 0; i < 6; i++) {
+        assertThat(results.get(i).getMappedStatement().getId()).endsWith(i % 2 == 0 ? "insertUser" : "insertDept");
+        assertThat(results.get(i).getUpdateCounts()).containsExactly(1);
+        assertThat(results.get(i).getParameterObjects()).hasSize(i < 4 ? 0 : 1);
+      }
+      assertThat(depts.get(2).getId()).isNotNull();
+      assertThat(mapper.countUsers()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void shouldNotExecuteRolledBackUpdates() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 4; i++) {
+        mapper.insertUser(new Item(i, "User" + i));
+      }
+      sqlSession.rollback();
+      assertThat(mapper.countUsers()).isEqualTo(0);
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_invalidation_bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationBusTest {
+
+  // two configurations on the same database stand for two nodes
+  private SqlSessionFactory node1;
+  private SqlSessionFactory node2;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    node1 = build();
+    node2 = build();
+    BaseDataTest.runScript(node1.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_invalidation_bus/CreateDB.sql");
+  }
+
+  @AfterEach
+  void tearDown() {
+    ((LoopbackTransport) node1.getConfiguration().getCacheInvalidationTransport()).close();
+    ((LoopbackTransport) node2.getConfiguration().getCacheInvalidationTransport()).close();
+  }
+
+  @Test
+  void shouldInvalidateCacheOfOtherNode() {
+    assertThat(getUserName(node1, 1)).isEqualTo("User1");
+    assertThat(getUserName(node2, 1)).isEqualTo("User1");
+    assertThat(node2.getConfiguration().getCache(Mapper.class.getName()).getSize()).isEqualTo(1);
+
+    try (SqlSession sqlSession = node1.openSession()) {
+      User user = new User();
+      user.setId(1);
+      user.setName("John");
+      sqlSession.getMapper(Mapper.class).updateName(user);
+      // not broadcast before commit
+      assertThat(node2.getConfiguration().getCache(Mapper.class.getName()).getSize()).isEqualTo(1);
+      sqlSession.commit();
+    }
+
+    assertThat(node2.getConfiguration().getCache(Mapper.class.getName()).getSize()).isZero();
+    assertThat(getUserName(node2, 1)).isEqualTo("John");
+  }
+
+  @Test
+  void shouldNotBroadcastRolledBackWrites() {
+    assertThat(getUserName(node2, 2)).isEqualTo("User2");
+    try (SqlSession sqlSession = node1.openSession()) {
+      User user = new User();
+      user.setId(2);
+      user.setName("John");
+      sqlSession.getMapper(Mapper.class).updateName(user);
+      sqlSession.rollback();
+    }
+    assertThat(node2.getConfiguration().getCache(Mapper.class.getName()).getSize()).isEqualTo(1);
+  }
+
+  private static String getUserName(SqlSessionFactory node, int id) {
+    try (SqlSession sqlSession = node.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getUser(id).getName();
+    }
+  }
+
+  private static SqlSessionFactory build() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_invalidation_bus/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+}
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.metrics.CacheMetrics;
+import org.apache.ibatis.cache.metrics.JmxCacheMetricsReporter;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheMetricsTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_metrics/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_metrics/CreateDB.sql");
+  }
+
+  @AfterEach
+  void tearDown() {
+    ((JmxCacheMetricsReporter) sqlSessionFactory.getConfiguration().getCacheMetricsReporter()).unregisterAll();
+  }
+
+  @Test
+  void shouldCollectCacheMetrics() {
+    CacheMetrics metrics = (CacheMetrics) sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+      sqlSession.getMapper(Mapper.class).getUser(2);
+    }
+    assertThat(metrics.getHits()).isEqualTo(1);
+    assertThat(metrics.getMisses()).isEqualTo(2);
+    assertThat(metrics.getHitRatio()).isEqualTo(1.0 / 3);
+    assertThat(metrics.getPuts()).isEqualTo(2);
+    assertThat(metrics.getLoads()).isEqualTo(2);
+    assertThat(metrics.getTotalLoadTime()).isPositive();
+    assertThat(metrics.getSize()).isEqualTo(2);
+    assertThat(metrics.getEstimatedSize()).isPositive();
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = new User();
+      user.setId(1);
+      user.setName("User1'");
+      sqlSession.getMapper(Mapper.class).updateName(user);
+      sqlSession.commit();
+    }
+    assertThat(metrics.getInvalidations()).isEqualTo(1);
+    assertThat(metrics.getSize()).isZero();
+    assertThat(metrics.getEvictions()).isZero();
+  }
+
+  @Test
+  void shouldCountEntriesDiscardedByTheTransactionAsMisses() {
+    CacheMetrics metrics = (CacheMetrics) sqlSessionFactory.getConfiguration().getCache(Mapper.class.getName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = new User();
+      user.setId(2);
+      user.setName("User2'");
+      sqlSession.getMapper(Mapper.class).updateName(user);
+      // still in the cache, but cleared on commit
+      sqlSession.getMapper(Mapper.class).getUser(1);
+      sqlSession.rollback();
+    }
+    assertThat(metrics.getHits()).isZero();
+    assertThat(metrics.getMisses()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldExposeCacheMetricsAsMBeans() throws Exception {
+    JmxCacheMetricsReporter reporter = (JmxCacheMetricsReporter) sqlSessionFactory.getConfiguration().getCacheMetricsReporter();
+    assertThat(reporter.getObjectNames()).hasSize(1);
+    ObjectName name = reporter.getObjectNames().get(0);
+    assertThat(name.getKeyProperty("name")).isEqualTo(ObjectName.quote(Mapper.class.getName()));
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertThat(server.getAttribute(name, "Misses")).isEqualTo(1L);
+    assertThat(server.getAttribute(name, "Size")).isEqualTo(1);
+
+    reporter.unregisterAll();
+    assertThat(server.isRegistered(name)).isFalse();
+  }
+
+}
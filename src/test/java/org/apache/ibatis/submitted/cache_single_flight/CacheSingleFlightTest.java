@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_single_flight;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheSingleFlightTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService executorService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_single_flight/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_single_flight/CreateDB.sql");
+    executorService = Executors.newFixedThreadPool(4);
+    SlowQueryInterceptor.queries.set(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void shouldQueryOnceForConcurrentSessions() throws Exception {
+    List<Future<User>> users = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      users.add(executorService.submit(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(Mapper.class).getUser(1);
+        }
+      }));
+    }
+    List<User> results = new ArrayList<>();
+    for (Future<User> user : users) {
+      results.add(user.get(10, TimeUnit.SECONDS));
+    }
+    assertThat(SlowQueryInterceptor.queries.get()).isEqualTo(1);
+    assertThat(results).extracting(User::getName).containsOnly("User1");
+    assertThat(results).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void shouldQueryByItselfWhenTheWaitTimesOut() throws Exception {
+    sqlSessionFactory.getConfiguration().setCacheSingleFlightTimeout(100);
+    List<Future<User>> users = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      users.add(executorService.submit(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.getMapper(Mapper.class).getUser(1);
+        }
+      }));
+    }
+    for (Future<User> user : users) {
+      assertThat(user.get(10, TimeUnit.SECONDS).getName()).isEqualTo("User1");
+    }
+    assertThat(SlowQueryInterceptor.queries.get()).isEqualTo(4);
+  }
+
+}
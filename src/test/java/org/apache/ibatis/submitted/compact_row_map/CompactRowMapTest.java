@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compact_row_map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.result.CompactRowMap;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompactRowMapTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    sqlSessionFactory = newSqlSessionFactory();
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compact_row_map/CreateDB.sql");
+  }
+
+  private static SqlSessionFactory newSqlSessionFactory() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compact_row_map/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @Test
+  void shouldShareSchemaBetweenRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users).hasSize(3).allMatch(CompactRowMap.class::isInstance);
+      CompactRowMap first = (CompactRowMap) users.get(0);
+      assertThat(first.getSchema().getKeys()).containsExactly("ID", "NAME", "AGE");
+      assertThat(((CompactRowMap) users.get(2)).getSchema()).isSameAs(first.getSchema());
+    }
+  }
+
+  @Test
+  void shouldMapValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users.get(0)).containsEntry("ID", 1).containsEntry("NAME", "User1").containsEntry("AGE", 30);
+      assertThat(users.get(1)).hasSize(3).containsEntry("NAME", "User2").containsEntry("AGE", null);
+      assertThat(users.get(2)).containsKeys("NAME", "AGE");
+    }
+  }
+
+  @Test
+  void shouldMapWithResultMap() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsersMapped();
+      assertThat(((CompactRowMap) users.get(0)).getSchema().getKeys()).containsExactly("userId", "NAME", "AGE");
+      assertThat(users.get(1)).containsOnlyKeys("userId", "NAME", "AGE").containsEntry("userId", 2);
+    }
+  }
+
+  @Test
+  void shouldMapLikeHashMaps() throws Exception {
+    SqlSessionFactory hashMapSqlSessionFactory = newSqlSessionFactory();
+    hashMapSqlSessionFactory.getConfiguration().setCompactRowMapsEnabled(false);
+    try (SqlSession compact = sqlSessionFactory.openSession();
+         SqlSession hashMap = hashMapSqlSessionFactory.openSession()) {
+      List<Map<String, Object>> expected = hashMap.getMapper(Mapper.class).getUsers();
+      assertThat(expected.get(0)).isNotInstanceOf(CompactRowMap.class);
+      assertThat(compact.getMapper(Mapper.class).getUsers()).isEqualTo(expected);
+      assertThat(compact.getMapper(Mapper.class).getUsersMapped())
+          .isEqualTo(hashMap.getMapper(Mapper.class).getUsersMapped());
+    }
+  }
+
+}
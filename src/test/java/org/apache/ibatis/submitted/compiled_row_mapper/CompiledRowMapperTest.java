@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    sqlSessionFactory = newSqlSessionFactory();
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapper/CreateDB.sql");
+  }
+
+  private static SqlSessionFactory newSqlSessionFactory() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapper/mybatis-config.xml")) {
+      return new SqlSessionFactoryBuilder().build(reader);
+    }
+  }
+
+  @Test
+  void shouldBeEnabledBySetting() {
+    assertThat(sqlSessionFactory.getConfiguration().isCompiledRowMappersEnabled()).isTrue();
+  }
+
+  @Test
+  void shouldMapWithAutoMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertThat(users).hasSize(3);
+      assertThat(users.get(0).getId()).isEqualTo(1);
+      assertThat(users.get(0).getName()).isEqualTo("User1");
+      assertThat(users.get(0).getAge()).isEqualTo(30);
+      assertThat(users.get(0).getNickName()).isEqualTo("one");
+      assertThat(users.get(1).getAge()).isNull();
+      assertThat(users.get(1).getNickName()).isNull();
+    }
+  }
+
+  @Test
+  void shouldMapWithResultMapAndAutoMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersMapped();
+      assertThat(users).hasSize(3);
+      assertThat(users.get(1).getId()).isEqualTo(2);
+      assertThat(users.get(1).getName()).isEqualTo("User2");
+      assertThat(users.get(0).getAge()).isEqualTo(30);
+      assertThat(users.get(0).getNickName()).isEqualTo("one");
+    }
+  }
+
+  @Test
+  void shouldMapLikeTheReflectivePath() throws Exception {
+    SqlSessionFactory reflectiveSqlSessionFactory = newSqlSessionFactory();
+    reflectiveSqlSessionFactory.getConfiguration().setCompiledRowMappersEnabled(false);
+    try (SqlSession compiled = sqlSessionFactory.openSession();
+         SqlSession reflective = reflectiveSqlSessionFactory.openSession()) {
+      assertThat(compiled.getMapper(Mapper.class).getUsers()).usingFieldByFieldElementComparator()
+          .containsExactlyElementsOf(reflective.getMapper(Mapper.class).getUsers());
+      assertThat(compiled.getMapper(Mapper.class).getUsersMapped()).usingFieldByFieldElementComparator()
+          .containsExactlyElementsOf(reflective.getMapper(Mapper.class).getUsersMapped());
+    }
+  }
+
+  @Test
+  void shouldMapPrimitiveProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Measurement> measurements = sqlSession.getMapper(Mapper.class).getMeasurements();
+      assertThat(measurements).hasSize(2);
+      assertThat(measurements.get(0).getId()).isEqualTo(1L);
+      assertThat(measurements.get(0).getSamples()).isEqualTo(3);
+      assertThat(measurements.get(0).getAverage()).isEqualTo(2.5d);
+      assertThat(measurements.get(1).getId()).isEqualTo(2L);
+      assertThat(measurements.get(1).getSamples()).isZero();
+      assertThat(measurements.get(1).getAverage()).isZero();
+      assertThat(measurements.get(1).getSetterCalls()).isZero();
+    }
+  }
+
+  @Test
+  void shouldReadPrimitivePropertiesWithOverriddenTypeHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Measurement> measurements = sqlSession.getMapper(Mapper.class).getMeasurementsWithTypeHandler();
+      assertThat(measurements).hasSize(2);
+      assertThat(measurements.get(0).getSamples()).isEqualTo(6);
+      assertThat(measurements.get(0).getAverage()).isEqualTo(2.5d);
+      assertThat(measurements.get(1).getSamples()).isZero();
+    }
+  }
+
+  @Test
+  void shouldFallBackForDiscriminatedResultMap() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersDiscriminated();
+      assertThat(users).hasSize(3);
+      assertThat(users.get(0)).isExactlyInstanceOf(User.class);
+      assertThat(users.get(1)).isExactlyInstanceOf(SpecialUser.class);
+      assertThat(users.get(1).getName()).isEqualTo("User2");
+    }
+  }
+
+  @Test
+  void shouldReturnNullForEmptyRow() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThat(sqlSession.getMapper(Mapper.class).getEmptyRow()).isNull();
+    }
+  }
+
+  @Test
+  void shouldReturnInstanceForEmptyRow() throws Exception {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory();
+    sqlSessionFactory.getConfiguration().setReturnInstanceForEmptyRow(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = sqlSession.getMapper(Mapper.class).getEmptyRow();
+      assertThat(user).isNotNull();
+      assertThat(user.getName()).isNull();
+    }
+  }
+
+  @Test
+  void shouldCallSettersOnNulls() throws Exception {
+    SqlSessionFactory sqlSessionFactory = newSqlSessionFactory();
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(true);
+    sqlSessionFactory.getConfiguration().setReturnInstanceForEmptyRow(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = sqlSession.getMapper(Mapper.class).getEmptyRow();
+      assertThat(user).isNotNull();
+      assertThat(user.getAge()).isNull();
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+--
+--    Copyright 2009-2020 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table users if exists;
+
+create table users (
+  id int,
+  name varchar(20),
+  age int,
+  nick_name varchar(20),
+  kind varchar(10)
+);
+
+insert into users (id, name, age, nick_name, kind) values(1, 'User1', 30, 'one', 'A');
+insert into users (id, name, age, nick_name, kind) values(2, 'User2', NULL, NULL, 'B');
+insert into users (id, name, age, nick_name, kind) values(3, NULL, NULL, NULL, 'A');
+
+drop table measurements if exists;
+
+create table measurements (
+  id bigint,
+  samples int,
+  average double
+);
+
+insert into measurements (id, samples, average) values(1, 3, 2.5);
+insert into measurements (id, samples, average) values(2, NULL, NULL);
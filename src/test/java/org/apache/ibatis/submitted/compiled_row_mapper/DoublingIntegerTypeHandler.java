@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.IntegerTypeHandler;
+
+public class DoublingIntegerTypeHandler extends IntegerTypeHandler {
+
+  @Override
+  public Integer getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return doubled(super.getNullableResult(rs, columnName));
+  }
+
+  @Override
+  public Integer getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return doubled(super.getNullableResult(rs, columnIndex));
+  }
+
+  @Override
+  public Integer getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return doubled(super.getNullableResult(cs, columnIndex));
+  }
+
+  private static Integer doubled(Integer value) {
+    return value == null ? null : value * 2;
+  }
+
+}
@@ -0,0 +1,55 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+public class Measurement {
+
+  private long id;
+  private int samples;
+  private double average;
+  private int setterCalls;
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  public int getSamples() {
+    return samples;
+  }
+
+  public void setSamples(int samples) {
+    setterCalls++;
+    this.samples = samples;
+  }
+
+  public double getAverage() {
+    return average;
+  }
+
+  public void setAverage(double average) {
+    setterCalls++;
+    this.average = average;
+  }
+
+  public int getSetterCalls() {
+    return setterCalls;
+  }
+
+}
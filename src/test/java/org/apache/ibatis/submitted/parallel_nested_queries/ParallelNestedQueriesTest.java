@@ -0,0 +1,207 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_queries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelNestedQueriesTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_queries/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_nested_queries/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunDistinctNestedQueriesOnAsyncExecutor() {
+    Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    Semaphore claimed = new Semaphore(0);
+    AtomicInteger workerQueries = new AtomicInteger();
+    CountDownLatch inFlight = new CountDownLatch(2);
+    Set<Thread> overlapping = ConcurrentHashMap.newKeySet();
+    QueryThreadInterceptor.threads.clear();
+    QueryThreadInterceptor.beforeQuery = () -> {
+      if (workers.contains(Thread.currentThread())) {
+        claimed.release();
+        if (workerQueries.incrementAndGet() <= 2) {
+          // each of the first two queries run by workers waits for the other one
+          inFlight.countDown();
+          if (await(inFlight)) {
+            overlapping.add(Thread.currentThread());
+          }
+        }
+      }
+    };
+    List<Blog> blogs;
+    try {
+      blogs = getBlogs(command -> {
+        Thread worker = new Thread(command);
+        workers.add(worker);
+        worker.start();
+        if (workers.size() <= 2) {
+          // the statement goes on once the worker runs a query, so that it can not claim all the queries itself
+          assertThat(tryAcquire(claimed)).isTrue();
+        }
+      });
+    } finally {
+      QueryThreadInterceptor.beforeQuery = null;
+    }
+    assertBlogs(blogs);
+    assertThat(blogs.get(2).getAuthor()).isSameAs(blogs.get(0).getAuthor());
+    // two workers were running a query at the same time
+    assertThat(overlapping).hasSize(2);
+    assertThat(QueryThreadInterceptor.threads).filteredOn(workers::contains).hasSizeGreaterThanOrEqualTo(2);
+  }
+
+  @Test
+  void shouldLimitWorkersPerStatement() {
+    List<Runnable> workers = new ArrayList<>();
+    sqlSessionFactory.getConfiguration().setMaxParallelNestedQueries(2);
+    try {
+      // the workers never run, so the queries are all run by the calling thread
+      List<Blog> blogs = getBlogs(workers::add);
+      assertBlogs(blogs);
+      assertThat(workers).hasSize(2);
+    } finally {
+      sqlSessionFactory.getConfiguration().setMaxParallelNestedQueries(4);
+    }
+  }
+
+  @Test
+  void shouldNotWaitForWorkersWithoutConnection() {
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource();
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolTimeToWait(100);
+    try {
+      // the session holds the only connection, so the workers can not start any query
+      List<Blog> blogs = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> getBlogs(command -> new Thread(command).start()));
+      assertBlogs(blogs);
+    } finally {
+      dataSource.setPoolMaximumActiveConnections(10);
+      dataSource.setPoolTimeToWait(20000);
+    }
+  }
+
+  @Test
+  void shouldRunNestedQueriesSeriallyInTransaction() {
+    AtomicInteger submitted = new AtomicInteger();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(command -> {
+      submitted.incrementAndGet();
+      new Thread(command).start();
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertPost(4, 3, "Post4");
+      List<Blog> blogs = mapper.getBlogs();
+      // the nested queries see the uncommitted post
+      assertThat(blogs.get(2).getPosts()).extracting(Post::getSubject).containsExactly("Post4");
+      sqlSession.rollback();
+    } finally {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    }
+    assertThat(submitted.get()).isZero();
+  }
+
+  @Test
+  void shouldRunNestedQueriesOnCallingThreadWhenRejected() {
+    List<Blog> blogs = getBlogs(command -> {
+      throw new RejectedExecutionException();
+    });
+    assertBlogs(blogs);
+  }
+
+  @Test
+  void shouldRunNestedQueriesSeriallyWithResultHandler() {
+    AtomicInteger submitted = new AtomicInteger();
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(command -> {
+      submitted.incrementAndGet();
+      command.run();
+    });
+    List<Blog> blogs = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      sqlSession.select("org.apache.ibatis.submitted.parallel_nested_queries.Mapper.getBlogs",
+          context -> blogs.add((Blog) context.getResultObject()));
+    } finally {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    }
+    assertBlogs(blogs);
+    assertThat(submitted.get()).isZero();
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static boolean tryAcquire(Semaphore semaphore) {
+    try {
+      return semaphore.tryAcquire(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private List<Blog> getBlogs(Executor executor) {
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      return sqlSession.getMapper(Mapper.class).getBlogs();
+    } finally {
+      sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    }
+  }
+
+  private void assertBlogs(List<Blog> blogs) {
+    assertThat(blogs).extracting(Blog::getTitle).containsExactly("Blog1", "Blog2", "Blog3");
+    assertThat(blogs).extracting(blog -> blog.getAuthor().getName()).containsExactly("Author1", "Author2", "Author1");
+    assertThat(blogs.get(0).getPosts()).extracting(Post::getSubject).containsExactly("Post1", "Post2");
+    assertThat(blogs.get(1).getPosts()).extracting(Post::getSubject).containsExactly("Post3");
+    assertThat(blogs.get(2).getPosts()).isEmpty();
+  }
+
+}
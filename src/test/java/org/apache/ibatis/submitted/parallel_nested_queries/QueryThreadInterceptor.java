@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_queries;
+
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+
+@Intercepts(@Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }))
+public class QueryThreadInterceptor implements Interceptor {
+
+  static final Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+  static volatile Runnable beforeQuery;
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    threads.add(Thread.currentThread());
+    final Runnable action = beforeQuery;
+    if (action != null) {
+      action.run();
+    }
+    return invocation.proceed();
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ *    Copyright 2009-2020 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_cache_invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableCacheInvalidationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_cache_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/table_cache_invalidation/CreateDB.sql");
+  }
+
+  @Test
+  void shouldKeepEntriesNotReadFromWrittenTables() {
+    Blog blog = getBlog();
+    Map<String, Object> author = getAuthor();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(AuthorMapper.class).insertAudit("audit");
+      sqlSession.commit();
+    }
+    assertThat(getBlog()).isSameAs(blog);
+    assertThat(getAuthor()).isSameAs(author);
+  }
+
+  @Test
+  void shouldInvalidateEntriesOfAllNamespaces() {
+    Blog blog = getBlog();
+    Map<String, Object> author = getAuthor();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(AuthorMapper.class).updateBlogTitle(1, "New title");
+      sqlSession.commit();
+    }
+    Blog updatedBlog = getBlog();
+    assertThat(updatedBlog).isNotSameAs(blog);
+    assertThat(updatedBlog.getTitle()).isEqualTo("New title");
+    assertThat(getBlog()).isSameAs(updatedBlog);
+    // the namespace of the update is not cleared
+    assertThat(getAuthor()).isSameAs(author);
+  }
+
+  @Test
+  void shouldUseDeclaredTables() {
+    Blog blog = getBlog();
+    Map<String, Object> author = getAuthor();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(AuthorMapper.class).updateAuthorNameInAudit(1, "audit");
+      sqlSession.commit();
+    }
+    // both entries depend on the author table
+    assertThat(getBlog()).isNotSameAs(blog);
+    assertThat(getAuthor()).isNotSameAs(author);
+  }
+
+  @Test
+  void shouldInvalidateOnCommitOnly() {
+    Blog blog = getBlog();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(AuthorMapper.class).updateBlogTitle(1, "New title");
+      // the session sees its own changes
+      assertThat(sqlSession.getMapper(BlogMapper.class).getBlog(1).getTitle()).isEqualTo("New title");
+      assertThat(getBlog()).isSameAs(blog);
+      sqlSession.rollback();
+    }
+    assertThat(getBlog()).isSameAs(blog);
+  }
+
+  private Blog getBlog() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(BlogMapper.class).getBlog(1);
+    }
+  }
+
+  private Map<String, Object> getAuthor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(AuthorMapper.class).getAuthor(1);
+    }
+  }
+
+}
@@ -17,6 +17,7 @@ package org.apache.ibatis.type;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -81,4 +82,13 @@ class DoubleTypeHandlerTest extends BaseTypeHandlerTest {
     assertNull(TYPE_HANDLER.getResult(cs, 1));
   }
 
+  @Test
+  void shouldGetPrimitiveResultFromResultSetByPosition() throws Exception {
+    PrimitiveTypeHandler<Double> handler = (PrimitiveTypeHandler<Double>) TYPE_HANDLER;
+    assertEquals(double.class, handler.getPrimitiveType());
+    when(rs.getDouble(1)).thenReturn(100d);
+    assertEquals(100d, handler.getDouble(rs, 1), 0d);
+    verify(rs, never()).wasNull();
+  }
+
 }
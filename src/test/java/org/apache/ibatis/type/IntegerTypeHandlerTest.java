@@ -17,9 +17,15 @@ package org.apache.ibatis.type;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 import org.junit.jupiter.api.Test;
 
 class IntegerTypeHandlerTest extends BaseTypeHandlerTest {
@@ -81,4 +87,50 @@ class IntegerTypeHandlerTest extends BaseTypeHandlerTest {
     assertNull(TYPE_HANDLER.getResult(cs, 1));
   }
 
+  @Test
+  void shouldGetPrimitiveResultFromResultSetByPosition() throws Exception {
+    PrimitiveTypeHandler<Integer> handler = (PrimitiveTypeHandler<Integer>) TYPE_HANDLER;
+    assertEquals(int.class, handler.getPrimitiveType());
+    when(rs.getInt(1)).thenReturn(100);
+    assertEquals(100, handler.getInt(rs, 1));
+    verify(rs, never()).wasNull();
+  }
+
+  @Test
+  void shouldUnboxResultInDefaultPrimitiveGetter() throws Exception {
+    PrimitiveTypeHandler<Integer> handler = new UnboxingTypeHandler();
+    when(rs.getInt(1)).thenReturn(100, 0);
+    when(rs.wasNull()).thenReturn(false, true);
+    assertEquals(100, handler.getInt(rs, 1));
+    assertEquals(0, handler.getInt(rs, 1));
+  }
+
+  private static class UnboxingTypeHandler extends BaseTypeHandler<Integer> implements PrimitiveTypeHandler<Integer> {
+
+    @Override
+    public Class<?> getPrimitiveType() {
+      return int.class;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType) throws SQLException {
+      TYPE_HANDLER.setParameter(ps, i, parameter, jdbcType);
+    }
+
+    @Override
+    public Integer getNullableResult(ResultSet rs, String columnName) throws SQLException {
+      return TYPE_HANDLER.getResult(rs, columnName);
+    }
+
+    @Override
+    public Integer getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+      return TYPE_HANDLER.getResult(rs, columnIndex);
+    }
+
+    @Override
+    public Integer getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+      return TYPE_HANDLER.getResult(cs, columnIndex);
+    }
+  }
+
 }
@@ -17,6 +17,7 @@ package org.apache.ibatis.type;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -81,4 +82,13 @@ class LongTypeHandlerTest extends BaseTypeHandlerTest {
     assertNull(TYPE_HANDLER.getResult(cs, 1));
   }
 
+  @Test
+  void shouldGetPrimitiveResultFromResultSetByPosition() throws Exception {
+    PrimitiveTypeHandler<Long> handler = (PrimitiveTypeHandler<Long>) TYPE_HANDLER;
+    assertEquals(long.class, handler.getPrimitiveType());
+    when(rs.getLong(1)).thenReturn(100L);
+    assertEquals(100L, handler.getLong(rs, 1));
+    verify(rs, never()).wasNull();
+  }
+
 }